@@ -0,0 +1,224 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import interfaces.UnsavedChangesListener;
+import io.BinaryTimelineFormat;
+import io.TimelineCodecs;
+import javafx.application.Platform;
+import model.Timeline;
+
+/**
+ * Writes copies of timelines with unsaved changes to recovery files, so the changes can be
+ * recovered if the program is not closed properly.
+ *
+ * When a timeline gets unsaved changes, a copy is written after the autosave interval has
+ * passed, and then again every interval for as long as it stays unsaved. Edits made during an
+ * interval are written together, and nothing is written if the timeline has not changed since
+ * the last copy. When the timeline is saved, removed, or the program exits normally the
+ * recovery file is deleted, so the files that are left at startup belong to timelines that
+ * were lost.
+ *
+ * A recovery file holds the path of the file the timeline was opened from or saved to, if any,
+ * so it can be saved there once recovered.
+ *
+ * All methods must be called on the JavaFX thread. The copies are written on a background thread.
+ *
+ * @version 0.00.00
+ * @name AutosaveService.java
+ */
+public class AutosaveService implements UnsavedChangesListener {
+
+	private static final File RECOVERY_DIRECTORY = new File(System.getProperty("user.home") + "/Documents/Timeline Manager/Recovery");
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "Autosave");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final long intervalMillis;
+	private final Function<Timeline, File> timelineFiles;
+	private final Map<Timeline, Entry> entries = new HashMap<Timeline, Entry>();
+
+	/**
+	 * The autosave state of one timeline.
+	 */
+	private static class Entry {
+		private final File recoveryFile = new File(RECOVERY_DIRECTORY, "autosave-" + UUID.randomUUID() + BinaryTimelineFormat.EXTENSION);
+		private long writtenVersion = -1;
+		private ScheduledFuture<?> next;
+		// Identifies the scheduled copy, a copy that was cancelled too late to stop it is ignored
+		private int ticket;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param intervalMillis - the time between two copies of the same timeline, 0 or less to turn autosave off
+	 * @param timelineFiles - returns the file of a timeline, or null if it has not been saved
+	 */
+	public AutosaveService(long intervalMillis, Function<Timeline, File> timelineFiles) {
+		this.intervalMillis = intervalMillis;
+		this.timelineFiles = timelineFiles;
+	}
+
+	/**
+	 * Returns the recovery files left by an earlier run of the program.
+	 */
+	public static List<File> getRecoveryFiles() {
+		List<File> files = new ArrayList<File>();
+		File[] found = RECOVERY_DIRECTORY.listFiles((dir, name) -> name.startsWith("autosave-"));
+
+		if (found != null) {
+			for (File f : found) {
+				files.add(f);
+			}
+		}
+
+		return files;
+	}
+
+	/**
+	 * Start autosaving a timeline.
+	 */
+	public void watch(Timeline timeline) {
+		if (intervalMillis <= 0 || entries.containsKey(timeline)) {
+			return;
+		}
+
+		entries.put(timeline, new Entry());
+		timeline.setUnsavedChangesListener(this);
+
+		if (timeline.getHasUnsavedChanges()) {
+			schedule(timeline);
+		}
+	}
+
+	/**
+	 * Stop autosaving a timeline and delete its recovery file.
+	 */
+	public void unwatch(Timeline timeline) {
+		Entry entry = entries.remove(timeline);
+
+		if (entry != null) {
+			timeline.setUnsavedChangesListener(null);
+			discard(entry);
+		}
+	}
+
+	/**
+	 * Stop autosaving and delete all recovery files. Called when the program exits normally.
+	 */
+	public void shutdown() {
+		for (Entry entry : entries.values()) {
+			if (entry.next != null) {
+				entry.next.cancel(false);
+			}
+		}
+
+		executor.shutdownNow();
+
+		for (Entry entry : entries.values()) {
+			entry.recoveryFile.delete();
+		}
+
+		entries.clear();
+	}
+
+	@Override
+	public void onUnsavedChangesChanged(Timeline timeline, boolean unsavedChanges) {
+		Entry entry = entries.get(timeline);
+
+		if (entry != null) {
+			if (unsavedChanges) {
+				schedule(timeline);
+			} else {
+				discard(entry);
+			}
+		}
+	}
+
+	private void schedule(Timeline timeline) {
+		Entry entry = entries.get(timeline);
+
+		if (entry.next == null) {
+			int ticket = ++entry.ticket;
+			entry.next = executor.schedule(() -> Platform.runLater(() -> autosave(timeline, ticket)), intervalMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Takes a copy of the timeline if it has changed since the last one and writes it on the
+	 * background thread. Runs on the JavaFX thread.
+	 */
+	private void autosave(Timeline timeline, int ticket) {
+		Entry entry = entries.get(timeline);
+
+		if (entry == null || entry.ticket != ticket || !timeline.getHasUnsavedChanges()) {
+			return;
+		}
+
+		entry.next = null;
+
+		if (timeline.getVersion() != entry.writtenVersion) {
+			File file = timelineFiles.apply(timeline);
+			Timeline snapshot = timeline.snapshot();
+			snapshot.setPath(file != null ? file.getAbsolutePath() : "");
+			entry.writtenVersion = timeline.getVersion();
+
+			executor.execute(() -> {
+				try {
+					RECOVERY_DIRECTORY.mkdirs();
+					TimelineCodecs.forWriting(entry.recoveryFile).write(snapshot, entry.recoveryFile);
+				} catch (IOException ex) {
+					System.err.println("Could not autosave timeline. Message: " + ex.getMessage());
+					Platform.runLater(() -> entry.writtenVersion = -1);
+				}
+			});
+		}
+
+		// Check again after the next interval, more edits do not report a new change of the flag
+		schedule(timeline);
+	}
+
+	/**
+	 * Cancels the next copy and deletes the recovery file once a copy that is being written is done.
+	 */
+	private void discard(Entry entry) {
+		if (entry.next != null) {
+			entry.next.cancel(false);
+			entry.next = null;
+		}
+
+		entry.ticket++;
+		entry.writtenVersion = -1;
+
+		try {
+			executor.execute(() -> {
+				try {
+					Files.deleteIfExists(entry.recoveryFile.toPath());
+				} catch (IOException ex) {
+					System.err.println("Could not delete recovery file. Message: " + ex.getMessage());
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			// Shut down, delete it right away
+			entry.recoveryFile.delete();
+		}
+	}
+}
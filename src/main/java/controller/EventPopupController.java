@@ -1,13 +1,14 @@
 package controller;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import interfaces.EventPopupListener;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Toggle;
 import javafx.scene.paint.Color;
 import model.Event.EventType;
-import model.Timeline;
+import model.EventValidator;
 import model.TimelineContainer;
 import javafx.scene.control.Alert.AlertType;
 import view.EventPopup;
@@ -57,41 +58,17 @@ public class EventPopupController implements EventPopupListener {
 	private boolean checkInput(Toggle eventTypeToggle, String eventTitle, String eventDescription,
 			LocalDateTime startDate, LocalDateTime endDate) {
 		
-		StringBuilder message = new StringBuilder();
-		boolean isDurationEvent = isDurationEvent(eventTypeToggle);
-		Timeline currentTimeline = container.getActiveTimeline();
-		boolean inputOkay = true;
+		EventType type = eventTypeToggle == null ? null
+				: isDurationEvent(eventTypeToggle) ? EventType.DURATION : EventType.NON_DURATION;
+		List<String> problems = EventValidator.check(eventTitle, type, startDate, endDate, container.getActiveTimeline());
 		
-		if (eventTitle.isEmpty()) {
-			inputOkay = false;
-			message.append("- Title must not be empty.\n");
-		} if (eventTypeToggle == null) {
-			inputOkay = false;
-			message.append("- An event type must be selected.\n");
-		} else if (isDurationEvent && (startDate == null || endDate == null)) {	// valid duration dates and time?
-			inputOkay = false;
-			message.append("- A start and end date and time must be selected for duration events.\n");
-		} else if (!isDurationEvent && (startDate == null)) {	// valid non-duration dates and time?
-			inputOkay = false;
-			message.append("- A start date and start time must be selected for non-duration events.\n");
-		} else if (isDurationEvent && startDate.isAfter(endDate)) {
-			inputOkay = false;
-			message.append("- End Date can not be before Start Date.\n");
-		} else if (!isDatesWithinTimeline(startDate, endDate, currentTimeline)) {
-			inputOkay = false;
-			message.append(String.format("- Event date(s) must be within range %s - %s.\n",
-					currentTimeline.getStartDate(), currentTimeline.getEndDate()));
-		}
-		
-		if (inputOkay) {
+		if (problems.isEmpty()) {
 			return true;
 		} else {
-			message.insert(0, "The following input was invalid:\n");
+			StringBuilder message = new StringBuilder("The following input was invalid:");
 			
-			// remove last instance of '\n' in the stringbuilder
-			int index = message.lastIndexOf("\n");
-			if (index >= 0) {
-				message = message.replace(index, index + 1, "");
+			for (String problem : problems) {
+				message.append("\n- ").append(problem);
 			}
 			
 			MainController.showAlert(AlertType.ERROR, message.toString(), ButtonType.OK);
@@ -102,17 +79,5 @@ public class EventPopupController implements EventPopupListener {
 	private boolean isDurationEvent(Toggle toggle) {
 		return toggle != null && toggle.getUserData().toString().equals("duration");
 	}
-	
-	private boolean isDatesWithinTimeline(LocalDateTime eventStart, LocalDateTime eventEnd, Timeline timeline) {
-		if (eventEnd == null) { // non-duration event?
-			return eventStart.toLocalDate().minusDays(1).isBefore(timeline.getEndDate()) 
-					&& eventStart.toLocalDate().plusDays(1).isAfter(timeline.getStartDate());
-		} else {
-			return eventStart.toLocalDate().minusDays(1).isBefore(timeline.getEndDate()) 
-					&& eventStart.toLocalDate().plusDays(1).isAfter(timeline.getStartDate())
-					&& eventEnd.toLocalDate().plusDays(1).isAfter(timeline.getStartDate()) 
-					&& eventEnd.toLocalDate().minusDays(1).isBefore(timeline.getEndDate());
-		}
-	}
 
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import io.EventExporter;
+import javafx.concurrent.Task;
+import model.Timeline;
+
+/**
+ * Exports all events of a timeline to a file on a background thread. Exporting a range of
+ * time is only offered by ExportTimeline.
+ *
+ * A copy of the timeline is exported so it can be changed while the task runs. The copy of a
+ * windowed timeline maps its file again and reads it a page at a time, so the timeline can
+ * still be read completely and close its own source during the export.
+ *
+ * @version 0.00.00
+ * @name ExportTask.java
+ */
+public class ExportTask extends Task<Integer> {
+
+	private final Timeline timeline;
+	private final EventExporter exporter;
+	private final File file;
+
+	/**
+	 * Constructor, called on the JavaFX thread.
+	 *
+	 * @param timeline - the timeline to export
+	 * @param exporter - writes the format of the file
+	 * @param file - the file to write
+	 * @param onDone - called on the JavaFX thread when the export is done or has failed
+	 *
+	 * @throws IOException if the file of a windowed timeline can not be mapped again
+	 */
+	public ExportTask(Timeline timeline, EventExporter exporter, File file, Consumer<ExportTask> onDone) throws IOException {
+		this.timeline = timeline.isWindowed() ? timeline.windowedSnapshot() : timeline.snapshot();
+		this.exporter = exporter;
+		this.file = file;
+
+		setOnSucceeded(e -> onDone.accept(this));
+		setOnFailed(e -> {
+			System.err.println("Could not export to " + file.getName() + ". Error: " + getException());
+			onDone.accept(this);
+		});
+	}
+
+	/**
+	 * Start exporting on a thread of its own.
+	 */
+	public void start() {
+		Thread thread = new Thread(this, "Export events");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	protected Integer call() throws Exception {
+		updateMessage("Exporting to " + file.getName());
+
+		try {
+			return exporter.write(timeline, null, null, file);
+		} finally {
+			timeline.releaseSource();
+		}
+	}
+}
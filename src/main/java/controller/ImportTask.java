@@ -0,0 +1,218 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import io.EventImporter;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import model.Event;
+import model.EventValidator;
+import model.Timeline;
+import model.TimelineContainer;
+
+/**
+ * Imports the events of a file into a timeline on a background thread.
+ *
+ * Each event is checked against the same rules as events entered in the EventPopup, events
+ * that break them are skipped and reported. The valid events are added to the timeline on the
+ * JavaFX thread in chunks, and the reader waits while two chunks are waiting to be added, so
+ * the events are never read much faster than they are added however large the file is.
+ *
+ * Each chunk is added as a batch of its own, so the listener of the TimelineContainer is
+ * notified once per chunk and never holds more than a chunk of changes, and changes the user
+ * makes during the import are reported as usual. When the import is done the result is
+ * reported once through onDone. If the import fails the events that were added are removed
+ * again, a chunk at a time.
+ *
+ * @version 0.00.00
+ * @name ImportTask.java
+ */
+public class ImportTask extends Task<Integer> {
+
+	private static final int CHUNK_SIZE = 10000;
+	private static final int CHUNKS_WAITING = 2;
+	private static final int REPORTED_PROBLEMS = 20;
+
+	private final File file;
+	private final EventImporter importer;
+	private final Timeline timeline;
+	private final Timeline range;
+	private final TimelineContainer container;
+	private final Semaphore waiting = new Semaphore(CHUNKS_WAITING);
+
+	// Only used on the JavaFX thread
+	private final List<Integer> addedIds = new ArrayList<Integer>();
+
+	// Only used on the import thread until the task is done
+	private final List<String> problems = new ArrayList<String>();
+	private List<Event> chunk = new ArrayList<Event>();
+	private int imported;
+	private int skipped;
+
+	/**
+	 * Constructor, called on the JavaFX thread.
+	 *
+	 * @param file - the file to import
+	 * @param importer - reads the format of the file
+	 * @param timeline - the timeline to add the events to
+	 * @param container - the container of the timeline
+	 * @param onDone - called on the JavaFX thread when the import is done or has failed
+	 */
+	public ImportTask(File file, EventImporter importer, Timeline timeline, TimelineContainer container,
+			Consumer<ImportTask> onDone) {
+		this.file = file;
+		this.importer = importer;
+		this.timeline = timeline;
+		this.container = container;
+
+		// The rules only need the dates of the timeline, copy them for the import thread
+		range = new Timeline(timeline.getName());
+		range.setStartDate(timeline.getStartDate());
+		range.setEndDate(timeline.getEndDate());
+
+		setOnSucceeded(e -> onDone.accept(this));
+
+		setOnFailed(e -> {
+			System.err.println("Could not import " + file.getName() + ". Error: " + getException());
+
+			for (int first = 0; first < addedIds.size(); first += CHUNK_SIZE) {
+				container.deleteEvents(timeline, addedIds.subList(first, Math.min(first + CHUNK_SIZE, addedIds.size())));
+			}
+
+			onDone.accept(this);
+		});
+	}
+
+	/**
+	 * Start importing on a thread of its own.
+	 */
+	public void start() {
+		Thread thread = new Thread(this, "Import events");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Returns the number of events that were imported.
+	 */
+	public int getImportedCount() {
+		return imported;
+	}
+
+	/**
+	 * Returns the number of rows that were skipped.
+	 */
+	public int getSkippedCount() {
+		return skipped;
+	}
+
+	/**
+	 * Returns why rows were skipped, for the first few of them.
+	 */
+	public List<String> getProblems() {
+		return problems;
+	}
+
+	@Override
+	protected Integer call() throws Exception {
+		long length = Math.max(1, file.length());
+
+		try (InputStream stream = new FileInputStream(file)) {
+			CountingInputStream counter = new CountingInputStream(stream);
+			Reader in = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8), 1 << 16);
+
+			importer.read(in, event -> {
+				List<String> broken = EventValidator.check(event.getEventName(), event.getType(), event.getStartDate(),
+						event.getEndDate(), range);
+
+				if (broken.isEmpty()) {
+					chunk.add(event);
+
+					if (chunk.size() == CHUNK_SIZE) {
+						addChunk();
+						updateMessage("Imported " + imported + " events");
+						updateProgress(counter.count, length);
+					}
+				} else {
+					skip("\"" + event.getEventName() + "\": " + broken.get(0));
+				}
+			}, (line, message) -> skip("Line " + line + ": " + message));
+		}
+
+		addChunk();
+		return imported;
+	}
+
+	private void skip(String problem) {
+		if (skipped++ < REPORTED_PROBLEMS) {
+			problems.add(problem);
+		}
+	}
+
+	/**
+	 * Hands the events read so far to the JavaFX thread, waiting first if it is behind.
+	 */
+	private void addChunk() {
+		if (chunk.isEmpty()) {
+			return;
+		}
+
+		try {
+			waiting.acquire();
+		} catch (InterruptedException ex) {
+			throw new CancellationException("The import was interrupted");
+		}
+
+		List<Event> events = chunk;
+		chunk = new ArrayList<Event>();
+		imported += events.size();
+
+		Platform.runLater(() -> {
+			container.addEvents(timeline, events);
+
+			for (Event e : events) {
+				addedIds.add(e.getId());
+			}
+
+			waiting.release();
+		});
+	}
+
+	/**
+	 * Keeps track of how much of the file has been read, for the progress.
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+		private volatile long count;
+
+		private CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			count += b >= 0 ? 1 : 0;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = in.read(b, off, len);
+			count += Math.max(read, 0);
+			return read;
+		}
+	}
+}
@@ -1,18 +1,24 @@
 package controller;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import de.jensd.fx.fontawesome.AwesomeStyle;
 import interfaces.ModelChangedListener;
+import interfaces.SettingsListener;
 import io.FileHandler;
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.stage.Modality;
 import javafx.stage.Window;
 import javafx.stage.WindowEvent;
 import main.TimelineManager;
+import model.ModelChange;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.paint.Color;
 import model.Timeline;
@@ -23,13 +29,14 @@ import view.MainView;
  * The MainController creates all other controller classes and sets up their communication
  * with the view classes. It also implements the interface ModelChangedListener so it can
  * be notified when the timelines in TimelineContainer changes, for example when a timeline
- * gets added.
+ * gets added, and SettingsListener so changes to the config file made while the program is
+ * running are applied.
  * 
  * @author Daniel Alm Grundstrom
  * @version 0.00.00
  * @name MainController.java
  */
-public class MainController implements ModelChangedListener {
+public class MainController implements ModelChangedListener, SettingsListener {
 	private static Window window;
 	
 	private MainView mainView;
@@ -37,6 +44,7 @@ public class MainController implements ModelChangedListener {
 	private FileHandler fileHandler;
 	private MenuController menuController;
 	private TimelineViewController timelineViewController;
+	private AutosaveService autosave;
 	
 	/**
 	 * Constructor. Creates the controllers and stores references to MainView and
@@ -60,13 +68,47 @@ public class MainController implements ModelChangedListener {
 		mainView.getMenuView().updateTimelineDropdown(timelines, active);
 	}
 	
+	@Override
+	public void onModelChanged(List<ModelChange> changes, List<Timeline> timelines, Timeline active) {
+		System.out.println("MainController: TimelineContainer has been updated (" + changes.size() + " changes)");
+		menuController.recordChanges(changes);
+		
+		for (ModelChange change : changes) {
+			if (change.getType() == ModelChange.Type.TIMELINE_ADDED) {
+				autosave.watch(change.getTimeline());
+			} else if (change.getType() == ModelChange.Type.TIMELINE_REMOVED) {
+				autosave.unwatch(change.getTimeline());
+			}
+		}
+		
+		// Only redraw the timeline view if the displayed timeline is affected, and only the changed
+		// events if nothing else has changed. A timeline that has not been read yet is shown once it
+		// has been read in the background, unless it can be shown a part at a time.
+		if (active != null && !active.isResident() && !active.isWindowed()) {
+			mainView.getTimelineView().setTimeline(null, "");
+			menuController.loadTimeline(active);
+		} else if (changes.stream().anyMatch(c -> c.getType() == ModelChange.Type.ACTIVE_CHANGED)) {
+			mainView.getTimelineView().setTimeline(active, "");
+		} else if (changes.stream().anyMatch(c -> c.getTimeline() == active)) {
+			mainView.getTimelineView().updateEvents(active,
+					changes.stream().filter(c -> c.getTimeline() == active).collect(Collectors.toList()));
+		}
+		
+		mainView.getMenuView().updateTimelineDropdown(timelines, active);
+	}
+	
 	/**
 	 * Called when application starts
 	 */
 	public void onStart() {
 		window = mainView.getScene().getWindow();
+		autosave = new AutosaveService(readAutosaveInterval() * 1000L, menuController::getTimelineFile);
+		timelineContainer.setMemoryBudget(readMemoryBudget() * 1024 * 1024, menuController::getEventSource);
 		setupListeners();
 		loadConfig();
+		watchConfig();
+		offerRecovery();
+		menuController.restoreWorkspace();
 	}
 	
 	/**
@@ -85,32 +127,23 @@ public class MainController implements ModelChangedListener {
 					ButtonType.YES, ButtonType.NO, ButtonType.CANCEL);
 			
 			if (result == ButtonType.YES) {
+				// Keep the window open until the timelines have been written
+				e.consume();
 				
-				for (Timeline t : unsavedTimelines) {
-					
-					if (t != timelineContainer.getActiveTimeline()) {
-						timelineContainer.setActiveTimeline(t);
+				menuController.save(unsavedTimelines, failed -> {
+					if (timelineContainer.getTimelines().stream().filter(t -> t.getHasUnsavedChanges()).count() > 0) {
+						MainController.showAlert(AlertType.ERROR, "One or more timelines could not be saved. Try again before exiting.", ButtonType.OK);
+					} else {
+						exit();
 					}
-					
-					menuController.onSaveButtonClicked();
-				}
-				
-				if (timelineContainer.getTimelines().stream().filter(t -> t.getHasUnsavedChanges()).count() > 0) {
-					MainController.showAlert(AlertType.ERROR, "One or more timelines could not be saved. Try again before exiting.", ButtonType.OK);
-					e.consume();
-				} else {
-					saveConfig();
-					TimelineManager.exit();
-				}
+				});
 			} else if (result == ButtonType.NO) {
-				saveConfig();
-				TimelineManager.exit();
+				exit();
 			} else {
 				e.consume();
 			}
 		} else {
-			saveConfig();
-			TimelineManager.exit();
+			exit();
 		}
 	}
 	
@@ -135,6 +168,59 @@ public class MainController implements ModelChangedListener {
 		return result;
 	}
 	
+	private void exit() {
+		FileHandler.getSettings().close();
+		menuController.saveCatalog();
+		autosave.shutdown();
+		TimelineManager.exit();
+	}
+	
+	/**
+	 * Offer to open the timelines autosaved by an earlier run of the program that did not
+	 * exit normally. The recovery files are deleted once they have been recovered or the user
+	 * has chosen not to, the recovered timelines get new ones as they are autosaved again. A
+	 * file that can not be read is kept under a name that is not offered again, and reported.
+	 */
+	private void offerRecovery() {
+		List<File> files = AutosaveService.getRecoveryFiles();
+		
+		if (files.isEmpty()) {
+			return;
+		}
+		
+		ButtonType result = MainController.showAlert(AlertType.CONFIRMATION, "Timeline Manager was not closed properly. Do you want to recover "
+				+ files.size() + " unsaved timeline(s)?", ButtonType.YES, ButtonType.NO);
+		
+		List<File> unreadable = new ArrayList<File>();
+		
+		for (File f : files) {
+			if (result == ButtonType.YES) {
+				try {
+					Timeline timeline = fileHandler.readTimeline(f);
+					File original = timeline.getPath() == null || timeline.getPath().isEmpty() ? null : new File(timeline.getPath());
+					menuController.addRecoveredTimeline(timeline, original);
+				} catch (Exception ex) {
+					System.err.println("Could not recover timeline from " + f.getName() + ". Error: " + ex.getMessage());
+					File kept = new File(f.getParentFile(), "unreadable-" + f.getName());
+					unreadable.add(f.renameTo(kept) ? kept : f);
+					continue;
+				}
+			}
+			
+			f.delete();
+		}
+		
+		if (!unreadable.isEmpty()) {
+			StringBuilder message = new StringBuilder("The following recovery files could not be read and have been kept:");
+			
+			for (File f : unreadable) {
+				message.append("\n").append(f.getPath());
+			}
+			
+			MainController.showAlert(AlertType.ERROR, message.toString(), ButtonType.OK);
+		}
+	}
+	
 	private void setupListeners() {
 		timelineContainer.registerListener(this);
 		mainView.getMenuView().registerListener(menuController);
@@ -142,31 +228,71 @@ public class MainController implements ModelChangedListener {
 	}
 	
 	private void loadConfig() {
-		String theme = "";
-		
-		try {
-			theme = fileHandler.readProperty("theme", "light");
-		} catch (Exception ex) {
-			System.err.println("Could not read config file. Message: " + ex.getMessage());
-		}
+		String theme = fileHandler.readProperty("theme", "light");
 		
 		if (theme.toLowerCase().equals("light")) {
+			mainView.getScene().getStylesheets().clear();
 			mainView.getTimelineView().setTextColor(Color.BLACK);
 		} else if (theme.toLowerCase().equals("dark")) {
-			mainView.getScene().getStylesheets().add(AwesomeStyle.DARK.getStylePath());
+			if (mainView.getScene().getStylesheets().isEmpty()) {
+				mainView.getScene().getStylesheets().add(AwesomeStyle.DARK.getStylePath());
+			}
 			mainView.getTimelineView().setTextColor(Color.WHITE);
 		}
+		
+		// The timeline is drawn with a node for each column and event unless "renderer" is "canvas"
+		String renderer = fileHandler.readProperty("renderer", "nodes");
+		mainView.getTimelineView().setCanvasRendering(renderer.toLowerCase().equals("canvas"));
 	}
 	
-	private void saveConfig() {
+	/**
+	 * Start reading the config file again when it is edited while the program is running.
+	 */
+	private void watchConfig() {
+		FileHandler.getSettings().addListener(this);
+		
 		try {
-			if (mainView.getScene().getStylesheets().size() > 0) {
-				fileHandler.writeProperty("theme", "dark");
-			} else {
-				fileHandler.writeProperty("theme", "light");
-			}
+			FileHandler.getSettings().watch();
 		} catch (IOException ex) {
-			System.err.println("Could not write config file. Message: " + ex.getMessage());
+			System.err.println("Could not watch config file. Message: " + ex.getMessage());
+		}
+	}
+	
+	@Override
+	public void onSettingsChanged(Set<String> keys) {
+		if (keys.contains("theme") || keys.contains("renderer")) {
+			Platform.runLater(() -> {
+				loadConfig();
+				mainView.getTimelineView().setTimeline(timelineContainer.getActiveTimeline(),
+						mainView.getTimelineView().getTimePerspective());
+			});
+		}
+	}
+	
+	/**
+	 * Read the autosave interval in seconds from the config file, 0 means autosave is off.
+	 */
+	private long readAutosaveInterval() {
+		try {
+			return Long.parseLong(fileHandler.readProperty("autosaveInterval", "30"));
+		} catch (Exception ex) {
+			System.err.println("Could not read autosave interval. Message: " + ex.getMessage());
+			return 30;
+		}
+	}
+	
+	/**
+	 * Read the memory budget for the events of the open timelines in megabytes from the config
+	 * file. The default is a quarter of the memory the program may use.
+	 */
+	private long readMemoryBudget() {
+		long defaultBudget = Runtime.getRuntime().maxMemory() / 4 / (1024 * 1024);
+		
+		try {
+			return Long.parseLong(fileHandler.readProperty("memoryBudget", String.valueOf(defaultBudget)));
+		} catch (Exception ex) {
+			System.err.println("Could not read memory budget. Message: " + ex.getMessage());
+			return defaultBudget;
 		}
 	}
 
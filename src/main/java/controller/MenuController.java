@@ -4,7 +4,13 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import de.jensd.fx.fontawesome.AwesomeStyle;
 
@@ -15,12 +21,22 @@ import de.jensd.fx.fontawesome.AwesomeStyle;
 */
 
 import interfaces.MenuListener;
+import io.ChangeJournal;
+import io.ColumnMapping;
+import io.EventExporter;
+import io.EventImporter;
 import io.FileHandler;
+import io.TimelineCodec;
+import io.TimelineCodecs;
+import io.WorkspaceCatalog;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.paint.Color;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
+import model.EventSource;
+import model.ModelChange;
 import model.Timeline;
 import model.TimelineContainer;
 import view.MenuView;
@@ -35,6 +51,9 @@ public class MenuController implements MenuListener {
 	private TimelinePopupController timelinePopupController;
 	private FileChooser chooser;
 	private HashMap<Timeline, File> timelineFiles;
+	private HashMap<Timeline, ChangeJournal> journals;
+	private List<Timeline> loading;
+	private WorkspaceCatalog catalog;
 	
 	/**
 	 * Constructor. Initializes file handler and stores references to timeline
@@ -50,6 +69,9 @@ public class MenuController implements MenuListener {
 		fileHandler = new FileHandler();
 		menuView = mv;
 		timelineView = tv;
+		journals = new HashMap<Timeline, ChangeJournal>();
+		loading = new ArrayList<Timeline>();
+		catalog = new WorkspaceCatalog();
 		timelineFiles = new HashMap<>();
 	}
 
@@ -65,32 +87,221 @@ public class MenuController implements MenuListener {
 	public void onOpenButtonClicked() {
 		File initialDirectory = new File(System.getProperty("user.home") + "/Documents/Timeline Manager/Timelines");
 		FileChooser chooser = new FileChooser();
-		chooser.getExtensionFilters().addAll(
-				new ExtensionFilter("XML Files", "*.xml"),
-				new ExtensionFilter("All Files", "*.*"));
+		addExtensionFilters(chooser, true);
 		chooser.setInitialDirectory(initialDirectory);
+		List<File> files = chooser.showOpenMultipleDialog(menuView.getScene().getWindow());
+		
+		if (files != null) {
+			open(files);
+		}
+	}
+	
+	@Override
+	public void onOpenFolderButtonClicked() {
+		File initialDirectory = new File(System.getProperty("user.home") + "/Documents/Timeline Manager/Timelines");
+		DirectoryChooser chooser = new DirectoryChooser();
+		chooser.setTitle("Open all timelines in folder");
+		
+		if (initialDirectory.exists()) {
+			chooser.setInitialDirectory(initialDirectory);
+		}
+		
+		File directory = chooser.showDialog(menuView.getScene().getWindow());
+		
+		if (directory != null) {
+			List<File> files = new ArrayList<File>();
+			File[] found = directory.listFiles(f -> f.isFile() && TimelineCodecs.forFileName(f.getName()) != null);
+			
+			if (found != null) {
+				files.addAll(Arrays.asList(found));
+			}
+			
+			if (files.isEmpty()) {
+				MainController.showAlert(AlertType.INFORMATION, "There are no timelines in the selected folder.", ButtonType.OK);
+			} else {
+				open(files);
+			}
+		}
+	}
+	
+	@Override
+	public void onImportButtonClicked() {
+		Timeline timeline = timelineContainer.getActiveTimeline();
+		
+		if (timeline == null) {
+			MainController.showAlert(AlertType.INFORMATION, "Select the timeline to import the events into first.", ButtonType.OK);
+			return;
+		}
+		
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Import events");
+		chooser.getExtensionFilters().addAll(new ExtensionFilter("CSV files (*.csv)", "*.csv"),
+				new ExtensionFilter("iCalendar files (*.ics)", "*.ics"));
 		File file = chooser.showOpenDialog(menuView.getScene().getWindow());
 		
-		if (file != null && fileAlreadyOpened(file)) {
-			MainController.showAlert(AlertType.INFORMATION, "The timeline you attempted to open is already opened.", ButtonType.OK);
-		} else {
-			if (file != null)
-				System.out.println("Attempting to open timeline at location: " + file.getPath());
-			Timeline openedTimeline = null;
-
-			try {
-				openedTimeline = fileHandler.readXML(file);
-				openedTimeline.setHasUnsavedChanges(false);
-			} catch (Exception ex) {
-				// TODO: Show error message in Alert window
-				System.err.println("Could not open timeline. Error: " + ex.getMessage());
+		if (file == null) {
+			return;
+		}
+		
+		EventImporter importer;
+		
+		try {
+			importer = EventImporter.forFile(file, readColumnMapping());
+		} catch (IllegalArgumentException ex) {
+			MainController.showAlert(AlertType.ERROR, "The setting importColumns is not valid. " + ex.getMessage(), ButtonType.OK);
+			return;
+		}
+		
+		if (importer == null) {
+			MainController.showAlert(AlertType.ERROR, "Events can only be imported from CSV and iCalendar files.", ButtonType.OK);
+			return;
+		}
+		
+		// The chunks of a large import are too large to be shown one by one, lay out the timeline
+		// once when the import is done instead of after each chunk
+		timelineView.holdLayout();
+		
+		ImportTask task = new ImportTask(file, importer, timeline, timelineContainer, done -> {
+			timelineView.releaseLayout();
+			StringBuilder message = new StringBuilder();
+			
+			if (done.getException() != null) {
+				message.append("The events could not be imported: ").append(done.getException().getMessage());
+			} else {
+				message.append("Imported ").append(done.getImportedCount()).append(" events.");
+				
+				if (done.getSkippedCount() > 0) {
+					message.append(" ").append(done.getSkippedCount()).append(" events were skipped:");
+					
+					for (String problem : done.getProblems()) {
+						message.append("\n").append(problem);
+					}
+				}
 			}
-
-			if (openedTimeline != null) {
-				timelineContainer.addTimeline(openedTimeline);
-				timelineFiles.put(openedTimeline, file);
+			
+			MainController.showAlert(done.getException() != null ? AlertType.ERROR : AlertType.INFORMATION, message.toString(), ButtonType.OK);
+		});
+		
+		menuView.showProgress(task);
+		task.start();
+	}
+	
+	@Override
+	public void onExportButtonClicked() {
+		Timeline timeline = timelineContainer.getActiveTimeline();
+		
+		if (timeline == null) {
+			MainController.showAlert(AlertType.INFORMATION, "There is no timeline to export.", ButtonType.OK);
+			return;
+		}
+		
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Export events");
+		
+		for (EventExporter exporter : EventExporter.getExporters()) {
+			chooser.getExtensionFilters().add(new ExtensionFilter(exporter.getName() + " files (*" + exporter.getExtension() + ")",
+					"*" + exporter.getExtension()));
+		}
+		
+		chooser.setInitialFileName(timeline.getName().toLowerCase() + EventExporter.getExporters().get(0).getExtension());
+		File file = chooser.showSaveDialog(menuView.getScene().getWindow());
+		
+		if (file == null) {
+			return;
+		}
+		
+		EventExporter exporter = EventExporter.forFile(file);
+		
+		if (exporter == null) {
+			// No known extension, use the format of the selected filter
+			int format = chooser.getExtensionFilters().indexOf(chooser.getSelectedExtensionFilter());
+			exporter = EventExporter.getExporters().get(Math.max(format, 0));
+			file = new File(file.getPath() + exporter.getExtension());
+		}
+		
+		ExportTask task;
+		
+		try {
+			task = new ExportTask(timeline, exporter, file, done -> {
+				if (done.getException() != null) {
+					MainController.showAlert(AlertType.ERROR, "The events could not be exported: " + done.getException().getMessage(), ButtonType.OK);
+				}
+			});
+		} catch (IOException ex) {
+			MainController.showAlert(AlertType.ERROR, "The events could not be exported: " + ex.getMessage(), ButtonType.OK);
+			return;
+		}
+		
+		menuView.showProgress(task);
+		task.start();
+	}
+	
+	/**
+	 * Read the columns of CSV files to import from the config file. Without the setting they
+	 * are taken from the header of each file.
+	 */
+	private ColumnMapping readColumnMapping() {
+		String columns = fileHandler.readProperty("importColumns", "");
+		return columns.trim().isEmpty() ? null : ColumnMapping.parse(columns);
+	}
+	
+	/**
+	 * Open timeline files in the background, several at a time. The timelines are collected as
+	 * they are read and added together once the last one has been read, so the listener of the
+	 * timeline container is only notified once. No batch is kept open while the files are read,
+	 * so changes the user makes in the meantime are reported and journaled as usual.
+	 * 
+	 * @param files - the files to open
+	 */
+	public void open(List<File> files) {
+		List<File> toOpen = new ArrayList<File>();
+		
+		for (File file : files) {
+			if (!fileAlreadyOpened(file) && !toOpen.contains(file)) {
+				toOpen.add(file);
 			}
 		}
+		
+		if (toOpen.size() < files.size()) {
+			MainController.showAlert(AlertType.INFORMATION, toOpen.isEmpty() ? "The timeline you attempted to open is already opened."
+					: (files.size() - toOpen.size()) + " of the timelines you attempted to open are already opened.", ButtonType.OK);
+		}
+		
+		if (toOpen.isEmpty()) {
+			return;
+		}
+		
+		System.out.println("Attempting to open " + toOpen.size() + " timeline(s)");
+		Map<Timeline, File> opened = new LinkedHashMap<Timeline, File>();
+		
+		OpenTask task = new OpenTask(toOpen, fileHandler, opened::put, failed -> {
+			timelineContainer.beginBatch();
+			
+			try {
+				for (Map.Entry<Timeline, File> entry : opened.entrySet()) {
+					timelineContainer.addTimeline(entry.getKey());
+					timelineFiles.put(entry.getKey(), entry.getValue());
+					journals.put(entry.getKey(), new ChangeJournal(entry.getValue()));
+				}
+			} finally {
+				timelineContainer.commitBatch();
+			}
+			
+			saveCatalog();
+			
+			if (!failed.isEmpty()) {
+				StringBuilder message = new StringBuilder("The following timelines could not be opened:");
+				
+				for (File f : failed) {
+					message.append("\n").append(f.getName());
+				}
+				
+				MainController.showAlert(AlertType.ERROR, message.toString(), ButtonType.OK);
+			}
+		});
+		
+		menuView.showProgress(task);
+		task.start();
 	}
 
 	@Override
@@ -106,11 +317,16 @@ public class MenuController implements MenuListener {
 				try {
 					File fileToDelete = (File)timelineFiles.get(timeline);
 					Files.delete(Paths.get(fileToDelete.getPath()));
+					
+					if (journals.containsKey(timeline)) {
+						journals.get(timeline).delete();
+					}
 				} catch (IOException f) {
 					f.printStackTrace();
 				}
 	
 				timelineFiles.remove(timeline);
+				journals.remove(timeline);
 				timelineContainer.deleteTimeline();
 			}
 		}
@@ -124,7 +340,42 @@ public class MenuController implements MenuListener {
 		if (active == null) {
 			MainController.showAlert(AlertType.INFORMATION, "There is no timeline to save ", ButtonType.OK);
 		} else {
-			File file = (File) timelineFiles.get(active);
+			save(Arrays.asList(active), failed -> {
+				if (!failed.isEmpty()) {
+					MainController.showAlert(AlertType.ERROR, "The timeline could not be saved.", ButtonType.OK);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Save timelines in the background. Timelines that have not been saved before are
+	 * saved to a file the user picks, the others only write their changes to their journal.
+	 * The user interface can be used while the timelines are written.
+	 * 
+	 * @param timelines - the timelines to save
+	 * @param onDone - called when saving is done, with the timelines that could not be saved.
+	 *            Timelines the user did not pick a file for are not saved but also not included.
+	 */
+	public void save(List<Timeline> timelines, Consumer<List<Timeline>> onDone) {
+		List<Timeline> newFiles = new ArrayList<Timeline>();
+		
+		SaveTask task = new SaveTask(fileHandler, failed -> {
+			// The whole timeline has to be written again if the first save failed
+			for (Timeline t : failed) {
+				if (newFiles.contains(t)) {
+					journals.remove(t);
+				}
+			}
+			
+			menuView.updateTimelineDropdown(timelineContainer.getTimelines(), timelineContainer.getActiveTimeline());
+			saveCatalog();
+			timelineContainer.enforceMemoryBudget();
+			onDone.accept(failed);
+		});
+		
+		for (Timeline timeline : timelines) {
+			File file = (File) timelineFiles.get(timeline);
 			
 			if (file == null) {
 				File initialDirectory = new File(System.getProperty("user.home") + "/Documents/Timeline Manager/Timelines");
@@ -134,25 +385,40 @@ public class MenuController implements MenuListener {
 					initialDirectory.mkdirs();
 				}
 
+				// Show the timeline the file is picked for
+				if (timeline != timelineContainer.getActiveTimeline()) {
+					timelineContainer.setActiveTimeline(timeline);
+				}
+
 				chooser = new FileChooser();
 				chooser.setInitialDirectory(initialDirectory);
-				chooser.getExtensionFilters().addAll(
-						new ExtensionFilter("XML Files", "*.xml"),
-						new ExtensionFilter("All Files", "*.*"));
-				chooser.setInitialFileName(active.getName().toLowerCase() + ".xml");
+				addExtensionFilters(chooser, false);
+				chooser.setInitialFileName(timeline.getName().toLowerCase() + TimelineCodecs.getDefault().getExtensions().get(0));
 				file = chooser.showSaveDialog(menuView.getScene().getWindow());
-				timelineFiles.put(active, file);
-			} 
+				
+				if (file == null) {
+					continue;
+				}
+				
+				timelineFiles.put(timeline, file);
+			}
 			
-			try {
-				fileHandler.writeXML(active, file);
-				active.setHasUnsavedChanges(false);
-				menuView.updateTimelineDropdown(timelineContainer.getTimelines(), active);
-			} catch (Exception ex) {
-				// TODO: Show error message in Alert window
-				System.err.println("Could not save timeline. Error: " + ex.getMessage());
+			ChangeJournal journal = journals.get(timeline);
+			task.add(timeline, file, journal);
+			
+			// Changes made while the file is written go to the new journal
+			if (journal == null) {
+				journals.put(timeline, new ChangeJournal(file));
+				newFiles.add(timeline);
 			}
 		}
+		
+		if (task.isEmpty()) {
+			onDone.accept(new ArrayList<Timeline>());
+		} else {
+			menuView.showProgress(task);
+			task.start();
+		}
 	}
 
 	@Override
@@ -176,21 +442,201 @@ public class MenuController implements MenuListener {
 		if (!menuView.getScene().getStylesheets().isEmpty()) {
 			menuView.getScene().getStylesheets().clear();
 			timelineView.setTextColor(Color.BLACK);
+			fileHandler.writeProperty("theme", "light");
 		} else {
 			menuView.getScene().getStylesheets().add(AwesomeStyle.DARK.getStylePath());
 			timelineView.setTextColor(Color.WHITE);
+			fileHandler.writeProperty("theme", "dark");
 		}
 		
 		timelineView.setTimeline(timelineContainer.getActiveTimeline(), timelineView.getTimePerspective());
 	}
 	
+	/**
+	 * Add the timelines of the workspace catalog, the timelines that were open when the program
+	 * was last closed. Timelines whose files have not changed since are added without reading
+	 * the files and are only read when they are selected. The others are opened as usual.
+	 * No timeline is active afterwards.
+	 */
+	public void restoreWorkspace() {
+		List<WorkspaceCatalog.Entry> entries;
+		
+		try {
+			entries = catalog.read();
+		} catch (IOException ex) {
+			System.err.println("Could not read workspace catalog. Message: " + ex.getMessage());
+			return;
+		}
+		
+		List<File> changedFiles = new ArrayList<File>();
+		timelineContainer.beginBatch();
+		
+		for (WorkspaceCatalog.Entry entry : entries) {
+			File file = entry.getFile();
+			
+			if (!file.exists() || fileAlreadyOpened(file)) {
+				continue;
+			}
+			
+			if (entry.isCurrent()) {
+				Timeline timeline = new Timeline(entry.getName());
+				timeline.setStartDate(entry.getStartDate());
+				timeline.setEndDate(entry.getEndDate());
+				timeline.detach(fileHandler.eventSourceFor(file, entry.getEventCount()));
+				
+				timelineContainer.addTimeline(timeline);
+				timelineFiles.put(timeline, file);
+				journals.put(timeline, new ChangeJournal(file));
+			} else {
+				changedFiles.add(file);
+			}
+		}
+		
+		timelineContainer.setActiveTimeline(null);
+		timelineContainer.commitBatch();
+		
+		if (!changedFiles.isEmpty()) {
+			open(changedFiles);
+		}
+	}
+	
+	/**
+	 * Read the events of a timeline that is not resident in the background. The timeline is
+	 * made active again once it has been read, if it still is the active timeline.
+	 * 
+	 * @param timeline - the timeline to read
+	 */
+	public void loadTimeline(Timeline timeline) {
+		File file = timelineFiles.get(timeline);
+		
+		if (timeline.isResident() || file == null || loading.contains(timeline)) {
+			return;
+		}
+		
+		loading.add(timeline);
+		
+		OpenTask task = new OpenTask(Arrays.asList(file), fileHandler, (loaded, f) -> {
+			timeline.attach(loaded);
+			
+			if (timelineContainer.getActiveTimeline() == timeline) {
+				timelineContainer.setActiveTimeline(timeline);
+			}
+		}, failed -> {
+			loading.remove(timeline);
+			
+			if (!failed.isEmpty()) {
+				MainController.showAlert(AlertType.ERROR, "The timeline " + timeline.getName() + " could not be read.", ButtonType.OK);
+			}
+		});
+		
+		menuView.showProgress(task);
+		task.start();
+	}
+	
+	/**
+	 * Write the workspace catalog with all timelines that have a file.
+	 */
+	public void saveCatalog() {
+		List<WorkspaceCatalog.Entry> entries = new ArrayList<WorkspaceCatalog.Entry>();
+		
+		for (Timeline timeline : timelineContainer.getTimelines()) {
+			File file = timelineFiles.get(timeline);
+			
+			if (file != null) {
+				entries.add(WorkspaceCatalog.Entry.of(timeline, file));
+			}
+		}
+		
+		try {
+			catalog.write(entries);
+		} catch (IOException ex) {
+			System.err.println("Could not write workspace catalog. Message: " + ex.getMessage());
+		}
+	}
+	
+	/**
+	 * Return where the events of a saved timeline can be read from again, or null if it has no
+	 * file to read them from.
+	 */
+	public EventSource getEventSource(Timeline timeline) {
+		File file = timelineFiles.get(timeline);
+		return file != null && file.exists() ? fileHandler.eventSourceFor(file, timeline.getEventCount()) : null;
+	}
+	
+	/**
+	 * Return the file a timeline was opened from or last saved to, or null if it has no file.
+	 */
+	public File getTimelineFile(Timeline timeline) {
+		return timelineFiles.get(timeline);
+	}
+	
+	/**
+	 * Add a timeline recovered from an autosave. It keeps its unsaved changes and is saved in
+	 * full to its old file, if that still exists, the next time it is saved.
+	 * 
+	 * @param timeline - the recovered timeline
+	 * @param file - the file the timeline had when it was autosaved, or null
+	 */
+	public void addRecoveredTimeline(Timeline timeline, File file) {
+		timelineContainer.addTimeline(timeline);
+		timeline.setHasUnsavedChanges(true);
+		
+		if (file != null && file.exists() && !fileAlreadyOpened(file)) {
+			timelineFiles.put(timeline, file);
+		}
+	}
+	
+	/**
+	 * Record changes to events in the journals of the timelines they belong to, so they are
+	 * written on the next save.
+	 * 
+	 * @param changes - the changes reported by the timeline container
+	 */
+	public void recordChanges(List<ModelChange> changes) {
+		for (ModelChange change : changes) {
+			ChangeJournal journal = journals.get(change.getTimeline());
+			
+			if (journal != null && change.isEventChange()) {
+				journal.record(change);
+			}
+		}
+	}
+	
 	private boolean fileAlreadyOpened(File file) {
 		for (File f : timelineFiles.values()) {
-			if (file.toPath().equals(f.toPath())) {
+			if (file.getAbsoluteFile().toPath().normalize().equals(f.getAbsoluteFile().toPath().normalize())) {
 				return true;
 			}
 		}
 		
 		return false;
 	}
+	
+	/**
+	 * Add a filter for every timeline format to the chooser.
+	 * 
+	 * @param combined - true to start with one filter that shows files of all formats
+	 */
+	private void addExtensionFilters(FileChooser chooser, boolean combined) {
+		List<String> allPatterns = new ArrayList<String>();
+		List<ExtensionFilter> filters = new ArrayList<ExtensionFilter>();
+		
+		for (TimelineCodec codec : TimelineCodecs.getCodecs()) {
+			List<String> patterns = new ArrayList<String>();
+			
+			for (String extension : codec.getExtensions()) {
+				patterns.add("*" + extension);
+			}
+			
+			allPatterns.addAll(patterns);
+			filters.add(new ExtensionFilter(codec.getName() + " Files", patterns));
+		}
+		
+		if (combined) {
+			chooser.getExtensionFilters().add(new ExtensionFilter("Timeline Files", allPatterns));
+		}
+		
+		chooser.getExtensionFilters().addAll(filters);
+		chooser.getExtensionFilters().add(new ExtensionFilter("All Files", "*.*"));
+	}
 }
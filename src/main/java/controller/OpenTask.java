@@ -0,0 +1,107 @@
+package controller;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import io.FileHandler;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import model.Timeline;
+
+/**
+ * Reads several timeline files at the same time on a pool of background threads. Each
+ * timeline is handed to the JavaFX thread as soon as it has been read, in the order the
+ * files finish, not the order they were given in. Large binary files are not read completely,
+ * see FileHandler.openTimeline.
+ *
+ * The pool is shared by all open tasks and has one thread per processor, at most four,
+ * since reading is mostly limited by the disk.
+ *
+ * @version 0.00.00
+ * @name OpenTask.java
+ */
+public class OpenTask extends Task<List<File>> {
+
+	private static final int POOL_SIZE = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	private static final ExecutorService READERS = Executors.newFixedThreadPool(POOL_SIZE, r -> {
+		Thread thread = new Thread(r, "Timeline reader");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final List<File> files;
+	private final FileHandler fileHandler;
+	private final BiConsumer<Timeline, File> onOpened;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param files - the files to read
+	 * @param fileHandler - used to read the files
+	 * @param onOpened - called on the JavaFX thread with each timeline that has been read and its file
+	 * @param onDone - called on the JavaFX thread after the last timeline, with the files that could not be read
+	 */
+	public OpenTask(List<File> files, FileHandler fileHandler, BiConsumer<Timeline, File> onOpened,
+			Consumer<List<File>> onDone) {
+		this.files = files;
+		this.fileHandler = fileHandler;
+		this.onOpened = onOpened;
+
+		setOnSucceeded(e -> onDone.accept(getValue()));
+		setOnFailed(e -> {
+			System.err.println("Could not open timelines. Error: " + getException());
+			onDone.accept(new ArrayList<File>(files));
+		});
+	}
+
+	/**
+	 * Start reading. The task waits for the reader threads on a thread of its own.
+	 */
+	public void start() {
+		Thread thread = new Thread(this, "Open timelines");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	protected List<File> call() throws InterruptedException {
+		CompletionService<Timeline> completed = new ExecutorCompletionService<Timeline>(READERS);
+		Map<Future<Timeline>, File> pending = new HashMap<Future<Timeline>, File>();
+		List<File> failed = new ArrayList<File>();
+
+		for (File file : files) {
+			pending.put(completed.submit(() -> fileHandler.openTimeline(file)), file);
+		}
+
+		for (int i = 0; i < files.size(); i++) {
+			Future<Timeline> future = completed.take();
+			File file = pending.get(future);
+
+			try {
+				Timeline timeline = future.get();
+				timeline.setHasUnsavedChanges(false);
+				Platform.runLater(() -> onOpened.accept(timeline, file));
+			} catch (ExecutionException ex) {
+				System.err.println("Could not open timeline " + file.getPath() + ". Error: " + ex.getCause().getMessage());
+				failed.add(file);
+			}
+
+			updateMessage("Opened " + (i + 1) + " of " + files.size());
+			updateProgress(i + 1, files.size());
+		}
+
+		return failed;
+	}
+}
@@ -0,0 +1,160 @@
+package controller;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import io.ChangeJournal;
+import io.FileHandler;
+import javafx.concurrent.Task;
+import model.Timeline;
+
+/**
+ * Saves timelines on a background thread so the user interface does not freeze while
+ * large timelines are written.
+ *
+ * Everything that is saved is taken from the timelines when they are added to the task,
+ * on the JavaFX thread: the recorded changes for timelines with a journal, and a copy of
+ * the timeline for the others. The timelines may then be changed while the task runs. Once
+ * the task is done a timeline is only marked as saved if it has not changed since it was
+ * added, otherwise the newer changes are still unsaved.
+ *
+ * All saves run one after another on the same thread, so saves of the same file are
+ * written in the order they were started.
+ *
+ * @version 0.00.00
+ * @name SaveTask.java
+ */
+public class SaveTask extends Task<List<Timeline>> {
+
+	private static final ExecutorService IO_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Timeline I/O");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final FileHandler fileHandler;
+	private final List<Item> items = new ArrayList<Item>();
+
+	/**
+	 * A timeline to save, with what is written for it.
+	 */
+	private static class Item {
+		private final Timeline timeline;
+		private final File file;
+		private final long version;
+		private ChangeJournal journal;
+		private ChangeJournal.Flush flush;
+		private Timeline snapshot;
+		private volatile boolean saved;
+
+		private Item(Timeline timeline, File file) {
+			this.timeline = timeline;
+			this.file = file;
+			this.version = timeline.getVersion();
+		}
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param fileHandler - used to write timelines that have no journal
+	 * @param onDone - called on the JavaFX thread when the task is done, with the timelines
+	 *            that could not be saved
+	 */
+	public SaveTask(FileHandler fileHandler, Consumer<List<Timeline>> onDone) {
+		this.fileHandler = fileHandler;
+
+		setOnSucceeded(e -> {
+			markSaved();
+			onDone.accept(getValue());
+		});
+
+		setOnFailed(e -> {
+			System.err.println("Could not save timelines. Error: " + getException());
+			markSaved();
+
+			List<Timeline> failed = new ArrayList<Timeline>();
+
+			for (Item item : items) {
+				if (!item.saved) {
+					failed.add(item.timeline);
+				}
+			}
+
+			onDone.accept(failed);
+		});
+	}
+
+	/**
+	 * Add a timeline to save. Must be called on the JavaFX thread before the task is started.
+	 * 
+	 * @param timeline - the timeline to save
+	 * @param file - the file to save to
+	 * @param journal - the journal of the file, or null to write the whole timeline to the file
+	 */
+	public void add(Timeline timeline, File file, ChangeJournal journal) {
+		Item item = new Item(timeline, file);
+
+		if (journal != null) {
+			item.journal = journal;
+			item.flush = journal.prepareFlush(timeline);
+		} else {
+			item.snapshot = timeline.snapshot();
+		}
+
+		items.add(item);
+	}
+
+	/**
+	 * Return true if no timelines have been added.
+	 */
+	public boolean isEmpty() {
+		return items.isEmpty();
+	}
+
+	/**
+	 * Start saving on the I/O thread.
+	 */
+	public void start() {
+		IO_EXECUTOR.execute(this);
+	}
+
+	@Override
+	protected List<Timeline> call() {
+		List<Timeline> failed = new ArrayList<Timeline>();
+
+		for (int i = 0; i < items.size(); i++) {
+			Item item = items.get(i);
+			updateMessage("Saving " + item.file.getName());
+
+			try {
+				if (item.journal != null) {
+					item.journal.write(item.flush);
+				} else {
+					fileHandler.writeTimeline(item.snapshot, item.file);
+				}
+
+				item.saved = true;
+			} catch (Exception ex) {
+				System.err.println("Could not save timeline to " + item.file.getPath() + ". Error: " + ex.getMessage());
+				failed.add(item.timeline);
+			}
+
+			updateProgress(i + 1, items.size());
+		}
+
+		return failed;
+	}
+
+	private void markSaved() {
+		for (Item item : items) {
+			if (item.saved && item.timeline.getVersion() == item.version) {
+				item.timeline.setHasUnsavedChanges(false);
+			}
+		}
+	}
+}
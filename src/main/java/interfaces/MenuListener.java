@@ -32,6 +32,24 @@ public interface MenuListener {
 	 */
 	public void onOpenButtonClicked();
 
+	/**
+	 * This method is used by menu controller when the user press the open folder
+	 * button to open all TimeLines in a folder
+	 */
+	public void onOpenFolderButtonClicked();
+
+	/**
+	 * This method is used by menu controller when the user press the import
+	 * button to import events from a file into the active TimeLine
+	 */
+	public void onImportButtonClicked();
+
+	/**
+	 * This method is used by menu controller when the user press the export
+	 * button to export the events of the active TimeLine to a file
+	 */
+	public void onExportButtonClicked();
+
 	/**
 	 * This method is used by menu controller when the user press DeleteTimeLine
 	 * button
@@ -2,6 +2,7 @@ package interfaces;
 
 import java.util.List;
 
+import model.ModelChange;
 import model.Timeline;
 
 /**
@@ -13,6 +14,10 @@ import model.Timeline;
  * In order to listen for changes to TimelineContainer, the object implementing this interface must 
  * first be registered as a listener using the registerListener method.
  * 
+ * TimelineContainer calls the method taking a list of ModelChange objects. Its default implementation
+ * forwards to the coarse onModelChanged(timelines, active), so implementing classes that only need to
+ * know that something changed can keep implementing that method alone.
+ * 
  * Implementing classes:
  * 				MainController
  * 
@@ -29,5 +34,17 @@ public interface ModelChangedListener {
 	 * @param active 	- The currently active timeline
 	 */
 	public void onModelChanged(List<Timeline> timelines, Timeline active);
+	
+	/**
+	 * Called on the registered listener whenever TimelineContainer has changed, with a description of
+	 * each change in the order they were made. Override this method to apply changes incrementally.
+	 * 
+	 * @param changes 	- The changes made since the last notification
+	 * @param timelines - The updated list of timelines
+	 * @param active 	- The currently active timeline
+	 */
+	public default void onModelChanged(List<ModelChange> changes, List<Timeline> timelines, Timeline active) {
+		onModelChanged(timelines, active);
+	}
 
 }
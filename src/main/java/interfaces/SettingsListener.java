@@ -0,0 +1,23 @@
+package interfaces;
+
+import java.util.Set;
+
+/**
+ * Interface used to listen for settings that were changed outside of the program, by editing
+ * the configuration file.
+ *
+ * Implementing classes:
+ * 				MainController
+ *
+ * @version 0.00.00
+ * @name SettingsListener.java
+ */
+public interface SettingsListener {
+
+	/**
+	 * Called on a background thread after the configuration file has been read again.
+	 *
+	 * @param keys - the keys whose values changed, were added or were removed
+	 */
+	public void onSettingsChanged(Set<String> keys);
+}
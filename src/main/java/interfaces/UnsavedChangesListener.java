@@ -0,0 +1,25 @@
+package interfaces;
+
+import model.Timeline;
+
+/**
+ * Interface used to listen for when a timeline gets unsaved changes or is saved.
+ * 
+ * Only changes of the flag are reported, setting it to the value it already has is not.
+ * 
+ * Implementing classes:
+ * 				AutosaveService
+ * 
+ * @version 0.00.00
+ * @name UnsavedChangesListener.java
+ */
+public interface UnsavedChangesListener {
+	
+	/**
+	 * Called when the unsaved changes flag of a timeline changes.
+	 * 
+	 * @param timeline - the timeline
+	 * @param unsavedChanges - true if the timeline now has unsaved changes, false if it has been saved
+	 */
+	public void onUnsavedChangesChanged(Timeline timeline, boolean unsavedChanges);
+}
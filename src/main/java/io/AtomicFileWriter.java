@@ -0,0 +1,69 @@
+package io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes files so that a reader either sees the complete old version or the complete
+ * new version, never something in between. The content is written through a buffered
+ * channel to a temporary file in the same directory, which is synced to disk and then
+ * moved over the target file. If anything goes wrong while writing, the temporary file
+ * is removed and the target file is left as it was.
+ *
+ * @version 0.00.00
+ * @name AtomicFileWriter.java
+ */
+public class AtomicFileWriter {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Writes the content of a file to a stream.
+	 */
+	public interface Content {
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	private AtomicFileWriter() {
+	}
+
+	/**
+	 * Replaces the file with the given content.
+	 */
+	public static void write(File file, Content content) throws IOException {
+		Path target = file.toPath().toAbsolutePath();
+		Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+		boolean moved = false;
+
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+				content.writeTo(out);
+				out.flush();
+				channel.force(true);
+			}
+
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			moved = true;
+		} finally {
+			if (!moved) {
+				Files.deleteIfExists(temp);
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import model.Event;
+import model.Timeline;
+
+/**
+ * The binary format described in BinaryTimelineFormat.
+ *
+ * @version 0.00.00
+ * @name BinaryTimelineCodec.java
+ */
+public class BinaryTimelineCodec implements TimelineCodec {
+
+	private static final List<String> EXTENSIONS = Arrays.asList(BinaryTimelineFormat.EXTENSION);
+
+	@Override
+	public String getName() {
+		return "Binary Timeline";
+	}
+
+	@Override
+	public List<String> getExtensions() {
+		return EXTENSIONS;
+	}
+
+	@Override
+	public boolean canRead(byte[] header, int length) {
+		return length >= 4 && ((header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16 | (header[2] & 0xFF) << 8
+				| (header[3] & 0xFF)) == BinaryTimelineFormat.MAGIC;
+	}
+
+	@Override
+	public Timeline read(File file) throws IOException {
+		return new BinaryTimelineReader(file).read();
+	}
+
+	@Override
+	public Timeline read(File file, Consumer<Event> sink) throws IOException {
+		BinaryTimelineReader reader = new BinaryTimelineReader(file);
+		reader.readEvents(sink);
+		return reader.readHeader();
+	}
+
+	@Override
+	public void write(Timeline timeline, File file) throws IOException {
+		new BinaryTimelineWriter().write(timeline, file);
+	}
+
+	@Override
+	public boolean supportsStreaming() {
+		return true;
+	}
+
+	@Override
+	public boolean supportsRandomAccess() {
+		return true;
+	}
+}
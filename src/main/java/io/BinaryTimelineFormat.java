@@ -0,0 +1,179 @@
+package io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javafx.scene.paint.Color;
+import model.Event.EventType;
+
+/**
+ * Constants and encoding helpers shared by BinaryTimelineWriter and BinaryTimelineReader.
+ *
+ * A binary timeline file (extension .tlb) has the following layout, all numbers big-endian:
+ *
+ * <pre>
+ * header   magic "TLMB", version byte
+ *          name, path                      strings
+ *          flags byte                      bit 0: start date present, bit 1: end date present
+ *          start date, end date            zigzag varlong epoch day, only if present
+ *          next id                         zigzag varint
+ *          base second                     zigzag varlong, epoch second (UTC) all event times are relative to
+ *          colors                          varint count, then count * 4 byte RGBA
+ *          event count                     varint
+ * events   flags byte                      bits 0-1: type, 2: start, 3: end, 4: color present
+ *          id                              zigzag varint
+ *          name, description               strings
+ *          color                           varint index into the color table, if present
+ *          start                           zigzag varlong seconds after base second, varint nanos, if present
+ *          end                             zigzag varlong seconds after start (or base), varint nanos, if present
+ * footer   event offsets                   event count * 4 byte absolute file offset
+ * index    indexed count                   4 byte number of events that have a start date
+ *          order                           indexed count * 4 byte position of the event in the file,
+ *                                          sorted by start date and id
+ *          page size                       4 byte number of events of the order per page
+ *          pages                           per page 8 byte first start and 8 byte last end, in epoch
+ *                                          seconds (UTC) rounded outwards
+ *          index offset                    8 byte absolute offset of the index
+ *          footer offset                   8 byte absolute offset of the event offsets
+ *          magic "TLMB"
+ * </pre>
+ *
+ * The index lets a reader find the events in a date range without reading the others, see
+ * PagedEventSource. Files of version 1 have no index and end right after the event offsets.
+ *
+ * Strings are written as a varint holding the length of the UTF-8 bytes plus one, followed
+ * by the bytes. A length of 0 means null. Colors are stored with 8 bits per channel, the
+ * same precision as the hex strings of the XML format.
+ *
+ * @version 0.00.00
+ * @name BinaryTimelineFormat.java
+ */
+public final class BinaryTimelineFormat {
+
+	public static final String EXTENSION = ".tlb";
+	public static final int MAGIC = 0x544C4D42; // "TLMB"
+	public static final byte VERSION = 2;
+	public static final int TRAILER_SIZE = 12;
+	public static final int PAGE_SIZE = 1024;
+
+	static final int HEADER_HAS_START = 1;
+	static final int HEADER_HAS_END = 1 << 1;
+
+	static final int EVENT_TYPE_MASK = 3;
+	static final int EVENT_HAS_START = 1 << 2;
+	static final int EVENT_HAS_END = 1 << 3;
+	static final int EVENT_HAS_COLOR = 1 << 4;
+
+	private static final EventType[] EVENT_TYPES = { null, EventType.DURATION, EventType.NON_DURATION };
+
+	private BinaryTimelineFormat() {
+	}
+
+	/**
+	 * Returns the type stored in the flags byte of an event.
+	 */
+	static EventType eventType(int flags) throws IOException {
+		int code = flags & EVENT_TYPE_MASK;
+
+		if (code >= EVENT_TYPES.length) {
+			throw new IOException("corrupt event type");
+		}
+
+		return EVENT_TYPES[code];
+	}
+
+	/**
+	 * Returns true if the file name has the extension of the binary format.
+	 */
+	public static boolean isBinaryFile(String fileName) {
+		return fileName.toLowerCase().endsWith(EXTENSION);
+	}
+
+	static void writeVarLong(OutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		out.write((int) value);
+	}
+
+	static void writeSignedVarLong(OutputStream out, long value) throws IOException {
+		writeVarLong(out, (value << 1) ^ (value >> 63));
+	}
+
+	static void writeInt(OutputStream out, int value) throws IOException {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	static void writeLong(OutputStream out, long value) throws IOException {
+		writeInt(out, (int) (value >>> 32));
+		writeInt(out, (int) value);
+	}
+
+	static void writeString(OutputStream out, String value) throws IOException {
+		if (value == null) {
+			writeVarLong(out, 0);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(out, bytes.length + 1L);
+			out.write(bytes);
+		}
+	}
+
+	static long readVarLong(ByteBuffer in) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+
+		do {
+			b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return value;
+	}
+
+	static long readSignedVarLong(ByteBuffer in) {
+		long value = readVarLong(in);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads a string. The scratch array is used to avoid allocating a byte array per string
+	 * and is returned, grown if it was too small, so it can be passed to the next call.
+	 */
+	static String readString(ByteBuffer in, byte[][] scratch) {
+		int length = (int) readVarLong(in) - 1;
+
+		if (length < 0) {
+			return null;
+		}
+
+		if (scratch[0].length < length) {
+			scratch[0] = new byte[Math.max(length, scratch[0].length * 2)];
+		}
+
+		in.get(scratch[0], 0, length);
+		return new String(scratch[0], 0, length, StandardCharsets.UTF_8);
+	}
+
+	static int toRgba(Color color) {
+		return channel(color.getRed()) << 24 | channel(color.getGreen()) << 16 | channel(color.getBlue()) << 8
+				| channel(color.getOpacity());
+	}
+
+	static Color fromRgba(int rgba) {
+		return Color.rgb(rgba >>> 24, (rgba >>> 16) & 0xFF, (rgba >>> 8) & 0xFF, (rgba & 0xFF) / 255.0);
+	}
+
+	private static int channel(double value) {
+		return (int) Math.round(value * 255);
+	}
+}
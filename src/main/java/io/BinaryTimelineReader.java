@@ -0,0 +1,336 @@
+package io;
+
+import static io.BinaryTimelineFormat.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javafx.scene.paint.Color;
+import model.Event;
+import model.Timeline;
+
+/**
+ * Reads timelines in the binary format described in BinaryTimelineFormat. Any event can be
+ * read on its own through the offset table in the footer.
+ *
+ * The file is read into memory, except by a reader created with mapped, which maps it so
+ * events are decoded straight from the page cache and only the pages that are used are read.
+ * A mapped file can not be replaced on Windows, so a mapped reader has to be closed before
+ * the file is saved again.
+ *
+ * A reader is meant to be used by one thread at a time.
+ *
+ * @version 0.00.00
+ * @name BinaryTimelineReader.java
+ */
+public class BinaryTimelineReader implements Closeable {
+
+	private final ByteBuffer buffer;
+	private final boolean mapped;
+	private final Timeline header;
+	private final long baseSecond;
+	private final Color[] colors;
+	private final int eventCount;
+	private final int footerOffset;
+	private final int indexOffset;
+	private final int pageSize;
+	private final int pageCount;
+	private final byte[][] scratch = { new byte[256] };
+
+	/**
+	 * Reads the file into memory and reads its header.
+	 */
+	public BinaryTimelineReader(File file) throws IOException {
+		this(file, false);
+	}
+
+	/**
+	 * Returns a reader that maps the file instead of reading it into memory. It must be closed
+	 * when it is no longer used.
+	 */
+	public static BinaryTimelineReader mapped(File file) throws IOException {
+		return new BinaryTimelineReader(file, true);
+	}
+
+	private BinaryTimelineReader(File file, boolean map) throws IOException {
+		mapped = map;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Binary timeline files can not be larger than 2 GB");
+			}
+
+			if (map) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			} else {
+				buffer = ByteBuffer.allocate((int) channel.size());
+
+				while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+					// read until full
+				}
+
+				buffer.flip();
+			}
+		}
+
+		try {
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(buffer.limit() - 4) != MAGIC) {
+				throw new IOException(file.getName() + " is not a binary timeline file");
+			}
+
+			ByteBuffer in = buffer.duplicate();
+			in.position(4);
+
+			int version = in.get();
+
+			if (version > VERSION) {
+				throw new IOException(file.getName() + " was saved with a newer version of the program (format "
+						+ version + ")");
+			}
+
+			header = new Timeline(readString(in, scratch));
+			header.setPath(readString(in, scratch));
+
+			int flags = in.get();
+
+			if ((flags & HEADER_HAS_START) != 0) {
+				header.setStartDate(LocalDate.ofEpochDay(readSignedVarLong(in)));
+			}
+			if ((flags & HEADER_HAS_END) != 0) {
+				header.setEndDate(LocalDate.ofEpochDay(readSignedVarLong(in)));
+			}
+
+			header.setNextId((int) readSignedVarLong(in));
+			baseSecond = readSignedVarLong(in);
+			colors = new Color[(int) readVarLong(in)];
+
+			for (int i = 0; i < colors.length; i++) {
+				colors[i] = fromRgba(in.getInt());
+			}
+
+			eventCount = (int) readVarLong(in);
+			footerOffset = (int) buffer.getLong(buffer.limit() - TRAILER_SIZE);
+
+			if (version >= 2) {
+				indexOffset = (int) buffer.getLong(buffer.limit() - TRAILER_SIZE - 8);
+				int indexed = buffer.getInt(indexOffset);
+				pageSize = buffer.getInt(indexOffset + 4 + 4 * indexed);
+				pageCount = (indexed + pageSize - 1) / pageSize;
+			} else {
+				indexOffset = -1;
+				pageSize = 0;
+				pageCount = 0;
+			}
+		} catch (RuntimeException | IOException ex) {
+			close();
+			throw ex instanceof IOException ? (IOException) ex : new IOException(file.getName() + " is damaged", ex);
+		}
+	}
+
+	/**
+	 * Releases the mapping of a mapped reader right away instead of when it is garbage collected.
+	 * The reader must not be used afterwards, not even by another thread.
+	 */
+	@Override
+	public void close() {
+		if (!mapped) {
+			return;
+		}
+
+		try {
+			// Java 9 and later
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(field.get(null), buffer);
+		} catch (NoSuchMethodException notJava9) {
+			try {
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			} catch (ReflectiveOperationException | RuntimeException ex) {
+				System.err.println("Could not release mapped timeline file. Message: " + ex.getMessage());
+			}
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			System.err.println("Could not release mapped timeline file. Message: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Returns a timeline holding everything in the file except the events. A new timeline is
+	 * returned on every call.
+	 */
+	public Timeline readHeader() {
+		Timeline timeline = new Timeline(header.getName());
+		timeline.setPath(header.getPath());
+		timeline.setStartDate(header.getStartDate());
+		timeline.setEndDate(header.getEndDate());
+		timeline.setNextId(header.getMaxId());
+		return timeline;
+	}
+
+	/**
+	 * Returns the number of events in the file.
+	 */
+	public int size() {
+		return eventCount;
+	}
+
+	/**
+	 * Reads a single event.
+	 *
+	 * @param index - the position of the event in the file, from 0 to size() - 1
+	 */
+	public Event readEvent(int index) throws IOException {
+		if (index < 0 || index >= eventCount) {
+			throw new IndexOutOfBoundsException("Event " + index + " of " + eventCount);
+		}
+
+		ByteBuffer in = buffer.duplicate();
+		in.position(buffer.getInt(footerOffset + 4 * index));
+		return readEvent(in);
+	}
+
+	/**
+	 * Returns true if the file has an index of its events by start date. Files saved by older
+	 * versions of the program do not.
+	 */
+	public boolean hasIndex() {
+		return indexOffset >= 0;
+	}
+
+	/**
+	 * Returns the number of pages of the index.
+	 */
+	public int getPageCount() {
+		return pageCount;
+	}
+
+	/**
+	 * Returns the earliest start of the events of a page, in epoch seconds (UTC). The pages are
+	 * ordered by this value.
+	 */
+	public long getPageStart(int page) {
+		return buffer.getLong(pagesOffset() + 16 * page);
+	}
+
+	/**
+	 * Returns the latest end of the events of a page, in epoch seconds (UTC).
+	 */
+	public long getPageEnd(int page) {
+		return buffer.getLong(pagesOffset() + 16 * page + 8);
+	}
+
+	/**
+	 * Reads the events of a page of the index, ordered by start date.
+	 */
+	public List<Event> readPage(int page) throws IOException {
+		if (page < 0 || page >= pageCount) {
+			throw new IndexOutOfBoundsException("Page " + page + " of " + pageCount);
+		}
+
+		int indexed = buffer.getInt(indexOffset);
+		int first = page * pageSize;
+		int last = Math.min(first + pageSize, indexed);
+		List<Event> events = new ArrayList<Event>(last - first);
+
+		for (int i = first; i < last; i++) {
+			events.add(readEvent(buffer.getInt(indexOffset + 4 + 4 * i)));
+		}
+
+		return events;
+	}
+
+	private int pagesOffset() {
+		return indexOffset + 4 + 4 * buffer.getInt(indexOffset) + 4;
+	}
+
+	/**
+	 * Reads all events in file order and passes them to the sink.
+	 */
+	public void readEvents(Consumer<Event> sink) throws IOException {
+		if (eventCount > 0) {
+			ByteBuffer in = buffer.duplicate();
+			in.position(buffer.getInt(footerOffset));
+
+			for (int i = 0; i < eventCount; i++) {
+				sink.accept(readEvent(in));
+			}
+		}
+	}
+
+	/**
+	 * Reads at most count events in file order, starting with the event at the given position.
+	 */
+	public List<Event> readEvents(int first, int count) throws IOException {
+		if (first < 0 || count < 0) {
+			throw new IndexOutOfBoundsException("Events " + first + " to " + (first + count) + " of " + eventCount);
+		}
+
+		int last = (int) Math.min((long) first + count, eventCount);
+		List<Event> events = new ArrayList<Event>(Math.max(last - first, 0));
+
+		if (first < last) {
+			ByteBuffer in = buffer.duplicate();
+			in.position(buffer.getInt(footerOffset + 4 * first));
+
+			for (int i = first; i < last; i++) {
+				events.add(readEvent(in));
+			}
+		}
+
+		return events;
+	}
+
+	/**
+	 * Reads the whole timeline, including all of its events.
+	 */
+	public Timeline read() throws IOException {
+		ArrayList<Event> events = new ArrayList<Event>(eventCount);
+		readEvents(events::add);
+
+		Timeline timeline = readHeader();
+		timeline.setList(events);
+		return timeline;
+	}
+
+	private Event readEvent(ByteBuffer in) throws IOException {
+		int flags = in.get();
+		Event event = new Event();
+
+		event.setType(eventType(flags));
+		event.setId((int) readSignedVarLong(in));
+		event.setEventName(readString(in, scratch));
+		event.setDescription(readString(in, scratch));
+
+		if ((flags & EVENT_HAS_COLOR) != 0) {
+			event.setColor(colors[(int) readVarLong(in)]);
+		}
+
+		long startSecond = baseSecond;
+
+		if ((flags & EVENT_HAS_START) != 0) {
+			startSecond += readSignedVarLong(in);
+			event.setStartDate(LocalDateTime.ofEpochSecond(startSecond, (int) readVarLong(in), ZoneOffset.UTC));
+		}
+		if ((flags & EVENT_HAS_END) != 0) {
+			long endSecond = startSecond + readSignedVarLong(in);
+			event.setEndDate(LocalDateTime.ofEpochSecond(endSecond, (int) readVarLong(in), ZoneOffset.UTC));
+		}
+
+		return event;
+	}
+}
@@ -0,0 +1,230 @@
+package io;
+
+import static io.BinaryTimelineFormat.*;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.Event;
+import model.Event.EventType;
+import model.EventIntervalTree;
+import model.Timeline;
+
+/**
+ * Writes timelines in the binary format described in BinaryTimelineFormat. Like the XML
+ * writer, the file is replaced atomically through AtomicFileWriter.
+ *
+ * @version 0.00.00
+ * @name BinaryTimelineWriter.java
+ */
+public class BinaryTimelineWriter {
+
+	/**
+	 * Write a timeline to a file.
+	 */
+	public void write(Timeline timeline, File file) throws IOException {
+		AtomicFileWriter.write(file, out -> write(timeline, out));
+	}
+
+	/**
+	 * Write a timeline to a stream. The stream is flushed but not closed.
+	 */
+	public void write(Timeline timeline, OutputStream stream) throws IOException {
+		CountingOutputStream out = new CountingOutputStream(stream);
+		List<Event> events = timeline.getList();
+
+		// Collect the colors first, the table has to be written before the events
+		Map<Integer, Integer> colorIndexes = new HashMap<Integer, Integer>();
+		int[] colors = new int[16];
+
+		for (Event e : events) {
+			if (e.getColor() != null) {
+				int rgba = toRgba(e.getColor());
+
+				if (!colorIndexes.containsKey(rgba)) {
+					if (colorIndexes.size() == colors.length) {
+						colors = Arrays.copyOf(colors, colors.length * 2);
+					}
+
+					colors[colorIndexes.size()] = rgba;
+					colorIndexes.put(rgba, colorIndexes.size());
+				}
+			}
+		}
+
+		long baseSecond = timeline.getStartDate() != null
+				? timeline.getStartDate().atStartOfDay().toEpochSecond(ZoneOffset.UTC) : 0;
+
+		writeInt(out, MAGIC);
+		out.write(VERSION);
+		writeString(out, timeline.getName());
+		writeString(out, timeline.getPath());
+		out.write((timeline.getStartDate() != null ? HEADER_HAS_START : 0)
+				| (timeline.getEndDate() != null ? HEADER_HAS_END : 0));
+
+		if (timeline.getStartDate() != null) {
+			writeSignedVarLong(out, timeline.getStartDate().toEpochDay());
+		}
+		if (timeline.getEndDate() != null) {
+			writeSignedVarLong(out, timeline.getEndDate().toEpochDay());
+		}
+
+		writeSignedVarLong(out, timeline.getMaxId());
+		writeSignedVarLong(out, baseSecond);
+		writeVarLong(out, colorIndexes.size());
+
+		for (int i = 0; i < colorIndexes.size(); i++) {
+			writeInt(out, colors[i]);
+		}
+
+		writeVarLong(out, events.size());
+
+		int[] offsets = new int[events.size()];
+
+		for (int i = 0; i < events.size(); i++) {
+			offsets[i] = out.position();
+			writeEvent(out, events.get(i), baseSecond, colorIndexes);
+		}
+
+		long footerOffset = out.position();
+
+		for (int offset : offsets) {
+			writeInt(out, offset);
+		}
+
+		long indexOffset = out.position();
+		writeIndex(out, events);
+
+		writeLong(out, indexOffset);
+		writeLong(out, footerOffset);
+		writeInt(out, MAGIC);
+		out.flush();
+	}
+
+	private void writeEvent(CountingOutputStream out, Event event, long baseSecond,
+			Map<Integer, Integer> colorIndexes) throws IOException {
+		LocalDateTime start = event.getStartDate();
+		LocalDateTime end = event.getEndDate();
+		int flags = typeCode(event.getType());
+
+		if (start != null) {
+			flags |= EVENT_HAS_START;
+		}
+		if (end != null) {
+			flags |= EVENT_HAS_END;
+		}
+		if (event.getColor() != null) {
+			flags |= EVENT_HAS_COLOR;
+		}
+
+		out.write(flags);
+		writeSignedVarLong(out, event.getId());
+		writeString(out, event.getEventName());
+		writeString(out, event.getDescription());
+
+		if (event.getColor() != null) {
+			writeVarLong(out, colorIndexes.get(toRgba(event.getColor())));
+		}
+
+		long startSecond = baseSecond;
+
+		if (start != null) {
+			startSecond = start.toEpochSecond(ZoneOffset.UTC);
+			writeSignedVarLong(out, startSecond - baseSecond);
+			writeVarLong(out, start.getNano());
+		}
+		if (end != null) {
+			writeSignedVarLong(out, end.toEpochSecond(ZoneOffset.UTC) - startSecond);
+			writeVarLong(out, end.getNano());
+		}
+	}
+
+	/**
+	 * Writes the events that have a start date ordered by start date, in pages that each
+	 * record the range of time their events cover.
+	 */
+	private void writeIndex(CountingOutputStream out, List<Event> events) throws IOException {
+		List<Integer> order = new ArrayList<Integer>(events.size());
+
+		for (int i = 0; i < events.size(); i++) {
+			if (events.get(i).getStartDate() != null) {
+				order.add(i);
+			}
+		}
+
+		order.sort(Comparator.comparing((Integer i) -> events.get(i).getStartDate())
+				.thenComparingInt(i -> events.get(i).getId()));
+
+		writeInt(out, order.size());
+
+		for (int i : order) {
+			writeInt(out, i);
+		}
+
+		writeInt(out, PAGE_SIZE);
+
+		for (int first = 0; first < order.size(); first += PAGE_SIZE) {
+			int last = Math.min(first + PAGE_SIZE, order.size());
+			long maxEnd = Long.MIN_VALUE;
+
+			for (int i = first; i < last; i++) {
+				LocalDateTime end = EventIntervalTree.endOf(events.get(order.get(i)));
+				maxEnd = Math.max(maxEnd, end.toEpochSecond(ZoneOffset.UTC) + (end.getNano() > 0 ? 1 : 0));
+			}
+
+			writeLong(out, events.get(order.get(first)).getStartDate().toEpochSecond(ZoneOffset.UTC));
+			writeLong(out, maxEnd);
+		}
+	}
+
+	static int typeCode(EventType type) {
+		if (type == EventType.DURATION) {
+			return 1;
+		} else if (type == EventType.NON_DURATION) {
+			return 2;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Keeps track of the number of bytes written so the offsets of the events are known.
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		private int position() throws IOException {
+			if (count > Integer.MAX_VALUE) {
+				throw new IOException("Binary timeline files can not be larger than 2 GB");
+			}
+
+			return (int) count;
+		}
+	}
+}
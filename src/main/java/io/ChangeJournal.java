@@ -0,0 +1,485 @@
+package io;
+
+import static io.BinaryTimelineFormat.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+import model.Event;
+import model.ModelChange;
+import model.Timeline;
+
+/**
+ * An append-only log of the changes made to a timeline since its file was last written in
+ * full. The journal is kept next to the timeline file with the extension .journal added.
+ *
+ * Changes are recorded in memory as they happen and appended to the journal when the
+ * timeline is saved, so saving costs the size of the changes and not the size of the
+ * timeline. When the journal grows large compared to the timeline file, a copy of the
+ * timeline is written over the timeline file on a background thread and the part of the
+ * journal it contains is dropped.
+ *
+ * Every record is either a header (name, dates, path and next id of the timeline), the
+ * complete new state of an event, or the id of a deleted event. Applying a record twice has
+ * the same result as applying it once, so a journal may be replayed on top of a timeline file
+ * that already contains some of its records. This is what makes a crash between writing the
+ * timeline file and trimming the journal harmless.
+ *
+ * Records are written as a type byte, the varint length of the payload, the payload and a
+ * CRC32 of type and payload. Every flush ends with a header record, and the records before
+ * it are only applied once it has been read, so a save is either replayed completely or not
+ * at all. Reading stops at the first record that is incomplete or has the wrong checksum,
+ * which is what is left after a crash in the middle of an append.
+ *
+ * @version 0.00.00
+ * @name ChangeJournal.java
+ */
+public class ChangeJournal {
+
+	public static final String EXTENSION = ".journal";
+
+	private static final int HEADER = 1;
+	private static final int UPSERT = 2;
+	private static final int DELETE = 3;
+
+	// The journal is folded into the timeline file when it gets larger than this part of the
+	// timeline file, but never before it reaches MIN_COMPACTION_SIZE
+	private static final int COMPACTION_RATIO = 4;
+	private static final long MIN_COMPACTION_SIZE = 256 * 1024;
+
+	private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Journal compaction");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final File baseFile;
+	private final File journalFile;
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+	private long committedSize = -1;
+	private boolean compacting;
+	private boolean closed;
+
+	/**
+	 * Changes taken from the journal by prepareFlush, waiting to be written.
+	 */
+	public static class Flush {
+		private final byte[] records;
+		private Timeline snapshot;
+
+		private Flush(byte[] records) {
+			this.records = records;
+		}
+	}
+
+	/**
+	 * Creates a journal for the timeline file. Nothing is written until flush is called.
+	 */
+	public ChangeJournal(File baseFile) {
+		this.baseFile = baseFile;
+		this.journalFile = journalFileFor(baseFile);
+	}
+
+	/**
+	 * Returns the journal file that belongs to a timeline file.
+	 */
+	public static File journalFileFor(File baseFile) {
+		return new File(baseFile.getPath() + EXTENSION);
+	}
+
+	/**
+	 * Returns the file the journal is written to.
+	 */
+	public File getFile() {
+		return journalFile;
+	}
+
+	/**
+	 * Records a change to the timeline. Changes that do not affect events are ignored.
+	 */
+	public synchronized void record(ModelChange change) {
+		switch (change.getType()) {
+		case EVENT_ADDED:
+		case EVENT_UPDATED:
+			writeRecord(UPSERT, change.getNewEvent());
+			break;
+		case EVENT_REMOVED:
+			record.reset();
+			writeVarLongUnchecked(record, change.getEventId());
+			appendRecord(DELETE);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Returns true if there are recorded changes that have not been flushed.
+	 */
+	public synchronized boolean hasPendingChanges() {
+		return pending.size() > 0;
+	}
+
+	/**
+	 * Appends the recorded changes and the current header of the timeline to the journal
+	 * and syncs it to disk. If the journal has grown large, compaction is started on a
+	 * background thread. Must be called on the thread that changes the timeline.
+	 */
+	public void flush(Timeline timeline) throws IOException {
+		write(prepareFlush(timeline));
+	}
+
+	/**
+	 * Takes the recorded changes and the current header of the timeline so they can be
+	 * written by another thread with write. Must be called on the thread that changes the
+	 * timeline, changes recorded afterwards belong to the next flush.
+	 */
+	public synchronized Flush prepareFlush(Timeline timeline) {
+		writeRecord(HEADER, timeline);
+
+		Flush flush = new Flush(pending.toByteArray());
+		pending.reset();
+
+		// The copy for compaction has to be made here since the timeline may only be read on this thread
+		long expectedSize = journalFile.length() + flush.records.length;
+
+		if (!compacting && expectedSize >= Math.max(MIN_COMPACTION_SIZE, baseFile.length() / COMPACTION_RATIO)) {
+			compacting = true;
+			flush.snapshot = timeline.snapshot();
+		}
+
+		return flush;
+	}
+
+	/**
+	 * Appends a flush to the journal and syncs it to disk. If the write fails the changes are
+	 * put back, so they are written by the next flush.
+	 */
+	public synchronized void write(Flush flush) throws IOException {
+		long journalSize;
+
+		try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE)) {
+			// Drop whatever a failed write may have left after the last complete flush
+			if (committedSize < 0 || committedSize > channel.size()) {
+				committedSize = channel.size();
+			}
+
+			channel.truncate(committedSize);
+			channel.position(committedSize);
+
+			ByteBuffer bytes = ByteBuffer.wrap(flush.records);
+
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+
+			channel.force(false);
+			journalSize = channel.size();
+			committedSize = journalSize;
+		} catch (IOException ex) {
+			byte[] later = pending.toByteArray();
+			pending.reset();
+			pending.write(flush.records, 0, flush.records.length);
+			pending.write(later, 0, later.length);
+
+			if (flush.snapshot != null) {
+				compacting = false;
+			}
+
+			throw ex;
+		}
+
+		if (flush.snapshot != null) {
+			Timeline snapshot = flush.snapshot;
+
+			COMPACTOR.execute(() -> {
+				try {
+					compact(snapshot, journalSize);
+				} catch (IOException ex) {
+					System.err.println("Could not compact journal " + journalFile.getName() + ". Message: " + ex.getMessage());
+				} finally {
+					synchronized (this) {
+						compacting = false;
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Writes the timeline over the timeline file and removes the first journalSize bytes from
+	 * the journal. The timeline must contain all changes in that part of the journal.
+	 */
+	void compact(Timeline snapshot, long journalSize) throws IOException {
+		TimelineCodecs.forWriting(baseFile).write(snapshot, baseFile);
+
+		synchronized (this) {
+			if (closed || !journalFile.exists()) {
+				return;
+			}
+
+			byte[] bytes = Files.readAllBytes(journalFile.toPath());
+
+			if (bytes.length <= journalSize) {
+				Files.delete(journalFile.toPath());
+				committedSize = 0;
+			} else {
+				AtomicFileWriter.write(journalFile,
+						out -> out.write(bytes, (int) journalSize, bytes.length - (int) journalSize));
+				committedSize = bytes.length - journalSize;
+			}
+		}
+	}
+
+	/**
+	 * Forgets the recorded changes and deletes the journal file, for when the timeline file
+	 * has been written in full or deleted. The journal can not be used afterwards.
+	 */
+	public synchronized void delete() throws IOException {
+		closed = true;
+		pending.reset();
+		Files.deleteIfExists(journalFile.toPath());
+	}
+
+	/**
+	 * Applies the journal of a timeline file, if there is one, to the timeline read from that
+	 * file. An incomplete record at the end of the journal is cut off.
+	 */
+	public static void replay(Timeline timeline, File baseFile) throws IOException {
+		File journalFile = journalFileFor(baseFile);
+
+		if (!journalFile.exists()) {
+			return;
+		}
+
+		ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(journalFile.toPath()));
+		Map<Integer, Event> events = new LinkedHashMap<Integer, Event>();
+		List<Event> upserts = new ArrayList<Event>();
+		List<Integer> deletes = new ArrayList<Integer>();
+		int nextId = timeline.getMaxId();
+		byte[][] scratch = { new byte[256] };
+		CRC32 crc = new CRC32();
+		int valid = 0;
+
+		for (Event e : timeline.getList()) {
+			events.put(e.getId(), e);
+		}
+
+		while (in.hasRemaining()) {
+			ByteBuffer payload;
+			int type;
+
+			try {
+				type = in.get();
+				int length = (int) readVarLong(in);
+				int start = in.position();
+
+				in.position(start + length);
+				int checksum = in.getInt();
+
+				crc.reset();
+				crc.update(type);
+				crc.update(in.array(), start, length);
+
+				if ((int) crc.getValue() != checksum) {
+					break;
+				}
+
+				payload = ByteBuffer.wrap(in.array(), start, length);
+			} catch (RuntimeException ex) {
+				break;
+			}
+
+			// Changes are kept in the same order as in the journal until the header that ends
+			// their flush has been read
+			if (type == UPSERT) {
+				upserts.add(readEvent(payload, scratch));
+				deletes.add(null);
+			} else if (type == DELETE) {
+				upserts.add(null);
+				deletes.add((int) readVarLong(payload));
+			} else if (type == HEADER) {
+				timeline.setName(readString(payload, scratch));
+				timeline.setPath(readString(payload, scratch));
+				int flags = payload.get();
+				timeline.setStartDate((flags & HEADER_HAS_START) != 0 ? LocalDate.ofEpochDay(readSignedVarLong(payload)) : null);
+				timeline.setEndDate((flags & HEADER_HAS_END) != 0 ? LocalDate.ofEpochDay(readSignedVarLong(payload)) : null);
+				nextId = Math.max(nextId, (int) readSignedVarLong(payload));
+
+				for (int i = 0; i < upserts.size(); i++) {
+					if (upserts.get(i) != null) {
+						apply(events, upserts.get(i));
+					} else {
+						events.remove(deletes.get(i));
+					}
+				}
+
+				upserts.clear();
+				deletes.clear();
+				valid = in.position();
+			}
+		}
+
+		if (valid < in.limit()) {
+			System.err.println("Ignoring incomplete save at the end of " + journalFile.getName());
+
+			try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+				channel.truncate(valid);
+			}
+		}
+
+		timeline.setList(new ArrayList<Event>(events.values()));
+		timeline.setNextId(Math.max(nextId, timeline.getMaxId()));
+	}
+
+	private static void apply(Map<Integer, Event> events, Event event) {
+		Event existing = events.get(event.getId());
+
+		if (existing != null) {
+			existing.setEventName(event.getEventName());
+			existing.setDescription(event.getDescription());
+			existing.setType(event.getType());
+			existing.setColor(event.getColor());
+			existing.setStartDate(event.getStartDate());
+			existing.setEndDate(event.getEndDate());
+		} else {
+			events.put(event.getId(), event);
+		}
+	}
+
+	private void writeRecord(int type, Object value) {
+		record.reset();
+
+		if (type == HEADER) {
+			Timeline timeline = (Timeline) value;
+			writeStringUnchecked(record, timeline.getName());
+			writeStringUnchecked(record, timeline.getPath());
+			record.write((timeline.getStartDate() != null ? HEADER_HAS_START : 0)
+					| (timeline.getEndDate() != null ? HEADER_HAS_END : 0));
+
+			if (timeline.getStartDate() != null) {
+				writeSignedVarLongUnchecked(record, timeline.getStartDate().toEpochDay());
+			}
+			if (timeline.getEndDate() != null) {
+				writeSignedVarLongUnchecked(record, timeline.getEndDate().toEpochDay());
+			}
+
+			writeSignedVarLongUnchecked(record, timeline.getMaxId());
+		} else {
+			writeEvent(record, (Event) value);
+		}
+
+		appendRecord(type);
+	}
+
+	private void appendRecord(int type) {
+		CRC32 crc = new CRC32();
+		crc.update(type);
+		crc.update(record.toByteArray(), 0, record.size());
+
+		pending.write(type);
+		writeVarLongUnchecked(pending, record.size());
+		pending.write(record.toByteArray(), 0, record.size());
+		writeIntUnchecked(pending, (int) crc.getValue());
+	}
+
+	private static void writeEvent(ByteArrayOutputStream out, Event event) {
+		int flags = BinaryTimelineWriter.typeCode(event.getType());
+
+		if (event.getStartDate() != null) {
+			flags |= EVENT_HAS_START;
+		}
+		if (event.getEndDate() != null) {
+			flags |= EVENT_HAS_END;
+		}
+		if (event.getColor() != null) {
+			flags |= EVENT_HAS_COLOR;
+		}
+
+		out.write(flags);
+		writeSignedVarLongUnchecked(out, event.getId());
+		writeStringUnchecked(out, event.getEventName());
+		writeStringUnchecked(out, event.getDescription());
+
+		if (event.getColor() != null) {
+			writeIntUnchecked(out, toRgba(event.getColor()));
+		}
+		if (event.getStartDate() != null) {
+			writeSignedVarLongUnchecked(out, event.getStartDate().toEpochSecond(ZoneOffset.UTC));
+			writeVarLongUnchecked(out, event.getStartDate().getNano());
+		}
+		if (event.getEndDate() != null) {
+			writeSignedVarLongUnchecked(out, event.getEndDate().toEpochSecond(ZoneOffset.UTC));
+			writeVarLongUnchecked(out, event.getEndDate().getNano());
+		}
+	}
+
+	private static Event readEvent(ByteBuffer in, byte[][] scratch) throws IOException {
+		int flags = in.get();
+		Event event = new Event();
+
+		event.setType(eventType(flags));
+		event.setId((int) readSignedVarLong(in));
+		event.setEventName(readString(in, scratch));
+		event.setDescription(readString(in, scratch));
+
+		if ((flags & EVENT_HAS_COLOR) != 0) {
+			event.setColor(fromRgba(in.getInt()));
+		}
+		if ((flags & EVENT_HAS_START) != 0) {
+			event.setStartDate(LocalDateTime.ofEpochSecond(readSignedVarLong(in), (int) readVarLong(in), ZoneOffset.UTC));
+		}
+		if ((flags & EVENT_HAS_END) != 0) {
+			event.setEndDate(LocalDateTime.ofEpochSecond(readSignedVarLong(in), (int) readVarLong(in), ZoneOffset.UTC));
+		}
+
+		return event;
+	}
+
+	// ByteArrayOutputStream never throws, these save a try/catch around every write
+
+	private static void writeVarLongUnchecked(ByteArrayOutputStream out, long value) {
+		try {
+			writeVarLong(out, value);
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static void writeSignedVarLongUnchecked(ByteArrayOutputStream out, long value) {
+		writeVarLongUnchecked(out, (value << 1) ^ (value >> 63));
+	}
+
+	private static void writeIntUnchecked(ByteArrayOutputStream out, int value) {
+		try {
+			writeInt(out, value);
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static void writeStringUnchecked(ByteArrayOutputStream out, String value) {
+		try {
+			writeString(out, value);
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package io;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Tells the CSV importer which column holds which value of an event, how dates are written
+ * and how the columns are separated.
+ *
+ * Columns are numbered from 0. Only the title and the start have to be mapped. Without a type
+ * column, rows with an end are duration events and rows without one non-duration events.
+ *
+ * @version 0.00.00
+ * @name ColumnMapping.java
+ */
+public class ColumnMapping {
+
+	public enum Field {
+		TITLE, DESCRIPTION, START, END, TYPE, COLOR
+	}
+
+	// Header names recognized by fromHeader, per field in the order of Field
+	private static final String[][] HEADER_NAMES = {
+			{ "title", "name", "summary", "subject", "event" },
+			{ "description", "desc", "notes", "details" },
+			{ "start", "start date", "startdate", "begin", "from", "date" },
+			{ "end", "end date", "enddate", "finish", "to" },
+			{ "type", "event type" },
+			{ "color", "colour" } };
+
+	private final int[] columns = new int[Field.values().length];
+	private DateTimeFormatter dateFormat;
+	private char delimiter = ',';
+	private boolean hasHeader = true;
+
+	/**
+	 * Creates a mapping without any mapped columns.
+	 */
+	public ColumnMapping() {
+		Arrays.fill(columns, -1);
+	}
+
+	/**
+	 * Creates a mapping from a header row, matching the column names against common names of
+	 * each field regardless of case. Returns null if no column holds the title or the start.
+	 */
+	public static ColumnMapping fromHeader(String[] header) {
+		ColumnMapping mapping = new ColumnMapping();
+
+		for (int i = 0; i < header.length; i++) {
+			String name = header[i].trim().toLowerCase();
+
+			for (Field field : Field.values()) {
+				if (mapping.getColumn(field) < 0 && Arrays.asList(HEADER_NAMES[field.ordinal()]).contains(name)) {
+					mapping.map(field, i);
+					break;
+				}
+			}
+		}
+
+		return mapping.isComplete() ? mapping : null;
+	}
+
+	/**
+	 * Creates a mapping from a list of field names in column order separated by commas, for
+	 * example "title,,start,end" for a file whose second column should be skipped.
+	 *
+	 * @throws IllegalArgumentException if a name is not a field, or the title or start is missing
+	 */
+	public static ColumnMapping parse(String fields) {
+		ColumnMapping mapping = new ColumnMapping();
+		String[] names = fields.split(",", -1);
+
+		for (int i = 0; i < names.length; i++) {
+			if (!names[i].trim().isEmpty()) {
+				mapping.map(Field.valueOf(names[i].trim().toUpperCase()), i);
+			}
+		}
+
+		if (!mapping.isComplete()) {
+			throw new IllegalArgumentException("The columns must include title and start: " + fields);
+		}
+
+		return mapping;
+	}
+
+	/**
+	 * Maps a field to a column.
+	 *
+	 * @return this mapping
+	 */
+	public ColumnMapping map(Field field, int column) {
+		columns[field.ordinal()] = column;
+		return this;
+	}
+
+	/**
+	 * Returns the column of a field, or -1 if it is not mapped.
+	 */
+	public int getColumn(Field field) {
+		return columns[field.ordinal()];
+	}
+
+	/**
+	 * Returns true if the title and the start are mapped.
+	 */
+	public boolean isComplete() {
+		return getColumn(Field.TITLE) >= 0 && getColumn(Field.START) >= 0;
+	}
+
+	/**
+	 * Sets the pattern of the dates, see DateTimeFormatter. A pattern without a time reads
+	 * dates at the start of the day. By default ISO dates are read, with or without a time
+	 * and with a 'T' or a space between them.
+	 */
+	public ColumnMapping setDateFormat(String pattern) {
+		dateFormat = pattern != null ? DateTimeFormatter.ofPattern(pattern) : null;
+		return this;
+	}
+
+	public char getDelimiter() {
+		return delimiter;
+	}
+
+	public ColumnMapping setDelimiter(char delimiter) {
+		this.delimiter = delimiter;
+		return this;
+	}
+
+	/**
+	 * Returns true if the first row of the file is a header to be skipped.
+	 */
+	public boolean hasHeader() {
+		return hasHeader;
+	}
+
+	public ColumnMapping setHasHeader(boolean hasHeader) {
+		this.hasHeader = hasHeader;
+		return this;
+	}
+
+	/**
+	 * Reads a date and time written as set by setDateFormat.
+	 *
+	 * @throws DateTimeParseException if the text is not a date
+	 */
+	LocalDateTime parseDate(String text) {
+		text = text.trim();
+
+		if (dateFormat != null) {
+			try {
+				return LocalDateTime.parse(text, dateFormat);
+			} catch (DateTimeParseException ex) {
+				return LocalDate.parse(text, dateFormat).atStartOfDay();
+			}
+		}
+
+		if (text.length() > 10) {
+			return LocalDateTime.parse(text.replace(' ', 'T'));
+		}
+
+		return LocalDate.parse(text).atStartOfDay();
+	}
+}
@@ -0,0 +1,98 @@
+package io;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import model.Event;
+import model.Event.EventType;
+import model.Timeline;
+
+/**
+ * Exports events to CSV as described in RFC 4180, with a header naming the columns. The files
+ * can be imported again by CsvEventImporter.
+ *
+ * @version 0.00.00
+ * @name CsvEventExporter.java
+ */
+public class CsvEventExporter extends EventExporter {
+
+	public static final String EXTENSION = ".csv";
+
+	@Override
+	public String getName() {
+		return "CSV";
+	}
+
+	@Override
+	public String getExtension() {
+		return EXTENSION;
+	}
+
+	@Override
+	protected void writeHeader(Timeline timeline, Writer out) throws IOException {
+		out.write("id,title,description,start,end,type,color\r\n");
+	}
+
+	@Override
+	protected boolean writeEvent(Event event, Writer out) throws IOException {
+		out.write(Integer.toString(event.getId()));
+		out.write(',');
+		writeField(out, event.getEventName());
+		out.write(',');
+		writeField(out, event.getDescription());
+		out.write(',');
+
+		if (event.getStartDate() != null) {
+			out.write(event.getStartDate().toString());
+		}
+
+		out.write(',');
+
+		if (event.getType() == EventType.DURATION && event.getEndDate() != null) {
+			out.write(event.getEndDate().toString());
+		}
+
+		out.write(',');
+
+		if (event.getType() != null) {
+			out.write(event.getType() == EventType.DURATION ? "duration" : "non-duration");
+		}
+
+		out.write(',');
+
+		if (event.getColor() != null) {
+			out.write(toHex(event.getColor()));
+		}
+
+		out.write("\r\n");
+		return true;
+	}
+
+	@Override
+	protected void writeFooter(Timeline timeline, Writer out) throws IOException {
+	}
+
+	/**
+	 * Writes a field, quoted if it holds a delimiter, quote or line break.
+	 */
+	private void writeField(Writer out, String value) throws IOException {
+		if (value == null) {
+			return;
+		}
+
+		boolean quote = false;
+
+		for (int i = 0; i < value.length() && !quote; i++) {
+			char c = value.charAt(i);
+			quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+
+		if (quote) {
+			out.write('"');
+			out.write(value.replace("\"", "\"\""));
+			out.write('"');
+		} else {
+			out.write(value);
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import io.ColumnMapping.Field;
+import javafx.scene.paint.Color;
+import model.Event;
+import model.Event.EventType;
+
+/**
+ * Imports events from CSV files as described in RFC 4180: fields may be quoted, and quoted
+ * fields may hold delimiters, line breaks and quotes written twice. Which column holds which
+ * value is given by a ColumnMapping.
+ *
+ * @version 0.00.00
+ * @name CsvEventImporter.java
+ */
+public class CsvEventImporter extends EventImporter {
+
+	public static final String EXTENSION = ".csv";
+
+	private final ColumnMapping mapping;
+	private final StringBuilder field = new StringBuilder();
+	private int line;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param mapping - the columns of the file, or null to read them from its header
+	 */
+	public CsvEventImporter(ColumnMapping mapping) {
+		this.mapping = mapping;
+	}
+
+	@Override
+	public void read(Reader reader, Consumer<Event> events, BiConsumer<Integer, String> errors) throws IOException {
+		BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+		List<String> row = new ArrayList<String>();
+		ColumnMapping columns = mapping;
+		char delimiter = mapping != null ? mapping.getDelimiter() : ',';
+		line = 1;
+
+		// Files saved as UTF-8 by Excel start with a byte order mark, which is not part of the
+		// first column
+		in.mark(1);
+
+		if (in.read() != '\uFEFF') {
+			in.reset();
+		}
+
+		if (columns == null || columns.hasHeader()) {
+			if (!readRow(in, delimiter, row)) {
+				return;
+			}
+
+			if (columns == null) {
+				columns = ColumnMapping.fromHeader(row.toArray(new String[row.size()]));
+
+				if (columns == null) {
+					throw new IOException("The first row must name the columns, at least title and start");
+				}
+			}
+		}
+
+		int rowLine = line;
+
+		while (readRow(in, delimiter, row)) {
+			if (row.size() > 1 || !row.get(0).trim().isEmpty()) {
+				try {
+					events.accept(toEvent(row, columns));
+				} catch (DateTimeParseException ex) {
+					errors.accept(rowLine, "Not a date: " + ex.getParsedString());
+				} catch (IllegalArgumentException ex) {
+					errors.accept(rowLine, ex.getMessage());
+				}
+			}
+
+			rowLine = line;
+		}
+	}
+
+	private Event toEvent(List<String> row, ColumnMapping columns) {
+		String title = value(row, columns, Field.TITLE);
+		String start = value(row, columns, Field.START);
+		String end = value(row, columns, Field.END);
+		String type = value(row, columns, Field.TYPE);
+		String color = value(row, columns, Field.COLOR);
+
+		if (start == null) {
+			throw new IllegalArgumentException("The start is missing");
+		}
+
+		LocalDateTime endDate = end != null ? columns.parseDate(end) : null;
+		return createEvent(title != null ? title : "", value(row, columns, Field.DESCRIPTION), columns.parseDate(start),
+				endDate, parseType(type), color != null ? Color.web(color.trim()) : null);
+	}
+
+	/**
+	 * Returns the value of a field, or null if it is not mapped or empty.
+	 */
+	private String value(List<String> row, ColumnMapping columns, Field field) {
+		int column = columns.getColumn(field);
+
+		if (column < 0 || column >= row.size() || row.get(column).isEmpty()) {
+			return null;
+		}
+
+		return row.get(column);
+	}
+
+	private EventType parseType(String type) {
+		if (type == null) {
+			return null;
+		}
+
+		String name = type.trim().toLowerCase().replace("-", "").replace("_", "").replace(" ", "");
+
+		if (name.equals("duration")) {
+			return EventType.DURATION;
+		} else if (name.equals("nonduration") || name.equals("point")) {
+			return EventType.NON_DURATION;
+		}
+
+		throw new IllegalArgumentException("Unknown event type: " + type);
+	}
+
+	/**
+	 * Reads the fields of the next row into the list.
+	 *
+	 * @return false if the end of the file has been reached
+	 */
+	private boolean readRow(BufferedReader in, char delimiter, List<String> row) throws IOException {
+		row.clear();
+		field.setLength(0);
+		boolean quoted = false;
+		int c = in.read();
+
+		if (c < 0) {
+			return false;
+		}
+
+		while (true) {
+			if (quoted) {
+				if (c < 0) {
+					throw new IOException("A quoted field started before line " + line + " is not closed");
+				} else if (c == '"') {
+					in.mark(1);
+
+					if (in.read() == '"') {
+						field.append('"');
+					} else {
+						in.reset();
+						quoted = false;
+					}
+				} else {
+					if (c == '\n') {
+						line++;
+					}
+
+					field.append((char) c);
+				}
+			} else if (c == '"' && field.length() == 0) {
+				quoted = true;
+			} else if (c == delimiter) {
+				row.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\r' || c == '\n' || c < 0) {
+				if (c == '\r') {
+					in.mark(1);
+
+					if (in.read() != '\n') {
+						in.reset();
+					}
+				}
+
+				if (c >= 0) {
+					line++;
+				}
+
+				row.add(field.toString());
+				return true;
+			} else {
+				field.append((char) c);
+			}
+
+			c = in.read();
+		}
+	}
+}
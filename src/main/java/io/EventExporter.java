@@ -0,0 +1,146 @@
+package io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import javafx.scene.paint.Color;
+import model.Event;
+import model.Timeline;
+
+/**
+ * Writes the events of a timeline to files for other programs. Each event is written straight
+ * to a buffered writer as it is reached, nothing else is built in memory, so exporting costs
+ * little more than the writing itself.
+ *
+ * Either all events are exported or those that overlap a range of time. A timeline that is
+ * windowed only reads the events of the range from its file, see Timeline.eventsOverlapping,
+ * and all of its events are read a page at a time, see Timeline.getEvents.
+ *
+ * @version 0.00.00
+ * @name EventExporter.java
+ */
+public abstract class EventExporter {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Returns an exporter for a file based on its extension, or null if the extension is not
+	 * supported.
+	 */
+	public static EventExporter forFile(File file) {
+		String name = file.getName().toLowerCase();
+
+		if (name.endsWith(CsvEventExporter.EXTENSION)) {
+			return new CsvEventExporter();
+		} else if (name.endsWith(JsonLinesEventExporter.EXTENSION)) {
+			return new JsonLinesEventExporter();
+		} else if (name.endsWith(IcsEventExporter.EXTENSION)) {
+			return new IcsEventExporter();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the exporters of all supported formats.
+	 */
+	public static List<EventExporter> getExporters() {
+		return Arrays.asList(new CsvEventExporter(), new JsonLinesEventExporter(), new IcsEventExporter());
+	}
+
+	/**
+	 * Returns the name of the format, for file choosers.
+	 */
+	public abstract String getName();
+
+	/**
+	 * Returns the extension of the files of the format, including the dot.
+	 */
+	public abstract String getExtension();
+
+	/**
+	 * Exports events to a file. The file is replaced atomically through AtomicFileWriter.
+	 *
+	 * @param timeline - the timeline to export
+	 * @param from - the start of the range, or null to export all events
+	 * @param to - the end of the range, or null to export all events
+	 * @param file - the file to write
+	 *
+	 * @return the number of exported events
+	 */
+	public int write(Timeline timeline, LocalDateTime from, LocalDateTime to, File file) throws IOException {
+		int[] count = new int[1];
+
+		AtomicFileWriter.write(file, out -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+			count[0] = write(timeline, from, to, writer);
+		});
+
+		return count[0];
+	}
+
+	/**
+	 * Exports events to a writer. The writer is flushed but not closed.
+	 *
+	 * @return the number of exported events
+	 */
+	public int write(Timeline timeline, LocalDateTime from, LocalDateTime to, Writer out) throws IOException {
+		int count = 0;
+		writeHeader(timeline, out);
+
+		if (from != null || to != null) {
+			for (Event e : timeline.eventsOverlapping(from != null ? from : LocalDateTime.MIN, to != null ? to : LocalDateTime.MAX)) {
+				if (writeEvent(e, out)) {
+					count++;
+				}
+			}
+		} else {
+			for (int first = 0; first < timeline.getEventCount(); first += BinaryTimelineFormat.PAGE_SIZE) {
+				for (Event e : timeline.getEvents(first, BinaryTimelineFormat.PAGE_SIZE)) {
+					if (writeEvent(e, out)) {
+						count++;
+					}
+				}
+			}
+		}
+
+		writeFooter(timeline, out);
+		out.flush();
+		return count;
+	}
+
+	/**
+	 * Writes what comes before the events.
+	 */
+	protected abstract void writeHeader(Timeline timeline, Writer out) throws IOException;
+
+	/**
+	 * Writes one event.
+	 *
+	 * @return false if the event could not be written in this format and was skipped
+	 */
+	protected abstract boolean writeEvent(Event event, Writer out) throws IOException;
+
+	/**
+	 * Writes what comes after the events.
+	 */
+	protected abstract void writeFooter(Timeline timeline, Writer out) throws IOException;
+
+	/**
+	 * Returns a color as a hex string that Color.web can read, with the opacity only if the
+	 * color is not opaque.
+	 */
+	static String toHex(Color color) {
+		int rgba = BinaryTimelineFormat.toRgba(color);
+		boolean opaque = (rgba & 0xFF) == 0xFF;
+		String hex = Long.toHexString((opaque ? rgba >>> 8 : rgba & 0xFFFFFFFFL) | (opaque ? 1L << 24 : 1L << 32));
+		return "#" + hex.substring(1);
+	}
+}
@@ -0,0 +1,82 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import javafx.scene.paint.Color;
+import model.Event;
+import model.Event.EventType;
+
+/**
+ * Reads events from files exported by other programs. The file is read one row at a time and
+ * every event is passed on as soon as it has been read, so files of any size can be imported.
+ *
+ * Rows that can not be read are reported with their line number and skipped. The events are
+ * not checked against the rules of EventValidator, that is up to the caller.
+ *
+ * @version 0.00.00
+ * @name EventImporter.java
+ */
+public abstract class EventImporter {
+
+	/**
+	 * The color of imported events that have none, the same as the EventPopup starts with.
+	 */
+	public static final Color DEFAULT_COLOR = Color.TEAL;
+
+	/**
+	 * Returns an importer for a file based on its extension, or null if the extension is not
+	 * supported.
+	 *
+	 * @param mapping - the columns of a CSV file, or null to read them from its header
+	 */
+	public static EventImporter forFile(File file, ColumnMapping mapping) {
+		String name = file.getName().toLowerCase();
+
+		if (name.endsWith(CsvEventImporter.EXTENSION)) {
+			return new CsvEventImporter(mapping);
+		} else if (name.endsWith(IcsEventImporter.EXTENSION)) {
+			return new IcsEventImporter();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the extensions of the files that can be imported.
+	 */
+	public static List<String> getExtensions() {
+		return Arrays.asList(CsvEventImporter.EXTENSION, IcsEventImporter.EXTENSION);
+	}
+
+	/**
+	 * Read all events.
+	 *
+	 * @param in - the file to read
+	 * @param events - receives each event that has been read
+	 * @param errors - receives the line number and a description of each row that could not be read
+	 *
+	 * @throws IOException if reading fails or the file is not in the expected format at all
+	 */
+	public abstract void read(Reader in, Consumer<Event> events, BiConsumer<Integer, String> errors) throws IOException;
+
+	/**
+	 * Creates an event with the type given by the file, or if there is none a duration event if
+	 * it has an end.
+	 */
+	static Event createEvent(String title, String description, LocalDateTime start,
+			LocalDateTime end, EventType type, Color color) {
+		if (type == null) {
+			type = end != null ? EventType.DURATION : EventType.NON_DURATION;
+		}
+
+		return new Event(0, title, description != null ? description : "", start,
+				type == EventType.DURATION ? end : null, type, color != null ? color : DEFAULT_COLOR);
+	}
+}
@@ -0,0 +1,50 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+
+import model.EventSource;
+import model.Timeline;
+
+/**
+ * Reads the events of a timeline that is not resident from its file, in any format of
+ * TimelineCodecs and with the journal of the file applied.
+ *
+ * @version 0.00.00
+ * @name FileEventSource.java
+ */
+public class FileEventSource implements EventSource {
+
+	private final File file;
+	private final int size;
+	private final FileHandler fileHandler;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file - the timeline file
+	 * @param size - the number of events in the file
+	 * @param fileHandler - used to read the file
+	 */
+	public FileEventSource(File file, int size, FileHandler fileHandler) {
+		this.file = file;
+		this.size = size;
+		this.fileHandler = fileHandler;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Timeline load() throws IOException {
+		try {
+			return fileHandler.readTimeline(file);
+		} catch (IOException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new IOException("Could not read " + file.getName() + ": " + ex.getMessage(), ex);
+		}
+	}
+}
@@ -1,19 +1,21 @@
 package io;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.Properties;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+import model.Event;
+import model.EventSource;
 import model.Timeline;
 
 /**
  * FileHandler class handles loading and saving a TimeLine XML file.
  * 
+ * readTimeline and writeTimeline support every format in TimelineCodecs, the XML
+ * methods are kept for code that needs XML specifically.
+ * 
  * @author Mustafa Alsaid
  * @version 0.00.00
  * @name FileHandler.java
@@ -21,60 +23,184 @@ import model.Timeline;
 
 public class FileHandler {
 
+	/**
+	 * Binary timeline files with at least this many events are read a page at a time when they
+	 * are opened, instead of completely.
+	 */
+	public static final int WINDOWED_EVENT_COUNT = 100000;
+
 	private static final String CONFIG_PATH = System.getProperty("user.home") + "/Documents/Timeline Manager/config.properties";
-	private File configFile;
-	private Properties configProperties;
+	private static Settings settings;
 	
 	public FileHandler() {
-		configFile = new File(CONFIG_PATH);
-		configProperties = new Properties();
+		File configFile = new File(CONFIG_PATH);
 		
 		if (!configFile.getParentFile().exists()) {
 			configFile.getParentFile().mkdirs();
 		}
 	}
 	
+	/**
+	 * Returns the settings of the configuration file. They are shared by all file handlers and
+	 * read the first time this is called.
+	 */
+	public static synchronized Settings getSettings() {
+		if (settings == null) {
+			settings = new Settings(new File(CONFIG_PATH));
+		}
+		
+		return settings;
+	}
+	
 	/**
 	 * Read the contents of TimeLine XML file.
 	 */
 	public Timeline readXML(File file) throws Exception {
-		JAXBContext context = JAXBContext.newInstance(Timeline.class);
-		Unmarshaller un = context.createUnmarshaller();
-		return (Timeline) un.unmarshal(file);
+		return JaxbCodec.read(file);
 	}
 
 	/**
-	 * Create a TimeLine XML file.
+	 * Read the contents of TimeLine XML file one event at a time. Gives the same result as
+	 * readXML but without building the whole XML document in memory first.
 	 */
-	public void writeXML(Timeline timeLine, File file) throws Exception {
-		JAXBContext context = JAXBContext.newInstance(Timeline.class);
-		Marshaller m = context.createMarshaller();
-		m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-		m.marshal(timeLine, file);
+	public Timeline readXMLStreaming(File file) throws Exception {
+		return new TimelineStaxReader().read(file);
 	}
 	
 	/**
-	 * Write a property to the configuration file.
-	 * 
-	 * @param key 
-	 * @param value
-	 * @param file
+	 * Read a TimeLine XML file and pass each event to the sink as soon as it has been read.
+	 * The returned timeline holds everything in the file except the events.
+	 */
+	public Timeline readXMLStreaming(File file, Consumer<Event> sink) throws Exception {
+		return new TimelineStaxReader().read(file, sink);
+	}
+
+	/**
+	 * Read a timeline from a file in any of the formats of TimelineCodecs, with the changes
+	 * in its journal applied.
+	 */
+	public Timeline readTimeline(File file) throws Exception {
+		Timeline timeline = TimelineCodecs.forReading(file).read(file);
+		ChangeJournal.replay(timeline, file);
+		return timeline;
+	}
+	
+	/**
+	 * Open a timeline file. Large binary files without a journal are not read completely, the
+	 * returned timeline is not resident and reads the events it is asked for from the file a
+	 * page at a time, see PagedEventSource. Other files are read completely like readTimeline.
+	 */
+	public Timeline openTimeline(File file) throws Exception {
+		BinaryTimelineReader reader = windowedReader(file);
+		
+		if (reader == null) {
+			return readTimeline(file);
+		}
+		
+		Timeline timeline = reader.readHeader();
+		timeline.detach(new PagedEventSource(file, reader));
+		return timeline;
+	}
+	
+	/**
+	 * Return a source for the events of a timeline file that has not been read, which reads the
+	 * file a page at a time if openTimeline would.
 	 * 
-	 * @throws Exception
+	 * @param file - the timeline file
+	 * @param size - the number of events in the file
 	 */
-	public void writeProperty(String key, String value) throws IOException {
-		try (FileOutputStream out = new FileOutputStream(configFile)) {
-			configProperties.setProperty(key, value);
-			configProperties.store(out, null);
+	public EventSource eventSourceFor(File file, int size) {
+		if (size >= WINDOWED_EVENT_COUNT) {
+			try {
+				BinaryTimelineReader reader = windowedReader(file);
+				
+				if (reader != null) {
+					return new PagedEventSource(file, reader);
+				}
+			} catch (IOException ex) {
+				System.err.println("Could not read index of " + file.getName() + ". Message: " + ex.getMessage());
+			}
 		}
+		
+		return new FileEventSource(file, size, this);
 	}
 	
-	public String readProperty(String key, String defaultVal) throws IOException {
+	/**
+	 * Return a reader of the file if it should be read a page at a time, otherwise null.
+	 */
+	private BinaryTimelineReader windowedReader(File file) throws IOException {
+		if (ChangeJournal.journalFileFor(file).exists() || !(TimelineCodecs.forReading(file) instanceof BinaryTimelineCodec)) {
+			return null;
+		}
+		
+		BinaryTimelineReader reader = BinaryTimelineReader.mapped(file);
+		
+		if (reader.hasIndex() && reader.size() >= WINDOWED_EVENT_COUNT) {
+			return reader;
+		}
 		
-		try (InputStream in = new FileInputStream(configFile)) {
-			configProperties.load(in);
+		reader.close();
+		return null;
+	}
+	
+	/**
+	 * Read a timeline in any of the formats of TimelineCodecs and pass each event to the sink.
+	 * The returned timeline holds everything in the file except the events. If the file has a
+	 * journal the events are only passed on once the whole file has been read.
+	 */
+	public Timeline readTimeline(File file, Consumer<Event> sink) throws Exception {
+		if (!ChangeJournal.journalFileFor(file).exists()) {
+			return TimelineCodecs.forReading(file).read(file, sink);
 		}
 		
-		return configProperties.getProperty(key, defaultVal);
+		Timeline timeline = readTimeline(file);
+		timeline.getList().forEach(sink);
+		timeline.setList(new ArrayList<Event>());
+		return timeline;
+	}
+	
+	/**
+	 * Write a timeline to a file in the format that matches the extension of the file, or as
+	 * XML if no format has that extension. The file then holds the whole timeline, so any
+	 * journal it had is deleted.
+	 */
+	public void writeTimeline(Timeline timeline, File file) throws Exception {
+		TimelineCodecs.forWriting(file).write(timeline, file);
+		Files.deleteIfExists(ChangeJournal.journalFileFor(file).toPath());
+	}
+	
+	/**
+	 * Create a TimeLine XML file. The file is written to a temporary file first and then
+	 * moved over the old file, so the old file is kept if saving fails.
+	 */
+	public void writeXML(Timeline timeLine, File file) throws Exception {
+		writeXML(timeLine, file, false);
+	}
+	
+	/**
+	 * Create a TimeLine XML file, optionally without indentation to make the file smaller
+	 * and faster to write.
+	 */
+	public void writeXML(Timeline timeLine, File file, boolean compact) throws Exception {
+		new TimelineStaxWriter().write(timeLine, file, compact);
+	}
+	
+	/**
+	 * Write a property to the configuration file. The value is kept in memory right away and
+	 * written to the file in the background.
+	 * 
+	 * @param key 
+	 * @param value
+	 */
+	public void writeProperty(String key, String value) {
+		getSettings().set(key, value);
+	}
+	
+	/**
+	 * Read a property of the configuration file. The file is only read once, later calls are
+	 * answered from memory.
+	 */
+	public String readProperty(String key, String defaultVal) {
+		return getSettings().get(key, defaultVal);
 	}
 }
@@ -0,0 +1,87 @@
+package io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import model.Event;
+import model.Timeline;
+
+/**
+ * The XML format compressed with gzip. The XML is written without indentation since
+ * it is not meant to be read by people anyway.
+ *
+ * @version 0.00.00
+ * @name GzipXmlTimelineCodec.java
+ */
+public class GzipXmlTimelineCodec implements TimelineCodec {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final List<String> EXTENSIONS = Arrays.asList(".xml.gz");
+
+	@Override
+	public String getName() {
+		return "Compressed XML";
+	}
+
+	@Override
+	public List<String> getExtensions() {
+		return EXTENSIONS;
+	}
+
+	@Override
+	public boolean canRead(byte[] header, int length) {
+		return length >= 2 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B;
+	}
+
+	@Override
+	public Timeline read(File file) throws IOException {
+		ArrayList<Event> events = new ArrayList<Event>();
+		Timeline timeline = read(file, events::add);
+		timeline.setList(events);
+		return timeline;
+	}
+
+	@Override
+	public Timeline read(File file, Consumer<Event> sink) throws IOException {
+		try (InputStream in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)), BUFFER_SIZE)) {
+			return new TimelineStaxReader().read(in, sink);
+		} catch (XMLStreamException ex) {
+			throw new IOException(file.getName() + " is not a valid timeline file: " + ex.getMessage(), ex);
+		}
+	}
+
+	@Override
+	public void write(Timeline timeline, File file) throws IOException {
+		AtomicFileWriter.write(file, out -> {
+			// Buffer in front of the deflater, it is slow with the small writes of the XML writer
+			GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+			BufferedOutputStream buffered = new BufferedOutputStream(gzip, BUFFER_SIZE);
+
+			try {
+				new TimelineStaxWriter().write(timeline, buffered, true);
+			} catch (XMLStreamException ex) {
+				throw new IOException(ex);
+			}
+
+			buffered.flush();
+			gzip.finish();
+		});
+	}
+
+	@Override
+	public boolean supportsStreaming() {
+		return true;
+	}
+}
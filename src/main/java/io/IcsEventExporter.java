@@ -0,0 +1,162 @@
+package io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import model.Event;
+import model.Event.EventType;
+import model.Timeline;
+
+/**
+ * Exports events to an iCalendar file (RFC 5545) with one VEVENT per event. Times are written
+ * as local times without a time zone, the way they are stored in the timeline. Events without
+ * a start can not be written and are skipped.
+ *
+ * @version 0.00.00
+ * @name IcsEventExporter.java
+ */
+public class IcsEventExporter extends EventExporter {
+
+	public static final String EXTENSION = ".ics";
+
+	private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+	private static final int LINE_LENGTH = 75; // octets, not counting the line break
+
+	private String timestamp;
+	private String uidSuffix;
+
+	@Override
+	public String getName() {
+		return "iCalendar";
+	}
+
+	@Override
+	public String getExtension() {
+		return EXTENSION;
+	}
+
+	@Override
+	protected void writeHeader(Timeline timeline, Writer out) throws IOException {
+		timestamp = LocalDateTime.now(ZoneOffset.UTC).format(DATE_TIME) + "Z";
+		uidSuffix = "@" + Integer.toHexString(String.valueOf(timeline.getName()).hashCode()) + ".timeline-manager";
+
+		writeLine(out, "BEGIN:VCALENDAR");
+		writeLine(out, "VERSION:2.0");
+		writeLine(out, "PRODID:-//Timeline Manager//EN");
+
+		if (timeline.getName() != null) {
+			writeLine(out, "X-WR-CALNAME:" + escape(timeline.getName()));
+		}
+	}
+
+	@Override
+	protected boolean writeEvent(Event event, Writer out) throws IOException {
+		if (event.getStartDate() == null) {
+			return false;
+		}
+
+		writeLine(out, "BEGIN:VEVENT");
+		writeLine(out, "UID:event-" + event.getId() + uidSuffix);
+		writeLine(out, "DTSTAMP:" + timestamp);
+		writeLine(out, "DTSTART:" + format(event.getStartDate()));
+
+		if (event.getType() == EventType.DURATION && event.getEndDate() != null) {
+			writeLine(out, "DTEND:" + format(event.getEndDate()));
+		}
+
+		writeLine(out, "SUMMARY:" + escape(event.getEventName() != null ? event.getEventName() : ""));
+
+		if (event.getDescription() != null && !event.getDescription().isEmpty()) {
+			writeLine(out, "DESCRIPTION:" + escape(event.getDescription()));
+		}
+
+		if (event.getColor() != null) {
+			writeLine(out, "COLOR:" + toHex(event.getColor()));
+		}
+
+		writeLine(out, "END:VEVENT");
+		return true;
+	}
+
+	@Override
+	protected void writeFooter(Timeline timeline, Writer out) throws IOException {
+		writeLine(out, "END:VCALENDAR");
+	}
+
+	/**
+	 * Writes a content line, folded so that no line is longer than 75 octets of UTF-8.
+	 */
+	private void writeLine(Writer out, String line) throws IOException {
+		if (line.length() <= LINE_LENGTH / 3) {
+			// Short enough even if every character takes three octets
+			out.write(line);
+			out.write("\r\n");
+			return;
+		}
+
+		int octets = 0;
+
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			int size = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4 : Character.isLowSurrogate(c) ? 0 : 3;
+
+			if (octets + size > LINE_LENGTH) {
+				out.write("\r\n ");
+				octets = 1;
+			}
+
+			out.write(c);
+			octets += size;
+		}
+
+		out.write("\r\n");
+	}
+
+	/**
+	 * Formats a time as yyyyMMdd'T'HHmmss. Faster than a DateTimeFormatter, which matters when
+	 * millions of events are exported.
+	 */
+	private static String format(LocalDateTime time) {
+		if (time.getYear() < 0 || time.getYear() > 9999) {
+			return time.format(DATE_TIME);
+		}
+
+		char[] text = new char[15];
+		digits(text, 0, time.getYear(), 4);
+		digits(text, 4, time.getMonthValue(), 2);
+		digits(text, 6, time.getDayOfMonth(), 2);
+		text[8] = 'T';
+		digits(text, 9, time.getHour(), 2);
+		digits(text, 11, time.getMinute(), 2);
+		digits(text, 13, time.getSecond(), 2);
+		return new String(text);
+	}
+
+	private static void digits(char[] text, int offset, int value, int count) {
+		for (int i = offset + count - 1; i >= offset; i--) {
+			text[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	private static String escape(String text) {
+		StringBuilder result = new StringBuilder(text.length() + 8);
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			if (c == '\\' || c == ';' || c == ',') {
+				result.append('\\').append(c);
+			} else if (c == '\n') {
+				result.append("\\n");
+			} else if (c != '\r') {
+				result.append(c);
+			}
+		}
+
+		return result.toString();
+	}
+}
@@ -0,0 +1,283 @@
+package io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAmount;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import javafx.scene.paint.Color;
+import model.Event;
+import model.Event.EventType;
+
+/**
+ * Imports the VEVENT components of iCalendar files (RFC 5545). The summary becomes the title
+ * of the event and DTSTART and DTEND or DURATION its dates. Times in UTC or in a named time
+ * zone are converted to the time zone of the computer. Events that last whole days end on their
+ * last day, not at the start of the day after as in the file.
+ *
+ * Recurring events are imported once, at their first occurrence.
+ *
+ * @version 0.00.00
+ * @name IcsEventImporter.java
+ */
+public class IcsEventImporter extends EventImporter {
+
+	public static final String EXTENSION = ".ics";
+
+	private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+	private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+	// The properties of the event being read
+	private String summary;
+	private String description;
+	private String start;
+	private String end;
+	private String duration;
+	private String color;
+	private int eventLine;
+
+	@Override
+	public void read(Reader reader, Consumer<Event> events, BiConsumer<Integer, String> errors) throws IOException {
+		BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+		boolean inEvent = false;
+		boolean calendar = false;
+		int nesting = 0; // components such as VALARM inside the event
+		int lineNumber = 0;
+		int contentLine = 0;
+		StringBuilder content = new StringBuilder();
+		String line;
+
+		// A content line may be folded over several lines, each continuation starts with a space or tab
+		do {
+			line = in.readLine();
+			lineNumber++;
+
+			if (line != null && !line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+				content.append(line, 1, line.length());
+				continue;
+			}
+
+			if (content.length() > 0) {
+				String property = content.toString();
+				String name = nameOf(property);
+				String value = valueOf(property);
+
+				if (name.equals("BEGIN") && value.equalsIgnoreCase("VCALENDAR")) {
+					calendar = true;
+				} else if (name.equals("BEGIN") && value.equalsIgnoreCase("VEVENT")) {
+					inEvent = true;
+					nesting = 0;
+					eventLine = contentLine;
+					summary = description = start = end = duration = color = null;
+				} else if (inEvent && name.equals("BEGIN")) {
+					nesting++;
+				} else if (inEvent && name.equals("END") && nesting > 0) {
+					nesting--;
+				} else if (inEvent && name.equals("END") && value.equalsIgnoreCase("VEVENT")) {
+					inEvent = false;
+
+					try {
+						events.accept(toEvent());
+					} catch (DateTimeException | IllegalArgumentException ex) {
+						errors.accept(eventLine, ex.getMessage());
+					}
+				} else if (inEvent && nesting == 0) {
+					readProperty(name, property, value);
+				}
+			}
+
+			content.setLength(0);
+
+			if (line != null) {
+				content.append(line);
+				contentLine = lineNumber;
+			}
+		} while (line != null);
+
+		if (!calendar) {
+			throw new IOException("The file is not an iCalendar file");
+		}
+	}
+
+	private void readProperty(String name, String property, String value) {
+		switch (name) {
+		case "SUMMARY":
+			summary = unescape(value);
+			break;
+		case "DESCRIPTION":
+			description = unescape(value);
+			break;
+		case "DTSTART":
+			start = property;
+			break;
+		case "DTEND":
+			end = property;
+			break;
+		case "DURATION":
+			duration = value;
+			break;
+		case "COLOR":
+			color = value;
+			break;
+		default:
+			break;
+		}
+	}
+
+	private Event toEvent() {
+		if (start == null) {
+			throw new IllegalArgumentException("The event has no start");
+		}
+
+		boolean allDay = isDate(start);
+		LocalDateTime startDate = parseDate(start);
+		LocalDateTime endDate = null;
+
+		if (end != null) {
+			endDate = parseDate(end);
+		} else if (duration != null) {
+			endDate = startDate.plus(parseDuration(duration));
+		} else if (allDay) {
+			endDate = startDate.plusDays(1);
+		}
+
+		if (allDay && endDate != null && endDate.isAfter(startDate)) {
+			endDate = endDate.minusDays(1);
+		}
+
+		Color eventColor = null;
+
+		if (color != null) {
+			try {
+				eventColor = Color.web(color.trim());
+			} catch (IllegalArgumentException ex) {
+				// Not a color JavaFX knows, use the default color
+			}
+		}
+
+		return createEvent(summary != null ? summary : "", description, startDate, endDate,
+				endDate != null ? EventType.DURATION : EventType.NON_DURATION, eventColor);
+	}
+
+	private static TemporalAmount parseDuration(String value) {
+		try {
+			return Duration.parse(value);
+		} catch (DateTimeException ex) {
+			return Period.parse(value);
+		}
+	}
+
+	/**
+	 * Returns true if a DTSTART or DTEND property holds a date without a time.
+	 */
+	private static boolean isDate(String property) {
+		return valueOf(property).length() == 8 || parameterOf(property, "VALUE").equalsIgnoreCase("DATE");
+	}
+
+	private static LocalDateTime parseDate(String property) {
+		String value = valueOf(property).trim();
+
+		if (isDate(property)) {
+			return LocalDate.parse(value.substring(0, 8), DATE).atStartOfDay();
+		}
+
+		ZoneId zone = null;
+
+		if (value.endsWith("Z")) {
+			value = value.substring(0, value.length() - 1);
+			zone = ZoneOffset.UTC;
+		} else if (!parameterOf(property, "TZID").isEmpty()) {
+			try {
+				zone = ZoneId.of(parameterOf(property, "TZID"));
+			} catch (DateTimeException ex) {
+				// A time zone defined in the file itself, treat the time as local time
+			}
+		}
+
+		LocalDateTime time = LocalDateTime.parse(value, DATE_TIME);
+		return zone != null ? time.atZone(zone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime() : time;
+	}
+
+	/**
+	 * Returns the name of a property, without its parameters.
+	 */
+	private static String nameOf(String property) {
+		int end = 0;
+
+		while (end < property.length() && property.charAt(end) != ';' && property.charAt(end) != ':') {
+			end++;
+		}
+
+		return property.substring(0, end).toUpperCase();
+	}
+
+	/**
+	 * Returns the value of a property, the part after the first colon that is not inside a
+	 * quoted parameter value.
+	 */
+	private static String valueOf(String property) {
+		boolean quoted = false;
+
+		for (int i = 0; i < property.length(); i++) {
+			char c = property.charAt(i);
+
+			if (c == '"') {
+				quoted = !quoted;
+			} else if (c == ':' && !quoted) {
+				return property.substring(i + 1);
+			}
+		}
+
+		return "";
+	}
+
+	/**
+	 * Returns the value of a parameter of a property, or an empty string if it has none.
+	 */
+	private static String parameterOf(String property, String parameter) {
+		String parameters = property.substring(0, property.length() - valueOf(property).length());
+
+		for (String p : parameters.split(";")) {
+			int equals = p.indexOf('=');
+
+			if (equals > 0 && p.substring(0, equals).equalsIgnoreCase(parameter)) {
+				String value = p.substring(equals + 1);
+
+				if (value.endsWith(":")) {
+					value = value.substring(0, value.length() - 1);
+				}
+
+				return value.replace("\"", "");
+			}
+		}
+
+		return "";
+	}
+
+	private static String unescape(String text) {
+		StringBuilder result = new StringBuilder(text.length());
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			if (c == '\\' && i + 1 < text.length()) {
+				char next = text.charAt(++i);
+				result.append(next == 'n' || next == 'N' ? '\n' : next);
+			} else {
+				result.append(c);
+			}
+		}
+
+		return result.toString();
+	}
+}
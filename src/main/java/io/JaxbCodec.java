@@ -0,0 +1,62 @@
+package io;
+
+import java.io.File;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+
+import model.Timeline;
+
+/**
+ * Shared JAXB setup for reading timeline files. Creating a JAXBContext is by far the most
+ * expensive part of reading a small file, so the context is created once and shared
+ * by all threads, and every thread keeps its own Unmarshaller since it is not thread safe.
+ *
+ * @version 0.00.00
+ * @name JaxbCodec.java
+ */
+public class JaxbCodec {
+
+	private static volatile JAXBContext context;
+
+	private static final ThreadLocal<Unmarshaller> UNMARSHALLERS = new ThreadLocal<Unmarshaller>();
+
+	private JaxbCodec() {
+	}
+
+	/**
+	 * Reads a timeline from an XML file.
+	 */
+	public static Timeline read(File file) throws JAXBException {
+		return (Timeline) getUnmarshaller().unmarshal(file);
+	}
+
+	private static JAXBContext getContext() throws JAXBException {
+		JAXBContext result = context;
+
+		if (result == null) {
+			synchronized (JaxbCodec.class) {
+				result = context;
+
+				if (result == null) {
+					result = JAXBContext.newInstance(Timeline.class);
+					context = result;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	private static Unmarshaller getUnmarshaller() throws JAXBException {
+		Unmarshaller unmarshaller = UNMARSHALLERS.get();
+
+		if (unmarshaller == null) {
+			unmarshaller = getContext().createUnmarshaller();
+			UNMARSHALLERS.set(unmarshaller);
+		}
+
+		return unmarshaller;
+	}
+}
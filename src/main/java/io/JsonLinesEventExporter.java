@@ -0,0 +1,109 @@
+package io;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import model.Event;
+import model.Timeline;
+
+/**
+ * Exports events as JSON lines: one JSON object per event and line, so the file can be read
+ * one event at a time. Dates are ISO strings, missing values are null.
+ *
+ * <pre>
+ * {"id":1,"title":"Trip","description":"","start":"2018-03-01T00:00","end":"2018-03-05T00:00","type":"DURATION","color":"#ff0000"}
+ * </pre>
+ *
+ * @version 0.00.00
+ * @name JsonLinesEventExporter.java
+ */
+public class JsonLinesEventExporter extends EventExporter {
+
+	public static final String EXTENSION = ".jsonl";
+
+	@Override
+	public String getName() {
+		return "JSON lines";
+	}
+
+	@Override
+	public String getExtension() {
+		return EXTENSION;
+	}
+
+	@Override
+	protected void writeHeader(Timeline timeline, Writer out) throws IOException {
+	}
+
+	@Override
+	protected boolean writeEvent(Event event, Writer out) throws IOException {
+		out.write("{\"id\":");
+		out.write(Integer.toString(event.getId()));
+		out.write(",\"title\":");
+		writeString(out, event.getEventName());
+		out.write(",\"description\":");
+		writeString(out, event.getDescription());
+		out.write(",\"start\":");
+		writeString(out, event.getStartDate() != null ? event.getStartDate().toString() : null);
+		out.write(",\"end\":");
+		writeString(out, event.getEndDate() != null ? event.getEndDate().toString() : null);
+		out.write(",\"type\":");
+		writeString(out, event.getType() != null ? event.getType().name() : null);
+		out.write(",\"color\":");
+		writeString(out, event.getColor() != null ? toHex(event.getColor()) : null);
+		out.write("}\n");
+		return true;
+	}
+
+	@Override
+	protected void writeFooter(Timeline timeline, Writer out) throws IOException {
+	}
+
+	private void writeString(Writer out, String value) throws IOException {
+		if (value == null) {
+			out.write("null");
+			return;
+		}
+
+		out.write('"');
+		int plain = 0;
+
+		// Most strings need no escaping and are written in one piece
+		while (plain < value.length() && value.charAt(plain) >= 0x20 && value.charAt(plain) != '"'
+				&& value.charAt(plain) != '\\') {
+			plain++;
+		}
+
+		out.write(value, 0, plain);
+
+		for (int i = plain; i < value.length(); i++) {
+			char c = value.charAt(i);
+
+			switch (c) {
+			case '"':
+				out.write("\\\"");
+				break;
+			case '\\':
+				out.write("\\\\");
+				break;
+			case '\n':
+				out.write("\\n");
+				break;
+			case '\r':
+				out.write("\\r");
+				break;
+			case '\t':
+				out.write("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					out.write(String.format("\\u%04x", (int) c));
+				} else {
+					out.write(c);
+				}
+			}
+		}
+
+		out.write('"');
+	}
+}
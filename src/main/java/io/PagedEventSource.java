@@ -0,0 +1,279 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import model.Event;
+import model.EventIntervalTree;
+import model.Timeline;
+import model.WindowedEventSource;
+
+/**
+ * Reads the events of a binary timeline file a page at a time, using the index of the file
+ * to find the pages that hold the events in a range of time. The most recently used pages
+ * are kept in memory, and after every query the pages of the ranges just before and after it
+ * are read on a background thread, so scrolling to the next range usually finds them ready.
+ *
+ * Only files without a journal can be read this way, since the changes in a journal are not
+ * part of the index. The file is mapped until the source is closed, which the timeline does
+ * once it has read all of its events, so the file can be saved again.
+ *
+ * @version 0.00.00
+ * @name PagedEventSource.java
+ */
+public class PagedEventSource implements WindowedEventSource {
+
+	private static final int CACHED_PAGES = 64;
+	// Pages read ahead per query, kept well below the cache size so the pages in use stay cached
+	private static final int PREFETCHED_PAGES = CACHED_PAGES / 4;
+
+	private static final ExecutorService PREFETCHER = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Timeline prefetch");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final File file;
+	private final BinaryTimelineReader reader;
+	private final long[] maxEnds; // The latest end of the pages up to and including each page
+	private final Set<Integer> queued = new HashSet<Integer>();
+	private boolean closed;
+	private final Map<Integer, List<Event>> pages = new LinkedHashMap<Integer, List<Event>>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, List<Event>> eldest) {
+			return size() > CACHED_PAGES;
+		}
+	};
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file - the timeline file, used in error messages
+	 * @param reader - a reader of the file, which must have an index
+	 */
+	public PagedEventSource(File file, BinaryTimelineReader reader) {
+		this.file = file;
+		this.reader = reader;
+		maxEnds = new long[reader.getPageCount()];
+
+		for (int page = 0; page < maxEnds.length; page++) {
+			maxEnds[page] = Math.max(page > 0 ? maxEnds[page - 1] : Long.MIN_VALUE, reader.getPageEnd(page));
+		}
+	}
+
+	@Override
+	public int size() {
+		return reader.size();
+	}
+
+	@Override
+	public synchronized Timeline load() throws IOException {
+		checkOpen();
+
+		try {
+			return reader.read();
+		} catch (RuntimeException ex) {
+			throw new IOException(file.getName() + " is damaged", ex);
+		}
+	}
+
+	@Override
+	public List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to) throws IOException {
+		List<Event> result = new ArrayList<Event>();
+
+		if (from.isAfter(to)) {
+			return result;
+		}
+
+		List<Integer> overlapping;
+
+		synchronized (this) {
+			checkOpen();
+			overlapping = pagesOverlapping(from, to);
+		}
+
+		for (int page : overlapping) {
+			for (Event e : page(page)) {
+				if (EventIntervalTree.overlaps(e, from, to)) {
+					result.add(e);
+				}
+			}
+		}
+
+		prefetch(from, to);
+		return result;
+	}
+
+	/**
+	 * Reads the events in file order without keeping them, so going through the whole file
+	 * does not push the pages of the shown range out of memory.
+	 */
+	@Override
+	public synchronized List<Event> readEvents(int first, int count) throws IOException {
+		checkOpen();
+
+		try {
+			return reader.readEvents(first, count);
+		} catch (RuntimeException ex) {
+			throw new IOException(file.getName() + " is damaged", ex);
+		}
+	}
+
+	/**
+	 * Maps the file again for a source of its own.
+	 */
+	@Override
+	public synchronized WindowedEventSource open() throws IOException {
+		checkOpen();
+		return new PagedEventSource(file, BinaryTimelineReader.mapped(file));
+	}
+
+	/**
+	 * Returns the pages that may hold events in the range, in order. The pages are ordered by
+	 * their first start, which bounds them on the right. A page can hold a long event that
+	 * reaches far beyond it, so on the left they are bounded by the latest end of all pages up
+	 * to each page, which only grows from page to page. The pages between the bounds are
+	 * checked one by one.
+	 */
+	private List<Integer> pagesOverlapping(LocalDateTime from, LocalDateTime to) {
+		long fromSecond = from.toEpochSecond(ZoneOffset.UTC);
+		long toSecond = to.toEpochSecond(ZoneOffset.UTC);
+		List<Integer> result = new ArrayList<Integer>();
+
+		// Find the first page that starts after the range, it and all later pages can be skipped
+		int low = 0;
+		int high = reader.getPageCount();
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+
+			if (reader.getPageStart(middle) <= toSecond) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		// Find the first page up to which some page ends in or after the range
+		int first = 0;
+		int last = low;
+
+		while (first < last) {
+			int middle = (first + last) >>> 1;
+
+			if (maxEnds[middle] < fromSecond) {
+				first = middle + 1;
+			} else {
+				last = middle;
+			}
+		}
+
+		for (int page = first; page < low; page++) {
+			if (reader.getPageEnd(page) >= fromSecond) {
+				result.add(page);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Releases the mapped file. Queries made afterwards throw an IOException.
+	 */
+	@Override
+	public synchronized void close() {
+		if (!closed) {
+			closed = true;
+			pages.clear();
+			reader.close();
+		}
+	}
+
+	private void checkOpen() throws IOException {
+		if (closed) {
+			throw new IOException(file.getName() + " is no longer read a page at a time");
+		}
+	}
+
+	private synchronized List<Event> page(int page) throws IOException {
+		checkOpen();
+		List<Event> events = pages.get(page);
+
+		if (events == null) {
+			try {
+				events = reader.readPage(page);
+			} catch (RuntimeException ex) {
+				throw new IOException(file.getName() + " is damaged", ex);
+			}
+
+			pages.put(page, events);
+		}
+
+		return events;
+	}
+
+	private synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Reads the pages of the ranges of the same length just before and after the given range
+	 * on the background thread.
+	 */
+	private void prefetch(LocalDateTime from, LocalDateTime to) {
+		long fromSecond = from.toEpochSecond(ZoneOffset.UTC);
+		long toSecond = to.toEpochSecond(ZoneOffset.UTC);
+		long seconds = toSecond - fromSecond;
+		List<Integer> toRead = new ArrayList<Integer>();
+
+		if (fromSecond - seconds < LocalDateTime.MIN.toEpochSecond(ZoneOffset.UTC)
+				|| toSecond + seconds > LocalDateTime.MAX.toEpochSecond(ZoneOffset.UTC)) {
+			return; // the range covers most of time, there is nothing around it to read
+		}
+
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+
+			List<Integer> candidates = pagesOverlapping(from.minusSeconds(seconds), from);
+			candidates.addAll(pagesOverlapping(to, to.plusSeconds(seconds)));
+
+			for (int page : candidates) {
+				if (toRead.size() < PREFETCHED_PAGES && !pages.containsKey(page) && queued.add(page)) {
+					toRead.add(page);
+				}
+			}
+		}
+
+		if (!toRead.isEmpty()) {
+			PREFETCHER.execute(() -> {
+				for (int page : toRead) {
+					try {
+						page(page);
+					} catch (IOException ex) {
+						if (!isClosed()) {
+							System.err.println("Could not read ahead in " + file.getName() + ". Message: " + ex.getMessage());
+						}
+					}
+
+					synchronized (this) {
+						queued.remove(page);
+					}
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,296 @@
+package io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import interfaces.SettingsListener;
+
+/**
+ * Holds the settings of a properties file in memory. The file is read once, when the settings
+ * are created, and reads are answered from memory after that.
+ *
+ * Changes are written in the background a short while after the first of them, so changes made
+ * close together are written to the file at once. The file is replaced through
+ * AtomicFileWriter. Once watch has been called, the file is read again when it is changed by
+ * another program, and the listeners are told which keys changed. A key that has been changed
+ * by the program but not written yet keeps its value.
+ *
+ * All methods can be called from any thread.
+ *
+ * @version 0.00.00
+ * @name Settings.java
+ */
+public class Settings {
+
+	private static final long FLUSH_DELAY_MILLIS = 500;
+	private static final long SETTLE_MILLIS = 50;
+
+	private final File file;
+	private final long flushDelayMillis;
+	private final Properties properties = new Properties();
+	// Keys set by the program that are not in the file yet
+	private final Set<String> unsaved = new HashSet<String>();
+	private final List<SettingsListener> listeners = new CopyOnWriteArrayList<SettingsListener>();
+	private final Object writeLock = new Object();
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "Settings");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private ScheduledFuture<?> pendingFlush;
+	private WatchService watchService;
+
+	/**
+	 * Constructor. Reads the file, a file that does not exist gives empty settings.
+	 */
+	public Settings(File file) {
+		this(file, FLUSH_DELAY_MILLIS);
+	}
+
+	Settings(File file, long flushDelayMillis) {
+		this.file = file;
+		this.flushDelayMillis = flushDelayMillis;
+
+		try {
+			properties.putAll(load());
+		} catch (IOException ex) {
+			System.err.println("Could not read config file. Message: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the value of a setting, or the default value if it is not set.
+	 */
+	public synchronized String get(String key, String defaultValue) {
+		return properties.getProperty(key, defaultValue);
+	}
+
+	/**
+	 * Changes a setting. The file is written in the background.
+	 */
+	public void set(String key, String value) {
+		synchronized (this) {
+			if (value.equals(properties.getProperty(key))) {
+				return;
+			}
+
+			properties.setProperty(key, value);
+			unsaved.add(key);
+
+			if (pendingFlush != null) {
+				return;
+			}
+
+			try {
+				pendingFlush = executor.schedule(this::flushInBackground, flushDelayMillis, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException ex) {
+				// Closed, the change is only kept in memory
+			}
+		}
+	}
+
+	public void addListener(SettingsListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(SettingsListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Writes the changes that have not been written yet.
+	 */
+	public void flush() throws IOException {
+		synchronized (writeLock) {
+			Properties written;
+
+			synchronized (this) {
+				if (unsaved.isEmpty()) {
+					return;
+				}
+
+				written = (Properties) properties.clone();
+			}
+
+			AtomicFileWriter.write(file, out -> written.store(out, null));
+
+			synchronized (this) {
+				unsaved.removeIf(key -> Objects.equals(properties.getProperty(key), written.getProperty(key)));
+			}
+		}
+	}
+
+	/**
+	 * Starts reading the file again whenever it is changed by another program.
+	 */
+	public synchronized void watch() throws IOException {
+		if (watchService != null) {
+			return;
+		}
+
+		File directory = file.getAbsoluteFile().getParentFile();
+		directory.mkdirs();
+
+		watchService = FileSystems.getDefault().newWatchService();
+		directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+		WatchService service = watchService;
+		Thread thread = new Thread(() -> watchLoop(service), "Settings watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops watching the file and writes the changes that have not been written yet. Changes
+	 * made after this are kept in memory only.
+	 */
+	public void close() {
+		synchronized (this) {
+			if (pendingFlush != null) {
+				pendingFlush.cancel(false);
+				pendingFlush = null;
+			}
+
+			if (watchService != null) {
+				try {
+					watchService.close();
+				} catch (IOException ex) {
+					System.err.println("Could not stop watching config file. Message: " + ex.getMessage());
+				}
+			}
+		}
+
+		executor.shutdown();
+
+		try {
+			flush();
+		} catch (IOException ex) {
+			System.err.println("Could not write config file. Message: " + ex.getMessage());
+		}
+	}
+
+	private void flushInBackground() {
+		synchronized (this) {
+			pendingFlush = null;
+		}
+
+		try {
+			flush();
+		} catch (IOException ex) {
+			System.err.println("Could not write config file. Message: " + ex.getMessage());
+		}
+	}
+
+	private void watchLoop(WatchService service) {
+		Path name = file.toPath().getFileName();
+
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				boolean changed = false;
+
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (name.equals(event.context())) {
+						changed = true;
+					}
+				}
+
+				key.reset();
+
+				if (changed) {
+					// A file is often written in several steps, wait until it has not changed for a while
+					while ((key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+						key.pollEvents();
+						key.reset();
+					}
+
+					reload();
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException ex) {
+			// Closed
+		}
+	}
+
+	/**
+	 * Reads the file again and tells the listeners which keys changed. Writes made by the
+	 * program itself change nothing and are not reported.
+	 */
+	private void reload() {
+		Properties loaded;
+
+		try {
+			if (!file.exists()) {
+				return;
+			}
+
+			loaded = load();
+		} catch (IOException ex) {
+			System.err.println("Could not read config file. Message: " + ex.getMessage());
+			return;
+		}
+
+		Set<String> changed = new HashSet<String>();
+
+		synchronized (this) {
+			Set<String> keys = new HashSet<String>(properties.stringPropertyNames());
+			keys.addAll(loaded.stringPropertyNames());
+
+			for (String key : keys) {
+				String value = loaded.getProperty(key);
+
+				if (unsaved.contains(key) || Objects.equals(value, properties.getProperty(key))) {
+					continue;
+				}
+
+				if (value == null) {
+					properties.remove(key);
+				} else {
+					properties.setProperty(key, value);
+				}
+
+				changed.add(key);
+			}
+		}
+
+		if (!changed.isEmpty()) {
+			for (SettingsListener listener : listeners) {
+				listener.onSettingsChanged(changed);
+			}
+		}
+	}
+
+	private Properties load() throws IOException {
+		Properties loaded = new Properties();
+
+		if (file.exists()) {
+			try (InputStream in = new FileInputStream(file)) {
+				loaded.load(in);
+			}
+		}
+
+		return loaded;
+	}
+}
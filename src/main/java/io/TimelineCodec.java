@@ -0,0 +1,85 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import model.Event;
+import model.Timeline;
+
+/**
+ * A file format timelines can be read from and written to.
+ *
+ * Codecs are found with ServiceLoader, so a new format is added by implementing this
+ * interface and listing the class in META-INF/services/io.TimelineCodec. TimelineCodecs
+ * picks the codec for a file by its extension, or by looking at the first bytes of the
+ * file if the extension is unknown.
+ *
+ * Implementations must have a public no-argument constructor and be safe to use from
+ * several threads at once.
+ *
+ * @version 0.00.00
+ * @name TimelineCodec.java
+ */
+public interface TimelineCodec {
+
+	/**
+	 * Returns the name of the format as shown to the user, for example "XML".
+	 */
+	public String getName();
+
+	/**
+	 * Returns the file extensions of the format in lower case including the dot, the
+	 * first one being the one new files are saved with.
+	 */
+	public List<String> getExtensions();
+
+	/**
+	 * Returns true if a file starting with the given bytes looks like it is in this format.
+	 *
+	 * @param header - the first bytes of the file
+	 * @param length - the number of valid bytes in header, may be less than its length
+	 */
+	public boolean canRead(byte[] header, int length);
+
+	/**
+	 * Read a whole timeline, including all of its events.
+	 */
+	public Timeline read(File file) throws IOException;
+
+	/**
+	 * Write a timeline, replacing the file atomically.
+	 */
+	public void write(Timeline timeline, File file) throws IOException;
+
+	/**
+	 * Read a timeline and pass each of its events to the sink in file order. The returned
+	 * timeline holds everything in the file except the events.
+	 *
+	 * The default reads the whole file first, codecs that can do better should override it
+	 * and return true from supportsStreaming.
+	 */
+	public default Timeline read(File file, Consumer<Event> sink) throws IOException {
+		Timeline timeline = read(file);
+		timeline.getList().forEach(sink);
+		timeline.setList(new ArrayList<Event>());
+		return timeline;
+	}
+
+	/**
+	 * Returns true if read with a sink hands out events while the file is being read,
+	 * instead of after all of it has been read.
+	 */
+	public default boolean supportsStreaming() {
+		return false;
+	}
+
+	/**
+	 * Returns true if single events can be read without reading the events before them.
+	 */
+	public default boolean supportsRandomAccess() {
+		return false;
+	}
+}
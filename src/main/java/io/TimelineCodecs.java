@@ -0,0 +1,129 @@
+package io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Finds the TimelineCodec to use for a file. The codecs are loaded once with ServiceLoader.
+ *
+ * @version 0.00.00
+ * @name TimelineCodecs.java
+ */
+public final class TimelineCodecs {
+
+	private static final int SNIFF_LENGTH = 256;
+	private static final List<TimelineCodec> CODECS = loadCodecs();
+
+	private TimelineCodecs() {
+	}
+
+	/**
+	 * Returns all available codecs. The first one is the default format for new files.
+	 */
+	public static List<TimelineCodec> getCodecs() {
+		return CODECS;
+	}
+
+	/**
+	 * Returns the default codec, used when saving to a file without a known extension.
+	 */
+	public static TimelineCodec getDefault() {
+		return CODECS.get(0);
+	}
+
+	/**
+	 * Returns the codec for the extension of the file name, or null if no codec has it.
+	 * The longest matching extension wins, so "a.xml.gz" is compressed XML and not XML.
+	 */
+	public static TimelineCodec forFileName(String fileName) {
+		String name = fileName.toLowerCase();
+		TimelineCodec result = null;
+		int matched = 0;
+
+		for (TimelineCodec codec : CODECS) {
+			for (String extension : codec.getExtensions()) {
+				if (extension.length() > matched && name.endsWith(extension)) {
+					result = codec;
+					matched = extension.length();
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the codec that can read the file. The first bytes of the file are checked
+	 * first, so a file with the wrong extension is still read correctly, and the extension
+	 * is only used if no codec recognises the content.
+	 *
+	 * @throws IOException if the file can not be read or no codec can read it
+	 */
+	public static TimelineCodec forReading(File file) throws IOException {
+		byte[] header = new byte[SNIFF_LENGTH];
+		int length = 0;
+
+		try (InputStream in = new FileInputStream(file)) {
+			int read;
+
+			while (length < header.length && (read = in.read(header, length, header.length - length)) > 0) {
+				length += read;
+			}
+		}
+
+		TimelineCodec byName = forFileName(file.getName());
+
+		if (byName != null && byName.canRead(header, length)) {
+			return byName;
+		}
+
+		for (TimelineCodec codec : CODECS) {
+			if (codec.canRead(header, length)) {
+				return codec;
+			}
+		}
+
+		if (byName != null) {
+			return byName;
+		}
+
+		throw new IOException(file.getName() + " is not in a known timeline format");
+	}
+
+	/**
+	 * Returns the codec to save the file with, chosen by its extension.
+	 */
+	public static TimelineCodec forWriting(File file) {
+		TimelineCodec codec = forFileName(file.getName());
+		return codec != null ? codec : getDefault();
+	}
+
+	private static List<TimelineCodec> loadCodecs() {
+		List<TimelineCodec> codecs = new ArrayList<TimelineCodec>();
+
+		try {
+			for (TimelineCodec codec : ServiceLoader.load(TimelineCodec.class)) {
+				codecs.add(codec);
+			}
+		} catch (ServiceConfigurationError ex) {
+			System.err.println("Could not load timeline codecs. Message: " + ex.getMessage());
+		}
+
+		// Without the service file (for example when running from an IDE that does not copy
+		// resources) the built in formats are still available
+		if (codecs.isEmpty()) {
+			codecs.add(new XmlTimelineCodec());
+			codecs.add(new BinaryTimelineCodec());
+			codecs.add(new GzipXmlTimelineCodec());
+		}
+
+		return Collections.unmodifiableList(codecs);
+	}
+}
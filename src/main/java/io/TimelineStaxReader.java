@@ -0,0 +1,189 @@
+package io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import model.Event;
+import model.Event.EventType;
+import model.Timeline;
+
+/**
+ * Streaming reader for timeline XML files. Instead of building the whole document
+ * like JAXB does, the file is read one element at a time and each Event is handed
+ * over as soon as its closing tag has been read, so apart from the events themselves
+ * the memory used does not depend on the size of the file.
+ *
+ * Reads the same format as FileHandler.writeXML and gives the same result as
+ * unmarshalling the file with JAXB: unknown elements are skipped and values that can
+ * not be parsed are left as null.
+ *
+ * @version 0.00.00
+ * @name TimelineStaxReader.java
+ */
+public class TimelineStaxReader {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final XMLInputFactory FACTORY = createFactory();
+
+	private final LocalDateAdapter dateAdapter = new LocalDateAdapter();
+	private final LocalDateTimeAdapter dateTimeAdapter = new LocalDateTimeAdapter();
+	private final ColorAdapter colorAdapter = new ColorAdapter();
+
+	/**
+	 * Read a whole timeline, including all of its events.
+	 */
+	public Timeline read(File file) throws IOException, XMLStreamException {
+		ArrayList<Event> events = new ArrayList<Event>();
+		Timeline timeline = read(file, events::add);
+		timeline.setList(events);
+		return timeline;
+	}
+
+	/**
+	 * Read a timeline and pass each of its events to the given sink in file order. The
+	 * returned timeline holds the name, dates and path of the file but no events.
+	 */
+	public Timeline read(File file, Consumer<Event> sink) throws IOException, XMLStreamException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+			return read(in, sink);
+		}
+	}
+
+	/**
+	 * Read a timeline from a stream and pass each of its events to the given sink. The
+	 * stream is not closed.
+	 */
+	public Timeline read(InputStream in, Consumer<Event> sink) throws XMLStreamException {
+		XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+
+		try {
+			reader.nextTag();
+			reader.require(XMLStreamConstants.START_ELEMENT, null, "Timeline");
+
+			Timeline timeline = new Timeline();
+
+			while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+				switch (reader.getLocalName()) {
+				case "name":
+					timeline.setName(reader.getElementText());
+					break;
+				case "startDate":
+					timeline.setStartDate(parse(dateAdapter, reader.getElementText()));
+					break;
+				case "endDate":
+					timeline.setEndDate(parse(dateAdapter, reader.getElementText()));
+					break;
+				case "path":
+					timeline.setPath(reader.getElementText());
+					break;
+				case "nextId":
+					timeline.setNextId(parseInt(reader.getElementText(), 1));
+					break;
+				case "Event":
+					sink.accept(readEvent(reader));
+					break;
+				default:
+					skipElement(reader);
+				}
+			}
+
+			return timeline;
+		} finally {
+			reader.close();
+		}
+	}
+
+	private Event readEvent(XMLStreamReader reader) throws XMLStreamException {
+		Event event = new Event();
+
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			switch (reader.getLocalName()) {
+			case "eventId":
+				event.setId(parseInt(reader.getElementText(), 0));
+				break;
+			case "eventName":
+				event.setEventName(reader.getElementText());
+				break;
+			case "description":
+				event.setDescription(reader.getElementText());
+				break;
+			case "color":
+				event.setColor(parse(colorAdapter, reader.getElementText()));
+				break;
+			case "startDate":
+				event.setStartDate(parse(dateTimeAdapter, reader.getElementText()));
+				break;
+			case "endDate":
+				event.setEndDate(parse(dateTimeAdapter, reader.getElementText()));
+				break;
+			case "type":
+				event.setType(parseType(reader.getElementText()));
+				break;
+			default:
+				skipElement(reader);
+			}
+		}
+
+		return event;
+	}
+
+	/**
+	 * Skips the current element, including everything nested in it.
+	 */
+	private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+
+		while (depth > 0) {
+			int type = reader.next();
+
+			if (type == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (type == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private <T> T parse(XmlAdapter<String, T> adapter, String text) {
+		try {
+			return adapter.unmarshal(text);
+		} catch (Exception ex) {
+			return null; // JAXB reports the error and leaves the field unset, do the same
+		}
+	}
+
+	private int parseInt(String text, int defaultValue) {
+		try {
+			return Integer.parseInt(text.trim());
+		} catch (NumberFormatException ex) {
+			return defaultValue;
+		}
+	}
+
+	private EventType parseType(String text) {
+		try {
+			return EventType.valueOf(text.trim());
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	private static XMLInputFactory createFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return factory;
+	}
+}
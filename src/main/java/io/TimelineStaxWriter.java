@@ -0,0 +1,141 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import model.Event;
+import model.Timeline;
+
+/**
+ * Streaming writer for timeline XML files. The events are written one at a time
+ * through a buffered channel instead of first being marshalled into a document.
+ *
+ * The file is never written in place, see AtomicFileWriter. If anything goes wrong
+ * while saving, the previous version of the file is left as it was.
+ *
+ * The output has the same layout as the JAXB marshalled files, either indented like
+ * JAXB formatted output or, in compact mode, without any whitespace between elements.
+ * A writer is meant to be used by one thread at a time.
+ *
+ * @version 0.00.00
+ * @name TimelineStaxWriter.java
+ */
+public class TimelineStaxWriter {
+
+	private static final String INDENT = "    ";
+	private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
+
+	private final LocalDateAdapter dateAdapter = new LocalDateAdapter();
+	private final LocalDateTimeAdapter dateTimeAdapter = new LocalDateTimeAdapter();
+	private final ColorAdapter colorAdapter = new ColorAdapter();
+
+	private XMLStreamWriter writer;
+	private boolean compact;
+
+	/**
+	 * Write a timeline to a file, replacing the file atomically once everything has been written.
+	 *
+	 * @param timeline - the timeline to write
+	 * @param file - the file to write to
+	 * @param compact - true to leave out indentation and line breaks
+	 */
+	public void write(Timeline timeline, File file, boolean compact) throws IOException {
+		AtomicFileWriter.write(file, out -> {
+			try {
+				write(timeline, out, compact);
+			} catch (XMLStreamException ex) {
+				throw new IOException(ex);
+			}
+		});
+	}
+
+	/**
+	 * Write a timeline to a stream. The stream is flushed but not closed.
+	 */
+	public void write(Timeline timeline, OutputStream out, boolean compact) throws XMLStreamException {
+		this.compact = compact;
+		writer = FACTORY.createXMLStreamWriter(out, "UTF-8");
+
+		try {
+			writer.writeStartDocument("UTF-8", "1.0");
+			newLine(0);
+			writer.writeStartElement("Timeline");
+
+			writeElement(1, "name", timeline.getName());
+			writeElement(1, "startDate", format(dateAdapter, timeline.getStartDate()));
+			writeElement(1, "endDate", format(dateAdapter, timeline.getEndDate()));
+
+			for (Event e : timeline.getList()) {
+				writeEvent(e);
+			}
+
+			writeElement(1, "path", timeline.getPath());
+			writeElement(1, "nextId", String.valueOf(timeline.getMaxId()));
+
+			newLine(0);
+			writer.writeEndElement();
+			newLine(0);
+			writer.writeEndDocument();
+			writer.flush();
+		} finally {
+			writer.close();
+			writer = null;
+		}
+	}
+
+	private void writeEvent(Event event) throws XMLStreamException {
+		newLine(1);
+		writer.writeStartElement("Event");
+
+		writeElement(2, "eventId", String.valueOf(event.getId()));
+		writeElement(2, "eventName", event.getEventName());
+		writeElement(2, "description", event.getDescription());
+		writeElement(2, "color", format(colorAdapter, event.getColor()));
+		writeElement(2, "startDate", format(dateTimeAdapter, event.getStartDate()));
+		writeElement(2, "endDate", format(dateTimeAdapter, event.getEndDate()));
+		writeElement(2, "type", event.getType() != null ? event.getType().name() : null);
+
+		newLine(1);
+		writer.writeEndElement();
+	}
+
+	/**
+	 * Writes an element holding only text. Like JAXB, null values are left out entirely.
+	 */
+	private void writeElement(int depth, String name, String value) throws XMLStreamException {
+		if (value != null) {
+			newLine(depth);
+			writer.writeStartElement(name);
+			writer.writeCharacters(value);
+			writer.writeEndElement();
+		}
+	}
+
+	private void newLine(int depth) throws XMLStreamException {
+		if (!compact) {
+			writer.writeCharacters("\n");
+
+			for (int i = 0; i < depth; i++) {
+				writer.writeCharacters(INDENT);
+			}
+		}
+	}
+
+	private <T> String format(XmlAdapter<String, T> adapter, T value) {
+		if (value == null) {
+			return null;
+		}
+
+		try {
+			return adapter.marshal(value);
+		} catch (Exception ex) {
+			return null;
+		}
+	}
+}
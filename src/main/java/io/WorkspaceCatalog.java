@@ -0,0 +1,219 @@
+package io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Timeline;
+
+/**
+ * A small index of the timelines that were open when the program was last closed, so
+ * they can be listed again at startup without reading their files.
+ *
+ * For every timeline the catalog holds its name, dates, number of events and file, and
+ * the size and modification time of the file and its journal. An entry is only used if
+ * the file has not changed since, otherwise the file has to be read.
+ *
+ * The catalog is a UTF-8 text file with a version line followed by one line per timeline
+ * with tab separated fields. Tabs, line breaks and backslashes in names and paths are
+ * escaped with a backslash.
+ *
+ * @version 0.00.00
+ * @name WorkspaceCatalog.java
+ */
+public class WorkspaceCatalog {
+
+	private static final String CATALOG_PATH = System.getProperty("user.home") + "/Documents/Timeline Manager/workspace.catalog";
+	private static final String HEADER = "Timeline Manager workspace 1";
+
+	private final File catalogFile;
+
+	/**
+	 * A timeline in the catalog.
+	 */
+	public static class Entry {
+		private final String name;
+		private final LocalDate startDate;
+		private final LocalDate endDate;
+		private final int eventCount;
+		private final File file;
+		private final long size;
+		private final long modified;
+
+		private Entry(String name, LocalDate startDate, LocalDate endDate, int eventCount, File file, long size,
+				long modified) {
+			this.name = name;
+			this.startDate = startDate;
+			this.endDate = endDate;
+			this.eventCount = eventCount;
+			this.file = file;
+			this.size = size;
+			this.modified = modified;
+		}
+
+		/**
+		 * Create the entry of a timeline and its file. A timeline with unsaved changes is not
+		 * the same as its file, so its entry is never current.
+		 */
+		public static Entry of(Timeline timeline, File file) {
+			long size = timeline.getHasUnsavedChanges() ? -1 : sizeOf(file);
+			return new Entry(timeline.getName(), timeline.getStartDate(), timeline.getEndDate(),
+					timeline.getEventCount(), file, size, modifiedOf(file));
+		}
+
+		/**
+		 * Return true if the file has not changed since the entry was created.
+		 */
+		public boolean isCurrent() {
+			return file.exists() && size == sizeOf(file) && modified == modifiedOf(file);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public LocalDate getStartDate() {
+			return startDate;
+		}
+
+		public LocalDate getEndDate() {
+			return endDate;
+		}
+
+		public int getEventCount() {
+			return eventCount;
+		}
+
+		public File getFile() {
+			return file;
+		}
+	}
+
+	/**
+	 * Constructor for the catalog in the Timeline Manager folder.
+	 */
+	public WorkspaceCatalog() {
+		this(new File(CATALOG_PATH));
+	}
+
+	/**
+	 * Constructor for a catalog in another file.
+	 */
+	public WorkspaceCatalog(File catalogFile) {
+		this.catalogFile = catalogFile;
+	}
+
+	/**
+	 * Read the entries of the catalog. Returns an empty list if there is no catalog, and
+	 * skips lines that can not be read.
+	 */
+	public List<Entry> read() throws IOException {
+		List<Entry> entries = new ArrayList<Entry>();
+
+		if (!catalogFile.exists()) {
+			return entries;
+		}
+
+		try (BufferedReader in = Files.newBufferedReader(catalogFile.toPath(), StandardCharsets.UTF_8)) {
+			if (!HEADER.equals(in.readLine())) {
+				System.err.println("Ignoring workspace catalog of unknown version");
+				return entries;
+			}
+
+			String line;
+
+			while ((line = in.readLine()) != null) {
+				String[] fields = line.split("\t", -1);
+
+				try {
+					entries.add(new Entry(unescape(fields[0]), parseDate(fields[1]), parseDate(fields[2]),
+							Integer.parseInt(fields[3]), new File(unescape(fields[4])), Long.parseLong(fields[5]),
+							Long.parseLong(fields[6])));
+				} catch (RuntimeException ex) {
+					System.err.println("Ignoring damaged line in workspace catalog: " + line);
+				}
+			}
+		}
+
+		return entries;
+	}
+
+	/**
+	 * Replace the catalog with the given entries.
+	 */
+	public void write(List<Entry> entries) throws IOException {
+		catalogFile.getParentFile().mkdirs();
+
+		AtomicFileWriter.write(catalogFile, stream -> {
+			Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+			out.write(HEADER);
+			out.write('\n');
+
+			for (Entry e : entries) {
+				out.write(escape(e.name) + '\t' + formatDate(e.startDate) + '\t' + formatDate(e.endDate) + '\t'
+						+ e.eventCount + '\t' + escape(e.file.getAbsolutePath()) + '\t' + e.size + '\t' + e.modified);
+				out.write('\n');
+			}
+
+			out.flush();
+		});
+	}
+
+	/**
+	 * The size of a timeline file together with its journal.
+	 */
+	private static long sizeOf(File file) {
+		return file.length() + ChangeJournal.journalFileFor(file).length();
+	}
+
+	/**
+	 * The latest modification time of a timeline file and its journal.
+	 */
+	private static long modifiedOf(File file) {
+		return Math.max(file.lastModified(), ChangeJournal.journalFileFor(file).lastModified());
+	}
+
+	private static String formatDate(LocalDate date) {
+		return date != null ? date.toString() : "";
+	}
+
+	private static LocalDate parseDate(String text) {
+		return text.isEmpty() ? null : LocalDate.parse(text);
+	}
+
+	private static String escape(String text) {
+		if (text == null) {
+			return "\\0";
+		}
+
+		return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	private static String unescape(String text) {
+		if (text.equals("\\0")) {
+			return null;
+		}
+
+		StringBuilder result = new StringBuilder(text.length());
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			if (c == '\\' && i + 1 < text.length()) {
+				char next = text.charAt(++i);
+				result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+			} else {
+				result.append(c);
+			}
+		}
+
+		return result.toString();
+	}
+}
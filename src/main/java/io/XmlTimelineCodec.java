@@ -0,0 +1,88 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLStreamException;
+
+import model.Event;
+import model.Timeline;
+
+/**
+ * The XML format, read with TimelineStaxReader and written with TimelineStaxWriter.
+ *
+ * @version 0.00.00
+ * @name XmlTimelineCodec.java
+ */
+public class XmlTimelineCodec implements TimelineCodec {
+
+	private static final List<String> EXTENSIONS = Arrays.asList(".xml");
+
+	@Override
+	public String getName() {
+		return "XML";
+	}
+
+	@Override
+	public List<String> getExtensions() {
+		return EXTENSIONS;
+	}
+
+	@Override
+	public boolean canRead(byte[] header, int length) {
+		return looksLikeXml(header, length);
+	}
+
+	@Override
+	public Timeline read(File file) throws IOException {
+		try {
+			return new TimelineStaxReader().read(file);
+		} catch (XMLStreamException ex) {
+			throw new IOException(file.getName() + " is not a valid timeline file: " + ex.getMessage(), ex);
+		}
+	}
+
+	@Override
+	public Timeline read(File file, Consumer<Event> sink) throws IOException {
+		try {
+			return new TimelineStaxReader().read(file, sink);
+		} catch (XMLStreamException ex) {
+			throw new IOException(file.getName() + " is not a valid timeline file: " + ex.getMessage(), ex);
+		}
+	}
+
+	@Override
+	public void write(Timeline timeline, File file) throws IOException {
+		new TimelineStaxWriter().write(timeline, file, false);
+	}
+
+	@Override
+	public boolean supportsStreaming() {
+		return true;
+	}
+
+	/**
+	 * Returns true if the bytes start with a timeline root element, optionally preceded by
+	 * a byte order mark, white space and an XML declaration.
+	 */
+	static boolean looksLikeXml(byte[] header, int length) {
+		String text = new String(header, 0, length, StandardCharsets.UTF_8);
+
+		if (text.startsWith("\uFEFF")) {
+			text = text.substring(1);
+		}
+
+		text = text.trim();
+
+		if (text.startsWith("<?xml")) {
+			int end = text.indexOf("?>");
+			text = end < 0 ? "" : text.substring(end + 2).trim();
+		}
+
+		return text.startsWith("<Timeline");
+	}
+}
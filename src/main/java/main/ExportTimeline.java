@@ -0,0 +1,78 @@
+package main;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import io.EventExporter;
+import io.FileHandler;
+import model.Timeline;
+
+/**
+ * Exports a timeline file from the command line, without starting the user interface:
+ * 
+ * <pre>
+ * ExportTimeline &lt;timeline file&gt; &lt;export file&gt; [&lt;from&gt; &lt;to&gt;]
+ * </pre>
+ * 
+ * The format is given by the extension of the export file, see EventExporter. With a range
+ * only the events overlapping it are exported. The range is given as ISO dates, optionally
+ * with a time, for example 2018-01-01 or 2018-01-01T12:00.
+ * 
+ * @version 0.00.00
+ * @name ExportTimeline.java
+ */
+public class ExportTimeline {
+	
+	/**
+	 * Main method of the export.
+	 * 
+	 * @param args - the command line arguments described above
+	 */
+	public static void main(String[] args) {
+		if (args.length != 2 && args.length != 4) {
+			System.err.println("Usage: ExportTimeline <timeline file> <export file> [<from> <to>]");
+			System.exit(2);
+		}
+		
+		File source = new File(args[0]);
+		File target = new File(args[1]);
+		EventExporter exporter = EventExporter.forFile(target);
+		
+		if (exporter == null) {
+			System.err.println("Unknown export format: " + target.getName());
+			System.exit(2);
+		}
+		
+		try {
+			LocalDateTime from = args.length == 4 ? parseDate(args[2], false) : null;
+			LocalDateTime to = args.length == 4 ? parseDate(args[3], true) : null;
+			
+			long start = System.nanoTime();
+			Timeline timeline = new FileHandler().openTimeline(source);
+			int count = exporter.write(timeline, from, to, target);
+			
+			System.out.printf("Exported %d events to %s in %.1f s%n", count, target.getPath(), (System.nanoTime() - start) / 1e9);
+		} catch (DateTimeParseException ex) {
+			System.err.println("Not a date: " + ex.getParsedString());
+			System.exit(2);
+		} catch (Exception ex) {
+			System.err.println("Could not export " + source.getPath() + ". Error: " + ex.getMessage());
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Read a date with an optional time. A date without a time is the start of the day, or
+	 * for the end of the range the end of the day.
+	 */
+	private static LocalDateTime parseDate(String text, boolean endOfDay) {
+		if (text.contains("T")) {
+			return LocalDateTime.parse(text);
+		}
+		
+		LocalDate date = LocalDate.parse(text);
+		return endOfDay ? date.plusDays(1).atStartOfDay().minusNanos(1) : date.atStartOfDay();
+	}
+}
@@ -61,6 +61,19 @@ public class Event {
 
 	}
 
+	/**
+	 * Copy constructor. Creates a new event with the same values as the given event.
+	 */
+	public Event(Event other) {
+		this.eventId = other.eventId;
+		this.eventName = other.eventName;
+		this.description = other.description;
+		this.color = other.color;
+		this.startDate = other.startDate;
+		this.endDate = other.endDate;
+		this.type = other.type;
+	}
+
 	/**
 	 * Returns string representation for a Event Fields.
 	 */
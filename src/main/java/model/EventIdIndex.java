@@ -0,0 +1,161 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hash index from event id to the position (slot) of the event in the event list
+ * of a timeline. Keys and values are kept in primitive int arrays using open
+ * addressing with linear probing, so lookups do not box the id and do not
+ * allocate.
+ *
+ * @version 0.00.00
+ * @name EventIdIndex.java
+ */
+public class EventIdIndex {
+
+	private static final int EMPTY = Integer.MIN_VALUE;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int[] keys;
+	private int[] slots;
+	private int size;
+
+	public EventIdIndex() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Returns the slot stored for an id, or -1 if the id is not in the index.
+	 */
+	public int get(int id) {
+		if (id == EMPTY) {
+			return -1;
+		}
+
+		int mask = keys.length - 1;
+
+		for (int i = hash(id) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+			if (keys[i] == id) {
+				return slots[i];
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Stores the slot of an id, replacing any slot previously stored for it.
+	 */
+	public void put(int id, int slot) {
+		if (id == EMPTY) {
+			return;
+		}
+
+		if ((size + 1) * 2 > keys.length) {
+			grow();
+		}
+
+		int mask = keys.length - 1;
+		int i = hash(id) & mask;
+
+		while (keys[i] != EMPTY) {
+			if (keys[i] == id) {
+				slots[i] = slot;
+				return;
+			}
+
+			i = (i + 1) & mask;
+		}
+
+		keys[i] = id;
+		slots[i] = slot;
+		size++;
+	}
+
+	/**
+	 * Removes an id from the index.
+	 */
+	public void remove(int id) {
+		if (id == EMPTY) {
+			return;
+		}
+
+		int mask = keys.length - 1;
+		int i = hash(id) & mask;
+
+		while (keys[i] != id) {
+			if (keys[i] == EMPTY) {
+				return;
+			}
+
+			i = (i + 1) & mask;
+		}
+
+		// Shift following entries of the probe sequence back so no tombstones are needed
+		int gap = i;
+
+		for (int j = (gap + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+			int home = hash(keys[j]) & mask;
+
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = keys[j];
+				slots[gap] = slots[j];
+				gap = j;
+			}
+		}
+
+		keys[gap] = EMPTY;
+		size--;
+	}
+
+	/**
+	 * Clears the index and stores the position of every event in the list.
+	 */
+	public void rebuild(List<Event> events) {
+		int capacity = INITIAL_CAPACITY;
+
+		while (capacity < events.size() * 2) {
+			capacity <<= 1;
+		}
+
+		allocate(capacity);
+
+		for (int i = 0; i < events.size(); i++) {
+			if (events.get(i) != null) {
+				put(events.get(i).getId(), i);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of ids in the index.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		int[] oldSlots = slots;
+		allocate(keys.length * 2);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				put(oldKeys[i], oldSlots[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		slots = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+	private static int hash(int id) {
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,262 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import model.Event.EventType;
+
+/**
+ * Augmented interval tree over the events of a timeline. Every node is keyed on
+ * the start date (and id, to keep keys unique) of its event and additionally
+ * stores the latest end date found in its subtree, which lets overlap queries
+ * skip whole subtrees that end before the queried range.
+ *
+ * Non-duration events are stored as points, i.e. their end equals their start.
+ *
+ * The tree is a randomized treap, so insert, remove and queries run in expected
+ * O(log n), respectively O(log n + k) where k is the number of reported events.
+ *
+ * The start and end of an event are copied into the node when it is inserted.
+ * An event must therefore be removed from the tree before its dates are changed
+ * and inserted again afterwards.
+ *
+ * @version 0.00.00
+ * @name EventIntervalTree.java
+ */
+public class EventIntervalTree {
+
+	private Node root;
+	private int size;
+	private final Random random = new Random();
+
+	/**
+	 * Adds an event to the tree. Events without a start date are ignored since
+	 * they can not overlap anything.
+	 */
+	public void insert(Event event) {
+		if (event.getStartDate() != null) {
+			root = insert(root, new Node(event, startOf(event), endOf(event), random.nextInt()));
+			size++;
+		}
+	}
+
+	/**
+	 * Removes an event from the tree using the dates it had when it was inserted.
+	 *
+	 * @return true if the event was found and removed
+	 */
+	public boolean remove(Event event) {
+		if (event.getStartDate() == null) {
+			return false;
+		}
+
+		int sizeBefore = size;
+		root = remove(root, event, startOf(event));
+		return size < sizeBefore;
+	}
+
+	/**
+	 * Removes every event from the tree and inserts the given events instead.
+	 */
+	public void rebuild(List<Event> events) {
+		root = null;
+		size = 0;
+
+		if (events != null) {
+			for (Event e : events) {
+				if (e != null) {
+					insert(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns every event whose interval intersects the closed range [from, to],
+	 * ordered by start date.
+	 */
+	public List<Event> overlapping(LocalDateTime from, LocalDateTime to) {
+		List<Event> result = new ArrayList<Event>();
+
+		if (!from.isAfter(to)) {
+			collect(root, from, to, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the number of events in the tree.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the start of an event as it is stored in the tree.
+	 */
+	public static LocalDateTime startOf(Event event) {
+		return event.getStartDate();
+	}
+
+	/**
+	 * Returns the end of an event as it is stored in the tree. Non-duration events,
+	 * and duration events that lack an end date, end at their start.
+	 */
+	public static LocalDateTime endOf(Event event) {
+		if (event.getType() == EventType.DURATION && event.getEndDate() != null
+				&& event.getEndDate().isAfter(event.getStartDate())) {
+			return event.getEndDate();
+		}
+
+		return event.getStartDate();
+	}
+
+	/**
+	 * Returns true if the event would be reported by a query for the closed range [from, to].
+	 */
+	public static boolean overlaps(Event event, LocalDateTime from, LocalDateTime to) {
+		return event.getStartDate() != null && !event.getStartDate().isAfter(to) && !endOf(event).isBefore(from);
+	}
+
+	private Node insert(Node node, Node toInsert) {
+		if (node == null) {
+			return toInsert;
+		}
+
+		if (compare(toInsert.start, toInsert.event.getId(), node) < 0) {
+			node.left = insert(node.left, toInsert);
+
+			if (node.left.priority > node.priority) {
+				node = rotateRight(node);
+			}
+		} else {
+			node.right = insert(node.right, toInsert);
+
+			if (node.right.priority > node.priority) {
+				node = rotateLeft(node);
+			}
+		}
+
+		update(node);
+		return node;
+	}
+
+	private Node remove(Node node, Event event, LocalDateTime start) {
+		if (node == null) {
+			return null;
+		}
+
+		int cmp = compare(start, event.getId(), node);
+
+		if (cmp == 0 && node.event == event) {
+			size--;
+			return merge(node.left, node.right);
+		} else if (cmp < 0) {
+			node.left = remove(node.left, event, start);
+		} else if (cmp > 0) {
+			node.right = remove(node.right, event, start);
+		} else {
+			// Same key but a different event object (duplicate ids), look on both sides
+			int sizeBefore = size;
+			node.left = remove(node.left, event, start);
+
+			if (size == sizeBefore) {
+				node.right = remove(node.right, event, start);
+			}
+		}
+
+		update(node);
+		return node;
+	}
+
+	private Node merge(Node left, Node right) {
+		if (left == null) {
+			return right;
+		} else if (right == null) {
+			return left;
+		} else if (left.priority > right.priority) {
+			left.right = merge(left.right, right);
+			update(left);
+			return left;
+		} else {
+			right.left = merge(left, right.left);
+			update(right);
+			return right;
+		}
+	}
+
+	private void collect(Node node, LocalDateTime from, LocalDateTime to, List<Event> result) {
+		if (node == null || node.maxEnd.isBefore(from)) {
+			return; // nothing in this subtree reaches the range
+		}
+
+		collect(node.left, from, to, result);
+
+		if (node.start.isAfter(to)) {
+			return; // this node and everything to the right starts after the range
+		}
+
+		if (!node.end.isBefore(from)) {
+			result.add(node.event);
+		}
+
+		collect(node.right, from, to, result);
+	}
+
+	private int compare(LocalDateTime start, int id, Node node) {
+		int cmp = start.compareTo(node.start);
+		return cmp != 0 ? cmp : Integer.compare(id, node.event.getId());
+	}
+
+	private Node rotateRight(Node node) {
+		Node left = node.left;
+		node.left = left.right;
+		left.right = node;
+		update(node);
+		update(left);
+		return left;
+	}
+
+	private Node rotateLeft(Node node) {
+		Node right = node.right;
+		node.right = right.left;
+		right.left = node;
+		update(node);
+		update(right);
+		return right;
+	}
+
+	private void update(Node node) {
+		LocalDateTime max = node.end;
+
+		if (node.left != null && node.left.maxEnd.isAfter(max)) {
+			max = node.left.maxEnd;
+		}
+		if (node.right != null && node.right.maxEnd.isAfter(max)) {
+			max = node.right.maxEnd;
+		}
+
+		node.maxEnd = max;
+	}
+
+	private static class Node {
+		private final Event event;
+		private final LocalDateTime start;
+		private final LocalDateTime end;
+		private final int priority;
+		private LocalDateTime maxEnd;
+		private Node left;
+		private Node right;
+
+		private Node(Event event, LocalDateTime start, LocalDateTime end, int priority) {
+			this.event = event;
+			this.start = start;
+			this.end = end;
+			this.maxEnd = end;
+			this.priority = priority;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package model;
+
+import java.io.IOException;
+
+/**
+ * Where the events of a timeline that is not loaded can be read from, see Timeline.detach.
+ * 
+ * @version 0.00.00
+ * @name EventSource.java
+ */
+public interface EventSource {
+	
+	/**
+	 * Return the number of events in the source.
+	 */
+	public int size();
+	
+	/**
+	 * Read the complete timeline, including all of its events.
+	 */
+	public Timeline load() throws IOException;
+	
+	/**
+	 * Release what the source holds open, for when the timeline no longer reads from it. The
+	 * source can not be used afterwards.
+	 */
+	public default void close() {
+	}
+}
@@ -0,0 +1,67 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Event.EventType;
+
+/**
+ * The rules an event must follow to be added to a timeline. Used both when the user enters an
+ * event in the EventPopup and when events are imported in bulk.
+ * 
+ * @version 0.00.00
+ * @name EventValidator.java
+ */
+public final class EventValidator {
+	
+	private EventValidator() {
+	}
+	
+	/**
+	 * Check the values of an event against the rules.
+	 * 
+	 * @param title - the title of the event
+	 * @param type - the type of the event, or null if none has been selected
+	 * @param startDate - the start of the event
+	 * @param endDate - the end of the event, only used for duration events
+	 * @param timeline - the timeline the event belongs to
+	 * 
+	 * @return a description of each broken rule, empty if the event is valid
+	 */
+	public static List<String> check(String title, EventType type, LocalDateTime startDate, LocalDateTime endDate,
+			Timeline timeline) {
+		
+		List<String> problems = new ArrayList<String>();
+		boolean isDurationEvent = type == EventType.DURATION;
+		
+		if (title == null || title.isEmpty()) {
+			problems.add("Title must not be empty.");
+		} if (type == null) {
+			problems.add("An event type must be selected.");
+		} else if (isDurationEvent && (startDate == null || endDate == null)) {	// valid duration dates and time?
+			problems.add("A start and end date and time must be selected for duration events.");
+		} else if (!isDurationEvent && (startDate == null)) {	// valid non-duration dates and time?
+			problems.add("A start date and start time must be selected for non-duration events.");
+		} else if (isDurationEvent && startDate.isAfter(endDate)) {
+			problems.add("End Date can not be before Start Date.");
+		} else if (!isDatesWithinTimeline(startDate, isDurationEvent ? endDate : null, timeline)) {
+			problems.add(String.format("Event date(s) must be within range %s - %s.",
+					timeline.getStartDate(), timeline.getEndDate()));
+		}
+		
+		return problems;
+	}
+	
+	private static boolean isDatesWithinTimeline(LocalDateTime eventStart, LocalDateTime eventEnd, Timeline timeline) {
+		if (eventEnd == null) { // non-duration event?
+			return eventStart.toLocalDate().minusDays(1).isBefore(timeline.getEndDate()) 
+					&& eventStart.toLocalDate().plusDays(1).isAfter(timeline.getStartDate());
+		} else {
+			return eventStart.toLocalDate().minusDays(1).isBefore(timeline.getEndDate()) 
+					&& eventStart.toLocalDate().plusDays(1).isAfter(timeline.getStartDate())
+					&& eventEnd.toLocalDate().plusDays(1).isAfter(timeline.getStartDate()) 
+					&& eventEnd.toLocalDate().minusDays(1).isBefore(timeline.getEndDate());
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package model;
+
+/**
+ * Describes a single change made to TimelineContainer. A list of these is passed to
+ * ModelChangedListener so listeners can update only what actually changed instead of
+ * redrawing everything.
+ *
+ * For event changes, getOldEvent holds a copy of the event as it was before the change
+ * (null for added events) and getNewEvent the event as it is stored in the timeline after
+ * the change (null for removed events). For ACTIVE_CHANGED, getOldTimeline holds the
+ * previously active timeline and getTimeline the new one.
+ *
+ * A notification holds at most one change per event, see TimelineContainer, so getNewEvent
+ * shows the event as it is after the last change of the notification.
+ *
+ * @version 0.00.00
+ * @name ModelChange.java
+ */
+public class ModelChange {
+
+	public enum Type {
+		EVENT_ADDED, EVENT_UPDATED, EVENT_REMOVED, TIMELINE_ADDED, TIMELINE_REMOVED, ACTIVE_CHANGED
+	}
+
+	private final Type type;
+	private final Timeline timeline;
+	private final Timeline oldTimeline;
+	private final Event oldEvent;
+	private final Event newEvent;
+
+	private ModelChange(Type type, Timeline timeline, Timeline oldTimeline, Event oldEvent, Event newEvent) {
+		this.type = type;
+		this.timeline = timeline;
+		this.oldTimeline = oldTimeline;
+		this.oldEvent = oldEvent;
+		this.newEvent = newEvent;
+	}
+
+	public static ModelChange eventAdded(Timeline timeline, Event event) {
+		return new ModelChange(Type.EVENT_ADDED, timeline, null, null, event);
+	}
+
+	public static ModelChange eventUpdated(Timeline timeline, Event oldEvent, Event newEvent) {
+		return new ModelChange(Type.EVENT_UPDATED, timeline, null, oldEvent, newEvent);
+	}
+
+	public static ModelChange eventRemoved(Timeline timeline, Event event) {
+		return new ModelChange(Type.EVENT_REMOVED, timeline, null, event, null);
+	}
+
+	public static ModelChange timelineAdded(Timeline timeline) {
+		return new ModelChange(Type.TIMELINE_ADDED, timeline, null, null, null);
+	}
+
+	public static ModelChange timelineRemoved(Timeline timeline) {
+		return new ModelChange(Type.TIMELINE_REMOVED, timeline, null, null, null);
+	}
+
+	public static ModelChange activeChanged(Timeline oldActive, Timeline newActive) {
+		return new ModelChange(Type.ACTIVE_CHANGED, newActive, oldActive, null, null);
+	}
+
+	/**
+	 * Returns the type of the change.
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the timeline the change was made to. For ACTIVE_CHANGED this is the new
+	 * active timeline, which may be null.
+	 */
+	public Timeline getTimeline() {
+		return timeline;
+	}
+
+	/**
+	 * Returns the previously active timeline for ACTIVE_CHANGED, otherwise null.
+	 */
+	public Timeline getOldTimeline() {
+		return oldTimeline;
+	}
+
+	/**
+	 * Returns a copy of the event before the change, or null if the event was added.
+	 */
+	public Event getOldEvent() {
+		return oldEvent;
+	}
+
+	/**
+	 * Returns the event after the change, or null if the event was removed.
+	 */
+	public Event getNewEvent() {
+		return newEvent;
+	}
+
+	/**
+	 * Returns the id of the changed event, or -1 if this is not an event change.
+	 */
+	public int getEventId() {
+		if (newEvent != null) {
+			return newEvent.getId();
+		} else if (oldEvent != null) {
+			return oldEvent.getId();
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns true if this change concerns a single event rather than a whole timeline.
+	 */
+	public boolean isEventChange() {
+		return type == Type.EVENT_ADDED || type == Type.EVENT_UPDATED || type == Type.EVENT_REMOVED;
+	}
+
+	@Override
+	public String toString() {
+		return "ModelChange [ Type:" + type + " , Timeline:" + (timeline != null ? timeline.getName() : null)
+				+ " , EventId:" + getEventId() + "]";
+	}
+}
@@ -1,10 +1,17 @@
 package model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -12,6 +19,7 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
+import interfaces.UnsavedChangesListener;
 import javafx.scene.paint.Color;
 import model.Event.EventType;
 
@@ -30,6 +38,10 @@ import model.Event.EventType;
 
 public class Timeline {
 
+	// Rough number of bytes used by an event, its dates, color and entries in the indexes,
+	// not counting the characters of its name and description
+	private static final int EVENT_OVERHEAD = 240;
+
 	@XmlElement(name="name")
 	private String timelineName;
 	@XmlJavaTypeAdapter(value = io.LocalDateAdapter.class)
@@ -39,8 +51,27 @@ public class Timeline {
 	@XmlElement(name = "Event")
 	private ArrayList<Event> eventList;
 	private String path = "";
+	private int nextId = 1;
 	@XmlTransient
 	private boolean hasUnsavedChanges;
+	@XmlTransient
+	private EventIntervalTree intervalIndex = new EventIntervalTree();
+	@XmlTransient
+	private EventIdIndex idIndex = new EventIdIndex();
+	@XmlTransient
+	private int deletedSlots; // Slots of deleted events, null until the list is compacted
+	@XmlTransient
+	private boolean indexed = true; // false until the indexes have been built for the event list
+	@XmlTransient
+	private long version;
+	@XmlTransient
+	private UnsavedChangesListener unsavedChangesListener;
+	@XmlTransient
+	private EventSource source;
+	@XmlTransient
+	private long residentSize = -1;
+	@XmlTransient
+	private long residentSizeVersion;
 
 	/**
 	 * Empty constructor.
@@ -58,6 +89,18 @@ public class Timeline {
 
 	}
 
+	/**
+	 * Called by JAXB after the timeline has been read from XML. The event list is
+	 * set directly on the field so the indexes have to be rebuilt here.
+	 */
+	void afterUnmarshal(Unmarshaller unmarshaller, Object parent) {
+		if (eventList == null) {
+			eventList = new ArrayList<Event>();
+		}
+
+		rebuildIndexes();
+	}
+
 	/**
 	 * Return string representation for a TimeLine Fields.
 	 */
@@ -79,6 +122,7 @@ public class Timeline {
 	 */
 	public void setName(String name) {
 		timelineName = name;
+		version++;
 	}
 
 	/**
@@ -93,6 +137,7 @@ public class Timeline {
 	 */
 	public void setStartDate(LocalDate startDate) {
 		this.startDate = startDate;
+		version++;
 	}
 
 	/**
@@ -107,53 +152,313 @@ public class Timeline {
 	 */
 	public void setEndDate(LocalDate endDate) {
 		this.endDate = endDate;
+		version++;
 	}
 
 	/**
 	 * Add an event of type Event.
 	 */
 	public void add(String name, String desc, LocalDateTime start, LocalDateTime end, EventType type, Color color) {
-		eventList.add(new Event(getMaxId(), name, desc, start, end, type, color));
-		
-		for (Event e : eventList) {
-			System.out.println(e);
-		}
+		add(new Event(0, name, desc, start, end, type, color));
+	}
+	
+	/**
+	 * Add an already created event. The event is given the next free id of this timeline.
+	 */
+	public void add(Event event) {
+		ensureResident();
+		ensureIndexed();
+		event.setId(nextId++);
+		version++;
+		eventList.add(event);
+		idIndex.put(event.getId(), eventList.size() - 1);
+		intervalIndex.insert(event);
 	}
 	
 	/**
 	 * Update an event of type Event.
 	 */
 	public void update(Event event, String name, String desc, LocalDateTime start, LocalDateTime end, EventType type, Color color){
-		eventList.get(eventList.indexOf(event)).setEventName(name);
-		eventList.get(eventList.indexOf(event)).setDescription(desc);
-		eventList.get(eventList.indexOf(event)).setStartDate(start);
-		eventList.get(eventList.indexOf(event)).setType(type);
-		eventList.get(eventList.indexOf(event)).setColor(color);
+		ensureResident();
+		ensureIndexed();
+		intervalIndex.remove(event); // the index copies the dates, so re-insert after changing them
+		version++;
+		
+		event.setEventName(name);
+		event.setDescription(desc);
+		event.setStartDate(start);
+		event.setType(type);
+		event.setColor(color);
 		
 		if (type == EventType.DURATION) {
-			eventList.get(eventList.indexOf(event)).setEndDate(end);
+			event.setEndDate(end);
 		}
+		
+		intervalIndex.insert(event);
 	}
 	
 	/**
-	 * Delete an event of type Event.
+	 * Delete an event of type Event in constant time. Its slot in the list is only cleared,
+	 * the list is compacted the next time it is handed out or once half of it is cleared
+	 * slots, so the other events keep their order without moving on every delete.
 	 */
 	public void delete(Event event){
-		eventList.remove(event);
+		ensureResident();
+		ensureIndexed();
+		version++;
+		int slot = idIndex.get(event.getId());
+		
+		if (slot >= 0 && slot < eventList.size() && eventList.get(slot) == event) {
+			eventList.set(slot, null);
+			idIndex.remove(event.getId());
+			
+			if (++deletedSlots > eventList.size() / 2) {
+				compact();
+			}
+		} else {
+			compact();
+			
+			if (eventList.remove(event)) {
+				idIndex.rebuild(eventList);
+			}
+		}
+		
+		intervalIndex.remove(event);
+	}
+	
+	/**
+	 * Delete several events at once. The other events keep their order. The list is gone
+	 * through once for all of the events instead of once for each of them.
+	 */
+	public void delete(Collection<Event> events) {
+		ensureResident();
+		ensureIndexed();
+		
+		if (events.isEmpty()) {
+			return;
+		}
+		
+		version++;
+		Set<Event> deleted = Collections.newSetFromMap(new IdentityHashMap<Event, Boolean>());
+		deleted.addAll(events);
+		eventList.removeIf(e -> e == null || deleted.contains(e));
+		deletedSlots = 0;
+		idIndex.rebuild(eventList);
+		
+		for (Event e : deleted) {
+			intervalIndex.remove(e);
+		}
+	}
+	
+	/**
+	 * Return the event with the given id, or null if there is no such event in this timeline.
+	 */
+	public Event getEventById(int id) {
+		ensureResident();
+		ensureIndexed();
+		int slot = idIndex.get(id);
+		
+		// The list has been changed without going through this class, start over. An id that
+		// is simply not in the timeline is not a reason to.
+		if (idIndex.size() != eventList.size() - deletedSlots || (slot >= 0
+				&& (slot >= eventList.size() || eventList.get(slot) == null || eventList.get(slot).getId() != id))) {
+			compact();
+			idIndex.rebuild(eventList);
+			slot = idIndex.get(id);
+		}
+		
+		return slot >= 0 ? eventList.get(slot) : null;
 	}
 
 	/**
 	 * Return a list of type Event.
 	 */
 	public ArrayList<Event> getList() {
+		ensureResident();
+		compact();
 		return eventList;
 	}
 
+	/**
+	 * Return at most count events from the given position in the list of events. A windowed
+	 * timeline reads them from its source without becoming resident, so all of its events can
+	 * be gone through a page at a time. Those events are copies, like with eventsOverlapping.
+	 */
+	public List<Event> getEvents(int first, int count) {
+		if (source instanceof WindowedEventSource) {
+			try {
+				return ((WindowedEventSource) source).readEvents(first, count);
+			} catch (IOException ex) {
+				throw new UncheckedIOException("Could not read the events of timeline " + timelineName, ex);
+			}
+		}
+		
+		ensureResident();
+		compact();
+		return eventList.subList(Math.min(first, eventList.size()), Math.min(first + count, eventList.size()));
+	}
+
 	/**
 	 * Set eventList.
 	 */
 	public void setList(ArrayList<Event> eventList) {
 		this.eventList = eventList;
+		source = null;
+		version++;
+		rebuildIndexes();
+	}
+	
+	/**
+	 * Return the events that overlap the range [from, to], both inclusive, ordered by
+	 * start date. Non-duration events are treated as points in time.
+	 * 
+	 * Runs in O(log n + k) where k is the number of returned events. A timeline with a
+	 * windowed source reads only the events in the range from the source, without becoming
+	 * resident. Those events are copies, changes to them must go through getEventById.
+	 */
+	public List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+		if (source instanceof WindowedEventSource) {
+			try {
+				return ((WindowedEventSource) source).eventsOverlapping(from, to);
+			} catch (IOException ex) {
+				throw new UncheckedIOException("Could not read the events of timeline " + timelineName, ex);
+			}
+		}
+		
+		ensureResident();
+		ensureIndexed();
+		return intervalIndex.overlapping(from, to);
+	}
+	
+	/**
+	 * Return the events that are taking place at the given point in time, ordered by
+	 * start date.
+	 */
+	public List<Event> eventsAt(LocalDateTime instant) {
+		return eventsOverlapping(instant, instant);
+	}
+	
+	/**
+	 * Return false if the events of this timeline are not in memory but have to be read from
+	 * its event source first.
+	 */
+	public boolean isResident() {
+		return source == null;
+	}
+	
+	/**
+	 * Return true if the timeline is not resident but can read the events in a range of time
+	 * from its source, see eventsOverlapping.
+	 */
+	public boolean isWindowed() {
+		return source instanceof WindowedEventSource;
+	}
+	
+	/**
+	 * Return the source the events of a windowed timeline are read from, or null if the
+	 * timeline is not windowed. The source can be read on another thread, it throws an
+	 * IOException once the timeline no longer reads from it.
+	 */
+	public WindowedEventSource getWindowedSource() {
+		return source instanceof WindowedEventSource ? (WindowedEventSource) source : null;
+	}
+	
+	/**
+	 * Return the number of events, without reading them if the timeline is not resident.
+	 */
+	public int getEventCount() {
+		return source != null ? source.size() : eventList.size() - deletedSlots;
+	}
+	
+	/**
+	 * Return an estimate of the memory used by the events of this timeline in bytes, 0 if the
+	 * timeline is not resident. The estimate is kept until the timeline changes.
+	 */
+	public long getResidentSize() {
+		if (source != null) {
+			return 0;
+		}
+		
+		if (residentSize < 0 || residentSizeVersion != version) {
+			long size = 0;
+			
+			for (Event e : eventList) {
+				if (e != null) {
+					size += EVENT_OVERHEAD + 2L * (length(e.getEventName()) + length(e.getDescription()));
+				}
+			}
+			
+			residentSize = size;
+			residentSizeVersion = version;
+		}
+		
+		return residentSize;
+	}
+	
+	private static int length(String text) {
+		return text != null ? text.length() : 0;
+	}
+	
+	/**
+	 * Drop the events of this timeline from memory. They are read from the source again the
+	 * next time they are needed, either with load or, blocking, by any method that uses them.
+	 * Changes to the timeline must have been saved to the source first.
+	 * 
+	 * @param source - where the events can be read from
+	 */
+	public void detach(EventSource source) {
+		if (this.source != null && this.source != source) {
+			this.source.close();
+		}
+		
+		this.source = source;
+		eventList = new ArrayList<Event>();
+		rebuildIndexes();
+	}
+	
+	/**
+	 * Read the events of a timeline that is not resident from its source.
+	 */
+	public void load() throws IOException {
+		if (source != null) {
+			attach(source.load());
+		}
+	}
+	
+	/**
+	 * Make a timeline that is not resident take over the events and other fields of a timeline
+	 * that has been read from its source, for when it has been read on another thread. If the
+	 * loaded timeline is itself not resident its source is taken over instead, and the old
+	 * source is closed. Does nothing if the timeline is already resident.
+	 * 
+	 * @param loaded - the timeline read from the source
+	 */
+	public void attach(Timeline loaded) {
+		if (source != null) {
+			timelineName = loaded.timelineName;
+			startDate = loaded.startDate;
+			endDate = loaded.endDate;
+			path = loaded.path;
+			nextId = Math.max(nextId, loaded.nextId);
+			
+			if (loaded.source != null) {
+				detach(loaded.source);
+			} else {
+				EventSource old = source;
+				setList(loaded.getList());
+				old.close();
+			}
+		}
+	}
+	
+	private void ensureResident() {
+		if (source != null) {
+			try {
+				load();
+			} catch (IOException ex) {
+				throw new UncheckedIOException("Could not read the events of timeline " + timelineName, ex);
+			}
+		}
 	}
 	
 	/**
@@ -170,25 +475,119 @@ public class Timeline {
 	 */
 	public void setPath(String path){
 		this.path = path;
+		version++;
 	}
 	
 	/**
-	 * Return auto increment id for an event.
+	 * Return auto increment id for an event, i.e. the id the next added event will get.
+	 * Ids are never reused, also not after the event holding the highest id is deleted.
 	 */
 	public int getMaxId() {
-		Collections.sort(this.eventList, new Comparator<Event>() {
-			@Override
-			public int compare(Event first, Event second) {
-				if (first == null) {
-					System.out.println("first null");
-				} else if (second == null) {
-					System.out.println("second null");
-				}
-				return first.getId() - second.getId();
+		return nextId;
+	}
+	
+	/**
+	 * Set the id the next added event will get. Used when a timeline is read from file.
+	 * The id is raised above the highest event id when the event list is set.
+	 */
+	public void setNextId(int nextId) {
+		this.nextId = nextId;
+	}
+	
+	/**
+	 * Return a number that changes every time this timeline or one of its events is changed
+	 * through this class. Used to tell if a timeline has been changed since it was saved.
+	 */
+	public long getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Return a copy of this timeline with copies of all events, so it can be read by another
+	 * thread while this timeline keeps changing. The copy has the same version as this timeline.
+	 * Its indexes are only built if it is used for more than going through its events.
+	 */
+	public Timeline snapshot() {
+		ensureResident();
+		compact();
+		ArrayList<Event> events = new ArrayList<Event>(eventList.size());
+		
+		for (Event e : eventList) {
+			events.add(new Event(e));
+		}
+		
+		Timeline copy = new Timeline(timelineName);
+		copy.path = path;
+		copy.startDate = startDate;
+		copy.endDate = endDate;
+		copy.eventList = events;
+		copy.indexed = false;
+		copy.nextId = nextId;
+		copy.version = version;
+		return copy;
+	}
+	
+	/**
+	 * Return a copy of a windowed timeline that reads its events from a source of its own, so
+	 * it can be read by another thread while this timeline keeps changing, even once this one
+	 * has been read completely and has closed its source. The copy must be released with
+	 * releaseSource once it is no longer needed. Other timelines are copied with snapshot.
+	 */
+	public Timeline windowedSnapshot() throws IOException {
+		if (!(source instanceof WindowedEventSource)) {
+			throw new IllegalStateException("Timeline " + timelineName + " is not windowed");
+		}
+		
+		Timeline copy = new Timeline(timelineName);
+		copy.path = path;
+		copy.startDate = startDate;
+		copy.endDate = endDate;
+		copy.nextId = nextId;
+		copy.version = version;
+		copy.source = ((WindowedEventSource) source).open();
+		return copy;
+	}
+	
+	/**
+	 * Close the source of a timeline that is not resident, for a copy from windowedSnapshot
+	 * that is no longer needed. The events of the timeline can not be read afterwards.
+	 */
+	public void releaseSource() {
+		if (source != null) {
+			source.close();
+		}
+	}
+	
+	private void ensureIndexed() {
+		if (!indexed) {
+			rebuildIndexes();
+		}
+	}
+	
+	/**
+	 * Remove the cleared slots of deleted events from the list.
+	 */
+	private void compact() {
+		if (deletedSlots > 0) {
+			eventList.removeIf(e -> e == null);
+			deletedSlots = 0;
+			idIndex.rebuild(eventList);
+		}
+	}
+	
+	private void rebuildIndexes() {
+		eventList.removeIf(e -> e == null);
+		deletedSlots = 0;
+		idIndex.rebuild(eventList);
+		intervalIndex.rebuild(eventList);
+		indexed = true;
+		
+		// Files saved before the counter was stored have no nextId, continue after the highest id
+		for (Event e : eventList) {
+			if (e != null && e.getId() >= nextId) {
+				nextId = e.getId() + 1;
 			}
-		});
-		return this.eventList.isEmpty() ? 1
-				: this.eventList.get(this.eventList.size() - 1).getId() + 1;
+		}
 	}
 	
 	public boolean getHasUnsavedChanges() {
@@ -196,6 +595,20 @@ public class Timeline {
 	}
 	
 	public void setHasUnsavedChanges(boolean unsavedChanges) {
+		boolean changed = hasUnsavedChanges != unsavedChanges;
 		hasUnsavedChanges = unsavedChanges;
+		
+		if (changed && unsavedChangesListener != null) {
+			unsavedChangesListener.onUnsavedChangesChanged(this, unsavedChanges);
+		}
+	}
+	
+	/**
+	 * Set the listener that is told when this timeline gets unsaved changes or is saved.
+	 * 
+	 * @param listener - the listener, or null to remove it
+	 */
+	public void setUnsavedChangesListener(UnsavedChangesListener listener) {
+		unsavedChangesListener = listener;
 	}
 }
\ No newline at end of file
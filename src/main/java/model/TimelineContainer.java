@@ -2,6 +2,13 @@ package model;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import interfaces.ModelChangedListener;
 import javafx.scene.paint.Color;
@@ -14,7 +21,14 @@ import model.Event.EventType;
  * Has methods for managing the list of timelines, for example adding a timeline.
  * 
  * Notifies MainController via the ModelChangedListener set in registerListener whenever a 
- * change occurs to the list of timelines.
+ * change occurs to the list of timelines. Every notification carries a list of ModelChange
+ * objects describing what changed. Changes made between beginBatch and commitBatch, or
+ * through one of the bulk methods such as addEvents, are reported with a single notification,
+ * in which the changes made to the same event are merged into one.
+ * 
+ * With a memory budget set, saved timelines that have not been active for the longest time are
+ * dropped from memory when the resident timelines use more than the budget, see
+ * setMemoryBudget. They are read from their files again when they are made active.
  * 
  * @author Daniel Alm Grundstrom
  * @version 0.00.00
@@ -25,9 +39,17 @@ public class TimelineContainer {
 	private ModelChangedListener listener;
 	private ArrayList<Timeline> timelines;
 	private Timeline activeTimeline;
+	private int batchDepth;
+	private List<ModelChange> pendingChanges;
+	private long memoryBudget = Long.MAX_VALUE;
+	private Function<Timeline, EventSource> sources = t -> null;
+	// The timelines in the order they were last active, the least recently active first
+	private List<Timeline> recentlyActive;
 	
 	public TimelineContainer() {
 		timelines = new ArrayList<Timeline>();
+		pendingChanges = new ArrayList<ModelChange>();
+		recentlyActive = new ArrayList<Timeline>();
 	}
 	
 	/**
@@ -36,10 +58,14 @@ public class TimelineContainer {
 	public void addTimeline(Timeline timeline) {
 		System.out.println("TimelineContainer: Request to add timeline received");
 		
+		Timeline oldActive = activeTimeline;
 		timelines.add(timeline);
 		activeTimeline = timeline; // Set the newly added timeline to be the active one
+		touch(timeline);
 		
-		listener.onModelChanged(timelines, activeTimeline); // tell listener that a timeline has been added
+		// tell listener that a timeline has been added
+		notifyListener(ModelChange.timelineAdded(timeline), ModelChange.activeChanged(oldActive, timeline));
+		enforceMemoryBudget();
 	}
 	
 	/**
@@ -47,9 +73,10 @@ public class TimelineContainer {
 	 */
 	public void addEvent(String title, String description, LocalDateTime start, LocalDateTime end, EventType type, Color color) {
 		if (activeTimeline != null) {
-			activeTimeline.add(title, description, start, end, type, color);
+			Event event = new Event(0, title, description, start, end, type, color);
+			activeTimeline.add(event);
 			activeTimeline.setHasUnsavedChanges(true);
-			listener.onModelChanged(timelines, activeTimeline);
+			notifyListener(ModelChange.eventAdded(activeTimeline, event));
 		}
 	}
 	
@@ -60,9 +87,10 @@ public class TimelineContainer {
 		Event eventToEdit = getEventById(id);
 		
 		if (eventToEdit != null) {
+			Event oldEvent = new Event(eventToEdit);
 			activeTimeline.update(eventToEdit, title, description, start, end, type, color);
 			activeTimeline.setHasUnsavedChanges(true);
-			listener.onModelChanged(timelines, activeTimeline);
+			notifyListener(ModelChange.eventUpdated(activeTimeline, oldEvent, eventToEdit));
 		}
 	}
 	
@@ -70,12 +98,114 @@ public class TimelineContainer {
 	 * Delete an event in an active TimeLine
 	 */
 	public void deleteEvent(int id) {
-		Event deleteEvent = getEventById(id);
+		deleteEvent(activeTimeline, id);
+	}
+	
+	/**
+	 * Adds events to the currently active timeline. Each event is given a new id.
+	 * The listener is notified once after all events have been added.
+	 */
+	public void addEvents(Collection<Event> events) {
+		addEvents(activeTimeline, events);
+	}
+	
+	/**
+	 * Adds events to a timeline that does not have to be the active one, for work that goes on
+	 * while the user may select another timeline. Each event is given a new id.
+	 */
+	public void addEvents(Timeline timeline, Collection<Event> events) {
+		if (timeline != null && !events.isEmpty()) {
+			beginBatch();
+			
+			try {
+				for (Event e : events) {
+					timeline.add(e);
+					notifyListener(ModelChange.eventAdded(timeline, e));
+				}
+				
+				timeline.setHasUnsavedChanges(true);
+			} finally {
+				commitBatch();
+			}
+		}
+	}
+	
+	/**
+	 * Edits events in the currently active timeline. Every given event holds the id of the event
+	 * to edit together with its new values. Ids not found in the timeline are skipped.
+	 * The listener is notified once after all events have been edited.
+	 */
+	public void editEvents(Collection<Event> edits) {
+		beginBatch();
 		
-		if (deleteEvent != null) {
-			activeTimeline.delete(deleteEvent);
-			activeTimeline.setHasUnsavedChanges(true);
-			listener.onModelChanged(timelines, activeTimeline);
+		try {
+			for (Event e : edits) {
+				editEvent(e.getId(), e.getEventName(), e.getDescription(), e.getStartDate(), e.getEndDate(),
+						e.getType(), e.getColor());
+			}
+		} finally {
+			commitBatch();
+		}
+	}
+	
+	/**
+	 * Deletes events from the currently active timeline. The listener is notified once after
+	 * all events have been deleted.
+	 */
+	public void deleteEvents(Collection<Integer> ids) {
+		deleteEvents(activeTimeline, ids);
+	}
+	
+	/**
+	 * Deletes events from a timeline that does not have to be the active one.
+	 */
+	public void deleteEvents(Timeline timeline, Collection<Integer> ids) {
+		if (timeline == null) {
+			return;
+		}
+		
+		List<Event> deleted = new ArrayList<Event>();
+		
+		for (int id : new LinkedHashSet<Integer>(ids)) {
+			Event event = timeline.getEventById(id);
+			
+			if (event != null) {
+				deleted.add(event);
+			}
+		}
+		
+		if (deleted.isEmpty()) {
+			return;
+		}
+		
+		timeline.delete(deleted);
+		timeline.setHasUnsavedChanges(true);
+		beginBatch();
+		
+		try {
+			for (Event e : deleted) {
+				notifyListener(ModelChange.eventRemoved(timeline, e));
+			}
+		} finally {
+			commitBatch();
+		}
+	}
+	
+	/**
+	 * Starts a batch. Until the matching commitBatch is called, changes are not reported to the
+	 * listener. Batches may be nested, the listener is notified when the outermost batch is committed.
+	 */
+	public void beginBatch() {
+		batchDepth++;
+	}
+	
+	/**
+	 * Ends a batch started with beginBatch. If anything changed during the batch the listener
+	 * is notified once.
+	 */
+	public void commitBatch() {
+		if (batchDepth > 0 && --batchDepth == 0 && !pendingChanges.isEmpty()) {
+			notifyListener();
 		}
 	}
 	
@@ -84,7 +214,9 @@ public class TimelineContainer {
 	 */
 	public void deleteTimeline() {
 		if (activeTimeline != null) {
+			Timeline removed = activeTimeline;
 			timelines.remove(activeTimeline);
+			recentlyActive.remove(activeTimeline);
 			
 			if (timelines.size() > 0) {
 				activeTimeline = timelines.get(timelines.size() - 1);
@@ -92,7 +224,7 @@ public class TimelineContainer {
 				activeTimeline = null;
 			}
 			
-			listener.onModelChanged(timelines, activeTimeline);
+			notifyListener(ModelChange.timelineRemoved(removed), ModelChange.activeChanged(removed, activeTimeline));
 		}
 	}
 	
@@ -111,8 +243,61 @@ public class TimelineContainer {
 	 * Sets the active timeline.
 	 */
 	public void setActiveTimeline(Timeline activeTimeline) {
+		Timeline oldActive = this.activeTimeline;
 		this.activeTimeline = activeTimeline;
-		listener.onModelChanged(timelines, activeTimeline);
+		touch(activeTimeline);
+		notifyListener(ModelChange.activeChanged(oldActive, activeTimeline));
+		enforceMemoryBudget();
+	}
+	
+	/**
+	 * Sets how much memory the events of the timelines may use before timelines are dropped
+	 * from memory. Only timelines that are saved, not active and have a source to be read from
+	 * again are dropped, so the budget can be exceeded.
+	 * 
+	 * @param bytes - the budget in bytes, as estimated by Timeline.getResidentSize
+	 * @param sources - returns where a timeline can be read from again, or null if it can not be dropped
+	 */
+	public void setMemoryBudget(long bytes, Function<Timeline, EventSource> sources) {
+		this.memoryBudget = bytes;
+		this.sources = sources;
+		enforceMemoryBudget();
+	}
+	
+	/**
+	 * Returns the estimated memory used by the events of all timelines in bytes.
+	 */
+	public long getResidentSize() {
+		long size = 0;
+		
+		for (Timeline t : timelines) {
+			size += t.getResidentSize();
+		}
+		
+		return size;
+	}
+	
+	/**
+	 * Drops the least recently active timelines from memory until the resident timelines fit
+	 * the memory budget. Called whenever the active timeline changes, and should be called when
+	 * timelines have been saved since only saved timelines can be dropped.
+	 */
+	public void enforceMemoryBudget() {
+		long size = getResidentSize();
+		
+		for (int i = 0; i < recentlyActive.size() && size > memoryBudget; i++) {
+			Timeline timeline = recentlyActive.get(i);
+			
+			if (timeline != activeTimeline && timeline.isResident() && !timeline.getHasUnsavedChanges()) {
+				EventSource source = sources.apply(timeline);
+				
+				if (source != null) {
+					long freed = timeline.getResidentSize();
+					timeline.detach(source);
+					size -= freed;
+				}
+			}
+		}
 	}
 	
 	/**
@@ -132,13 +317,109 @@ public class TimelineContainer {
 		return timelines;
 	}
 	
-	private Event getEventById(int id) {
-		for (Event e : activeTimeline.getList()) {
-			if (e.getId() == id) {
-				return e;
+	/**
+	 * Records the given changes and, unless a batch is in progress, reports all recorded
+	 * changes to the listener.
+	 */
+	private void notifyListener(ModelChange... changes) {
+		for (ModelChange change : changes) {
+			pendingChanges.add(change);
+		}
+		
+		if (batchDepth == 0) {
+			List<ModelChange> changesToReport = merge(pendingChanges);
+			pendingChanges = new ArrayList<ModelChange>();
+			
+			if (listener != null) {
+				listener.onModelChanged(changesToReport, timelines, activeTimeline);
 			}
 		}
+	}
+	
+	/**
+	 * Merges the changes made to the same event into one change, so that a listener sees each
+	 * event at most once per notification and getNewEvent shows the event after all of them.
+	 * An event that was added and removed again is left out. The merged change takes the place
+	 * of the first change of the event.
+	 */
+	private static List<ModelChange> merge(List<ModelChange> changes) {
+		if (changes.size() < 2) {
+			return changes;
+		}
+		
+		Map<Timeline, Map<Integer, Integer>> positions = new IdentityHashMap<Timeline, Map<Integer, Integer>>();
+		List<ModelChange> merged = new ArrayList<ModelChange>(changes.size());
+		boolean dropped = false;
 		
-		return null;
+		for (ModelChange change : changes) {
+			if (!change.isEventChange()) {
+				merged.add(change);
+				continue;
+			}
+			
+			Map<Integer, Integer> byId = positions.computeIfAbsent(change.getTimeline(), t -> new HashMap<Integer, Integer>());
+			Integer index = byId.get(change.getEventId());
+			
+			if (index == null) {
+				byId.put(change.getEventId(), merged.size());
+				merged.add(change);
+			} else {
+				ModelChange first = merged.get(index);
+				ModelChange result = merge(first, change);
+				merged.set(index, result);
+				dropped |= result == null;
+			}
+		}
+		
+		if (dropped) {
+			merged.removeIf(change -> change == null);
+		}
+		
+		return merged;
+	}
+	
+	/**
+	 * Returns one change that has the effect of two changes of the same event, or null if
+	 * together they change nothing.
+	 */
+	private static ModelChange merge(ModelChange first, ModelChange second) {
+		if (first == null || first.getType() == ModelChange.Type.EVENT_REMOVED) {
+			return second;
+		}
+		
+		boolean added = first.getType() == ModelChange.Type.EVENT_ADDED;
+		
+		switch (second.getType()) {
+		case EVENT_UPDATED:
+			return added ? first : ModelChange.eventUpdated(first.getTimeline(), first.getOldEvent(), second.getNewEvent());
+		case EVENT_REMOVED:
+			return added ? null : ModelChange.eventRemoved(first.getTimeline(), first.getOldEvent());
+		default:
+			return second;
+		}
+	}
+	
+	/**
+	 * Moves a timeline to the end of the recently active list.
+	 */
+	private void touch(Timeline timeline) {
+		if (timeline != null) {
+			recentlyActive.remove(timeline);
+			recentlyActive.add(timeline);
+		}
+	}
+	
+	private void deleteEvent(Timeline timeline, int id) {
+		Event deleteEvent = timeline != null ? timeline.getEventById(id) : null;
+		
+		if (deleteEvent != null) {
+			timeline.delete(deleteEvent);
+			timeline.setHasUnsavedChanges(true);
+			notifyListener(ModelChange.eventRemoved(timeline, deleteEvent));
+		}
+	}
+	
+	private Event getEventById(int id) {
+		return activeTimeline != null ? activeTimeline.getEventById(id) : null;
 	}
 }
@@ -0,0 +1,35 @@
+package model;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An event source that can read the events in a range of time without reading the others.
+ * A timeline with such a source answers eventsOverlapping from the source, so it can be shown
+ * without ever being read completely.
+ * 
+ * @version 0.00.00
+ * @name WindowedEventSource.java
+ */
+public interface WindowedEventSource extends EventSource {
+	
+	/**
+	 * Return the events that overlap the range [from, to], with the same rules and in the same
+	 * order as Timeline.eventsOverlapping.
+	 */
+	public List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to) throws IOException;
+	
+	/**
+	 * Return at most count events from the given position, in the order load would return
+	 * them. Reading from 0 onwards this way gives every event once, without holding them all in
+	 * memory.
+	 */
+	public List<Event> readEvents(int first, int count) throws IOException;
+	
+	/**
+	 * Return a new source of the same events that is read on its own, for reading them on
+	 * another thread. It stays open when this source is closed, the caller closes it.
+	 */
+	public WindowedEventSource open() throws IOException;
+}
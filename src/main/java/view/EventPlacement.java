@@ -0,0 +1,50 @@
+package view;
+
+import model.Event;
+
+/**
+ * Where an event is drawn in the timeline view: the horizontal position and width in pixels
+ * and the row it is placed in.
+ *
+ * @version 0.00.00
+ * @name EventPlacement.java
+ */
+class EventPlacement {
+	private final Event event;
+	private final int x;
+	private final int width;
+	private int row;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param event - the event
+	 * @param x - the left edge of a duration event, or the center of a non-duration event
+	 * @param width - the width the event takes up in its row
+	 */
+	EventPlacement(Event event, int x, int width) {
+		this.event = event;
+		this.x = x;
+		this.width = width;
+	}
+
+	Event getEvent() {
+		return event;
+	}
+
+	int getX() {
+		return x;
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	int getRow() {
+		return row;
+	}
+
+	void setRow(int row) {
+		this.row = row;
+	}
+}
@@ -6,15 +6,18 @@ import de.jensd.fx.fontawesome.*;
 import interfaces.MenuListener;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.concurrent.Task;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.MenuButton;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.Toggle;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.control.ToggleGroup;
+import javafx.scene.control.Tooltip;
 import javafx.scene.effect.InnerShadow;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
@@ -37,7 +40,11 @@ public class MenuView extends StackPane {
 	private Button addTimeline;
 	private Button saveTimeline;
 	private Button openTimeline;
+	private Button openFolder;
+	private Button importEvents;
+	private Button exportEvents;
 	private MenuButton loadedTimelines;
+	private ProgressIndicator progress;
 	private MenuListener listener;
 	private final ToggleGroup group = new ToggleGroup();
 
@@ -50,9 +57,17 @@ public class MenuView extends StackPane {
 		addTimeline = new Button();
 		saveTimeline = new Button();
 		openTimeline = new Button();
+		openFolder = new Button();
+		importEvents = new Button();
+		exportEvents = new Button();
 		
 		themes = new Button("Themes");
 		themes.setPrefSize(100, 30);
+		
+		// Shown while timelines are being saved
+		progress = new ProgressIndicator();
+		progress.setPrefSize(30, 30);
+		progress.setVisible(false);
 
 		InnerShadow is = new InnerShadow();
 
@@ -86,12 +101,18 @@ public class MenuView extends StackPane {
 		deleteTimeline = AwesomeDude.createIconButton(AwesomeIcon.TRASH, "", "20", "15", ContentDisplay.CENTER);
 		saveTimeline = AwesomeDude.createIconButton(AwesomeIcon.SAVE, "", "20", "15", ContentDisplay.CENTER);
 		openTimeline = AwesomeDude.createIconButton(AwesomeIcon.FOLDER_OPEN_ALT, "", "20", "15", ContentDisplay.CENTER);
+		openFolder = AwesomeDude.createIconButton(AwesomeIcon.FOLDER_OPEN, "", "20", "15", ContentDisplay.CENTER);
+		openFolder.setTooltip(new Tooltip("Open all timelines in a folder"));
+		importEvents = AwesomeDude.createIconButton(AwesomeIcon.UPLOAD_ALT, "", "20", "15", ContentDisplay.CENTER);
+		importEvents.setTooltip(new Tooltip("Import events from a CSV or iCalendar file"));
+		exportEvents = AwesomeDude.createIconButton(AwesomeIcon.DOWNLOAD_ALT, "", "20", "15", ContentDisplay.CENTER);
+		exportEvents.setTooltip(new Tooltip("Export events to CSV, JSON lines or iCalendar"));
 
 		menu.setMaxHeight(60);
 		menu.setMinHeight(60);
 		timelineButtons.setSpacing(5);
 		timelineButtons.getChildren().addAll(filler1, loadedTimelines, addTimeline, deleteTimeline, saveTimeline,
-				openTimeline,themes);
+				openTimeline, openFolder, importEvents, exportEvents, themes, progress);
 		timelineButtons.setAlignment(Pos.CENTER);
 		menu.setLeft(timelineButtons);
 
@@ -148,6 +169,16 @@ public class MenuView extends StackPane {
 		
 	}
 
+	/**
+	 * Show the progress of a background task, such as saving, until it is done.
+	 * 
+	 * @param task - the task to follow
+	 */
+	public void showProgress(Task<?> task) {
+		progress.progressProperty().bind(task.progressProperty());
+		progress.visibleProperty().bind(task.runningProperty());
+	}
+
 	/**
 	 * Method for registering the listener for the MenuView
 	 * 
@@ -172,6 +203,18 @@ public class MenuView extends StackPane {
 		openTimeline.setOnAction(e -> {
 			listener.onOpenButtonClicked();
 		});
+
+		openFolder.setOnAction(e -> {
+			listener.onOpenFolderButtonClicked();
+		});
+
+		importEvents.setOnAction(e -> {
+			listener.onImportButtonClicked();
+		});
+
+		exportEvents.setOnAction(e -> {
+			listener.onExportButtonClicked();
+		});
 		
 		group.selectedToggleProperty().addListener(new ChangeListener<Toggle>() {
 			
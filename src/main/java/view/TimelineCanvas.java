@@ -0,0 +1,218 @@
+package view;
+
+import static view.TimelineView.EVENTS_TOP;
+import static view.TimelineView.EVENT_HEIGHT;
+import static view.TimelineView.HEADER_HEIGHT;
+import static view.TimelineView.MONTH_HEIGHT;
+import static view.TimelineView.ROW_HEIGHT;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import model.Event.EventType;
+
+/**
+ * Draws the grid, the month labels and the events of a timeline on a canvas, instead of with
+ * a node for each of them. The canvas only covers the visible part of the timeline and is
+ * drawn again from its TimelineLayout as the view is scrolled. The event under a
+ * point is found by searching the placements of its row.
+ *
+ * @version 0.00.00
+ * @name TimelineCanvas.java
+ */
+class TimelineCanvas extends Canvas {
+
+	private static final Font DATE_FONT = Font.font("Arial", 18);
+	private static final Font MONTH_FONT = new Font(20);
+	private static final double MONTH_LABEL_WIDTH = 200;
+	private static final double MIN_ROUNDED_WIDTH = 8;
+	private static final double RADIUS = 14;
+
+	private TimelineLayout layout;
+	private Color textColor = Color.BLACK;
+	private double originX;
+	private double originY;
+
+	/**
+	 * Sets what to draw.
+	 *
+	 * @param layout - the layout of the timeline, or null to draw nothing
+	 * @param textColor - the color of the labels
+	 */
+	void setLayout(TimelineLayout layout, Color textColor) {
+		this.layout = layout;
+		this.textColor = textColor;
+	}
+
+	/**
+	 * Draws the part of the timeline whose top left corner is at the given position.
+	 */
+	void draw(double x, double y) {
+		originX = x;
+		originY = y;
+
+		GraphicsContext gc = getGraphicsContext2D();
+		double width = getWidth();
+		double height = getHeight();
+		gc.clearRect(0, 0, width, height);
+
+		if (layout == null) {
+			return;
+		}
+
+		gc.save();
+		gc.translate(-x, -y);
+
+		int trueWidth = layout.getTrueWidth();
+		long firstDay = Math.max(0, (long) (x / trueWidth));
+		long lastDay = Math.min(layout.getColumnCount() - 1, (long) ((x + width) / trueWidth));
+
+		drawGrid(gc, firstDay, lastDay);
+		drawLabels(gc, x, firstDay, lastDay);
+		drawEvents(gc, x, y, width, height);
+
+		gc.restore();
+	}
+
+	/**
+	 * Returns the placement of the event drawn at a point of the canvas, or null if there is none.
+	 */
+	EventPlacement eventAt(double canvasX, double canvasY) {
+		double x = originX + canvasX;
+		double y = originY + canvasY;
+		int row = (int) Math.floor((y - EVENTS_TOP) / ROW_HEIGHT);
+		double top = EVENTS_TOP + row * ROW_HEIGHT;
+
+		if (layout == null || row < 0 || row >= layout.getRows().size() || y - top > EVENT_HEIGHT) {
+			return null;
+		}
+
+		List<EventPlacement> placements = layout.getRows().get(row);
+
+		for (int i = TimelineLayout.firstEndingAfter(placements, x - RADIUS); i < placements.size()
+				&& placements.get(i).getX() - RADIUS <= x; i++) {
+			EventPlacement placement = placements.get(i);
+
+			if (placement.getEvent().getType() == EventType.DURATION) {
+				if (x >= placement.getX() && x < placement.getX() + placement.getWidth()) {
+					return placement;
+				}
+			} else {
+				double dx = x - placement.getX();
+				double dy = y - top - RADIUS;
+
+				if (dx * dx + dy * dy <= RADIUS * RADIUS) {
+					return placement;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private void drawGrid(GraphicsContext gc, long firstDay, long lastDay) {
+		gc.setGlobalAlpha(0.1);
+		gc.setFill(Color.WHITE);
+		gc.setStroke(Color.BLACK);
+
+		LocalDate start = layout.getStart();
+		int trueWidth = layout.getTrueWidth();
+		double height = layout.getContentHeight() - HEADER_HEIGHT;
+
+		if (layout.isYear()) {
+			// A column for each month, starting with the one the first day is in
+			long day = Math.max(0, firstDay - start.plusDays(firstDay).getDayOfMonth() + 1);
+
+			while (day <= lastDay) {
+				LocalDate date = start.plusDays(day);
+				long next = Math.min(layout.getColumnCount(), day + date.lengthOfMonth() - date.getDayOfMonth() + 1);
+				gc.fillRect(day * trueWidth, HEADER_HEIGHT, (next - day) * trueWidth, height);
+				gc.strokeRect(day * trueWidth, HEADER_HEIGHT, (next - day) * trueWidth, height);
+				day = next;
+			}
+		} else {
+			for (long day = firstDay; day <= lastDay; day++) {
+				gc.fillRect(day * trueWidth, HEADER_HEIGHT, trueWidth - 1, height);
+				gc.strokeRect(day * trueWidth, HEADER_HEIGHT, trueWidth - 1, height);
+			}
+		}
+
+		gc.setGlobalAlpha(1);
+	}
+
+	private void drawLabels(GraphicsContext gc, double x, long firstDay, long lastDay) {
+		LocalDate start = layout.getStart();
+		int trueWidth = layout.getTrueWidth();
+		gc.setFill(textColor);
+		gc.setTextBaseline(VPos.TOP);
+
+		if (!layout.isYear()) {
+			gc.setTextAlign(TextAlignment.CENTER);
+			gc.setFont(Font.getDefault());
+
+			for (long day = firstDay + firstDay % 2; day <= lastDay; day += 2) {
+				String weekDay = String.valueOf(start.plusDays(day).getDayOfWeek()).substring(0, 3);
+				gc.fillText(weekDay, day * trueWidth + (trueWidth - 1) / 2.0, MONTH_HEIGHT);
+			}
+
+			gc.setFont(DATE_FONT);
+
+			for (long day = firstDay; day <= lastDay; day++) {
+				String date = String.valueOf(start.plusDays(day).getDayOfMonth());
+				gc.fillText(date, day * trueWidth + (trueWidth - 1) / 2.0, MONTH_HEIGHT + 16);
+			}
+		}
+
+		// A label that starts left of the canvas can still reach into it
+		gc.setTextAlign(TextAlignment.LEFT);
+		gc.setFont(MONTH_FONT);
+
+		long[] labelDays = layout.getMonthLabelDays();
+
+		for (int i = layout.firstMonthLabelFrom((long) ((x - MONTH_LABEL_WIDTH) / trueWidth)); i < labelDays.length
+				&& labelDays[i] <= lastDay; i++) {
+			LocalDate date = start.plusDays(labelDays[i]);
+			gc.fillText(String.valueOf(date.getMonth()) + " " + date.getYear(), labelDays[i] * trueWidth, 0);
+		}
+	}
+
+	private void drawEvents(GraphicsContext gc, double x, double y, double width, double height) {
+		int firstRow = Math.max(0, (int) ((y - EVENTS_TOP) / ROW_HEIGHT));
+		int lastRow = Math.min(layout.getRows().size() - 1, (int) ((y + height - EVENTS_TOP) / ROW_HEIGHT));
+		Color fill = null;
+
+		for (int row = firstRow; row <= lastRow; row++) {
+			List<EventPlacement> placements = layout.getRows().get(row);
+			double top = EVENTS_TOP + row * ROW_HEIGHT;
+
+			for (int i = TimelineLayout.firstEndingAfter(placements, x - RADIUS); i < placements.size()
+					&& placements.get(i).getX() - RADIUS < x + width; i++) {
+				EventPlacement placement = placements.get(i);
+				Color color = placement.getEvent().getType() == EventType.DURATION
+						? placement.getEvent().getColor() : Color.BLACK;
+
+				if (color == null) {
+					continue;
+				}
+				if (color != fill) {
+					gc.setFill(color);
+					fill = color;
+				}
+
+				if (placement.getEvent().getType() != EventType.DURATION) {
+					gc.fillOval(placement.getX() - RADIUS, top, 2 * RADIUS, 2 * RADIUS);
+				} else if (placement.getWidth() >= MIN_ROUNDED_WIDTH) {
+					gc.fillRoundRect(placement.getX(), top, placement.getWidth(), EVENT_HEIGHT, 30, 30);
+				} else {
+					gc.fillRect(placement.getX(), top, placement.getWidth(), EVENT_HEIGHT);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,566 @@
+package view;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.Event;
+import model.Event.EventType;
+
+/**
+ * The layout of a timeline in the timeline view: where each event is placed, how many days
+ * and rows there are and which days get a month label.
+ *
+ * Events are placed in rows so that events in the same row do not overlap, using as few rows
+ * as possible. The events are taken in order of their start, and each one goes into the row
+ * that became free the earliest, if that row is free by its start, and into a new row
+ * otherwise. The rows are kept in a heap ordered by where their last event ends, so placing n
+ * events takes O(n log n) time.
+ *
+ * A layout does not depend on how the events are drawn, so it can be computed on a background
+ * thread. Once it is shown, single events can be added and removed on the JavaFX thread
+ * without placing the other events again. An added event goes into the first row it fits in,
+ * which takes a binary search in each row it is tried in, and a removed event leaves a gap in
+ * its row. The rows are then not always as few as possible, until the layout is computed
+ * again.
+ *
+ * A windowed timeline is laid out again for each part of it that is read. Events that were in
+ * the previous layout keep their rows where they still fit, so they do not move when the
+ * timeline is scrolled. Only the other events are placed around them.
+ *
+ * @version 0.00.00
+ * @name TimelineLayout.java
+ */
+class TimelineLayout {
+
+	static final int MIN_ROWS = 8;
+
+	private final LocalDate start;
+	private final int trueWidth;
+	private final boolean year;
+	private final long columnCount;
+	private final double minHeight;
+	private final List<EventPlacement> placements;
+	private final List<List<EventPlacement>> rows;
+	private final List<EventPlacement> placementsView;
+	private final List<List<EventPlacement>> rowViews = new ArrayList<List<EventPlacement>>();
+	private final List<List<EventPlacement>> rowsView = Collections.unmodifiableList(rowViews);
+	private final long[] monthLabelDays;
+
+	private TimelineLayout(LocalDate start, int trueWidth, boolean year, long columnCount, double minHeight,
+			List<EventPlacement> placements, List<List<EventPlacement>> rows, long[] monthLabelDays) {
+		this.start = start;
+		this.trueWidth = trueWidth;
+		this.year = year;
+		this.columnCount = columnCount;
+		this.minHeight = minHeight;
+		this.placements = placements;
+		this.rows = rows;
+		this.monthLabelDays = monthLabelDays;
+		placementsView = Collections.unmodifiableList(placements);
+
+		for (List<EventPlacement> row : rows) {
+			rowViews.add(Collections.unmodifiableList(row));
+		}
+	}
+
+	/**
+	 * Returns the number of day columns of a timeline. The columns fill at least the given
+	 * width, even if the timeline is shorter.
+	 */
+	static long columnCount(LocalDate start, LocalDate end, int trueWidth, double minWidth) {
+		return Math.max(ChronoUnit.DAYS.between(start, end) + 1, (long) (minWidth / trueWidth) + 1);
+	}
+
+	/**
+	 * Computes the layout of the events of a timeline.
+	 *
+	 * @param start - the first day of the timeline
+	 * @param columnCount - the number of days to show
+	 * @param trueWidth - the width of a day including the space between days
+	 * @param year - true if the columns are months instead of days
+	 * @param minHeight - the least height of the whole timeline
+	 * @param events - the events, events without a start date are left out
+	 */
+	static TimelineLayout compute(LocalDate start, long columnCount, int trueWidth, boolean year, double minHeight,
+			List<Event> events) {
+		return compute(start, columnCount, trueWidth, year, minHeight, events, null);
+	}
+
+	/**
+	 * Computes the layout of the events of a timeline, keeping the rows of the events that are
+	 * in a previous layout of it.
+	 *
+	 * @param previous - the layout shown before, or null. Its rows are only kept if it has the
+	 *        same start and day width, and it must not be changed while this one is computed.
+	 */
+	static TimelineLayout compute(LocalDate start, long columnCount, int trueWidth, boolean year, double minHeight,
+			List<Event> events, TimelineLayout previous) {
+		List<EventPlacement> placements = new ArrayList<EventPlacement>(events.size());
+
+		for (Event event : events) {
+			EventPlacement placement = place(event, start, trueWidth);
+
+			if (placement != null) {
+				placements.add(placement);
+			}
+		}
+
+		placements.sort(Comparator.comparingInt(EventPlacement::getX));
+
+		int[] starts = new int[placements.size()];
+		int[] ends = new int[placements.size()];
+
+		for (int i = 0; i < placements.size(); i++) {
+			starts[i] = placements.get(i).getX();
+			ends[i] = starts[i] + placements.get(i).getWidth();
+		}
+
+		int[] assigned;
+
+		if (previous != null && previous.start.equals(start) && previous.trueWidth == trueWidth
+				&& !previous.placements.isEmpty()) {
+			Map<Integer, Integer> previousRows = new HashMap<Integer, Integer>(previous.placements.size() * 2);
+
+			for (EventPlacement placement : previous.placements) {
+				previousRows.put(placement.getEvent().getId(), placement.getRow());
+			}
+
+			int[] preferred = new int[placements.size()];
+
+			for (int i = 0; i < placements.size(); i++) {
+				preferred[i] = previousRows.getOrDefault(placements.get(i).getEvent().getId(), -1);
+			}
+
+			assigned = assignRows(starts, ends, preferred);
+		} else {
+			assigned = assignRows(starts, ends);
+		}
+		List<List<EventPlacement>> rows = new ArrayList<List<EventPlacement>>();
+
+		// The placements are ordered by x, so each row is as well
+		for (int i = 0; i < placements.size(); i++) {
+			EventPlacement placement = placements.get(i);
+
+			while (rows.size() <= assigned[i]) {
+				rows.add(new ArrayList<EventPlacement>());
+			}
+
+			placement.setRow(assigned[i]);
+			rows.get(assigned[i]).add(placement);
+		}
+
+		return new TimelineLayout(start, trueWidth, year, columnCount, minHeight, placements, rows, monthLabelDays(start, columnCount));
+	}
+
+	/**
+	 * Places an event in this layout, in the first row where it does not overlap another event.
+	 * A new row is added if it does not fit in any of them.
+	 *
+	 * @return the placement of the event, or null if it has no start date
+	 */
+	EventPlacement add(Event event) {
+		EventPlacement placement = place(event, start, trueWidth);
+
+		if (placement == null) {
+			return null;
+		}
+
+		int row = 0;
+
+		while (row < rows.size() && !fits(rows.get(row), placement)) {
+			row++;
+		}
+
+		if (row == rows.size()) {
+			List<EventPlacement> newRow = new ArrayList<EventPlacement>();
+			rows.add(newRow);
+			rowViews.add(Collections.unmodifiableList(newRow));
+		}
+
+		List<EventPlacement> rowPlacements = rows.get(row);
+		placement.setRow(row);
+		rowPlacements.add(firstFrom(rowPlacements, placement.getX()), placement);
+		placements.add(firstPlacementFrom(placement.getX()), placement);
+
+		return placement;
+	}
+
+	/**
+	 * Removes an event from this layout. The other events keep their rows.
+	 *
+	 * @param placedAs - the event as it was when it was placed, which is a copy if the event has
+	 *        been changed since. The placement is found by its position and the id of the event.
+	 *
+	 * @return the placement the event had, or null if it was not in the layout
+	 */
+	EventPlacement remove(Event placedAs) {
+		EventPlacement old = place(placedAs, start, trueWidth);
+
+		if (old == null) {
+			return null;
+		}
+
+		for (int i = firstPlacementFrom(old.getX()); i < placements.size() && placements.get(i).getX() == old.getX(); i++) {
+			EventPlacement placement = placements.get(i);
+
+			if (placement.getEvent().getId() == placedAs.getId()) {
+				// Events in a row do not overlap, so only one of them starts at x
+				List<EventPlacement> row = rows.get(placement.getRow());
+				row.remove(firstFrom(row, placement.getX()));
+				placements.remove(i);
+				return placement;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns where an event is placed if the timeline starts on the given day, or null if it
+	 * has no start date.
+	 */
+	private static EventPlacement place(Event event, LocalDate start, int trueWidth) {
+		if (event.getStartDate() == null) {
+			return null;
+		}
+
+		int x = (int) (ChronoUnit.DAYS.between(start, event.getStartDate())) * trueWidth;
+
+		if (event.getType() == EventType.DURATION) {
+			int length = (int) (ChronoUnit.DAYS.between(event.getStartDate(), event.getEndDate())) + 1;
+			return new EventPlacement(event, x, length * trueWidth);
+		} else {
+			return new EventPlacement(event, x + trueWidth / 2, TimelineView.CIRCLE_WIDTH);
+		}
+	}
+
+	/**
+	 * Returns true if a placement does not overlap any placement of a row.
+	 */
+	private static boolean fits(List<EventPlacement> row, EventPlacement placement) {
+		int index = firstFrom(row, placement.getX());
+
+		if (index > 0) {
+			EventPlacement before = row.get(index - 1);
+
+			if (before.getX() + before.getWidth() > placement.getX()) {
+				return false;
+			}
+		}
+
+		return index == row.size() || row.get(index).getX() >= placement.getX() + placement.getWidth();
+	}
+
+	/**
+	 * Returns the index of the first placement of a list ordered by x whose x is at least the
+	 * given x.
+	 */
+	private static int firstFrom(List<EventPlacement> placements, long x) {
+		int low = 0;
+		int high = placements.size();
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+
+			if (placements.get(mid).getX() < x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Returns the days that get a month label: the first day of each month, and the first day of
+	 * the timeline unless it is near the end of its month.
+	 */
+	private static long[] monthLabelDays(LocalDate start, long columnCount) {
+		long[] days = new long[16];
+		int count = 0;
+
+		if (start.getDayOfMonth() < 25) {
+			days[count++] = 0;
+		}
+
+		LocalDate month = start.withDayOfMonth(1).plusMonths(1);
+		long day;
+
+		while ((day = ChronoUnit.DAYS.between(start, month)) < columnCount) {
+			if (count == days.length) {
+				days = Arrays.copyOf(days, count * 2);
+			}
+
+			days[count++] = day;
+			month = month.plusMonths(1);
+		}
+
+		return Arrays.copyOf(days, count);
+	}
+
+	/**
+	 * Assigns a row to each event.
+	 *
+	 * @param starts - where each event starts
+	 * @param ends - where each event ends, an event ending where another starts does not overlap it
+	 *
+	 * @return the row of each event, counted from 0
+	 */
+	static int[] assignRows(int[] starts, int[] ends) {
+		int count = starts.length;
+		int[] rows = new int[count];
+
+		// Ordered by start, then by position in the input
+		long[] order = new long[count];
+
+		for (int i = 0; i < count; i++) {
+			order[i] = ((long) starts[i] << 32) | i;
+		}
+
+		Arrays.sort(order);
+
+		// Each entry is a row, ordered by where the row ends and then by row number
+		long[] heap = new long[16];
+		int heapSize = 0;
+		int rowCount = 0;
+
+		for (long entry : order) {
+			int i = (int) entry;
+			int row;
+
+			if (heapSize > 0 && (int) (heap[0] >> 32) <= starts[i]) {
+				row = (int) heap[0];
+				heap[0] = ((long) ends[i] << 32) | row;
+				siftDown(heap, heapSize);
+			} else {
+				row = rowCount++;
+
+				if (heapSize == heap.length) {
+					heap = Arrays.copyOf(heap, heapSize * 2);
+				}
+
+				heap[heapSize] = ((long) ends[i] << 32) | row;
+				siftUp(heap, heapSize++);
+			}
+
+			rows[i] = row;
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Assigns a row to each event, keeping the rows the events prefer where they fit. The events
+	 * with a preferred row are placed first, the others then go into the first row they fit in,
+	 * which takes a binary search in each row they are tried in.
+	 *
+	 * @param starts - where each event starts, in order
+	 * @param ends - where each event ends, an event ending where another starts does not overlap it
+	 * @param preferred - the row each event prefers, or -1 if it has none
+	 *
+	 * @return the row of each event, counted from 0
+	 */
+	static int[] assignRows(int[] starts, int[] ends, int[] preferred) {
+		int count = starts.length;
+		int[] rows = new int[count];
+		// The events of each row, ordered by start
+		List<List<Integer>> placed = new ArrayList<List<Integer>>();
+
+		for (int i = 0; i < count; i++) {
+			int row = preferred[i];
+			rows[i] = -1;
+
+			if (row < 0) {
+				continue;
+			}
+
+			while (placed.size() <= row) {
+				placed.add(new ArrayList<Integer>());
+			}
+
+			// The events are taken in order of their start, so only the last one of the row can overlap
+			List<Integer> rowEvents = placed.get(row);
+
+			if (rowEvents.isEmpty() || ends[rowEvents.get(rowEvents.size() - 1)] <= starts[i]) {
+				rowEvents.add(i);
+				rows[i] = row;
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			if (rows[i] >= 0) {
+				continue;
+			}
+
+			int row = 0;
+			int index = 0;
+
+			for (; row < placed.size(); row++) {
+				List<Integer> rowEvents = placed.get(row);
+				index = firstStartingFrom(rowEvents, starts, starts[i]);
+
+				if ((index == 0 || ends[rowEvents.get(index - 1)] <= starts[i])
+						&& (index == rowEvents.size() || starts[rowEvents.get(index)] >= ends[i])) {
+					break;
+				}
+			}
+
+			if (row == placed.size()) {
+				placed.add(new ArrayList<Integer>());
+				index = 0;
+			}
+
+			placed.get(row).add(index, i);
+			rows[i] = row;
+		}
+
+		return rows;
+	}
+
+	private static int firstStartingFrom(List<Integer> rowEvents, int[] starts, int x) {
+		int low = 0;
+		int high = rowEvents.size();
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+
+			if (starts[rowEvents.get(mid)] < x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		return low;
+	}
+
+	LocalDate getStart() {
+		return start;
+	}
+
+	int getTrueWidth() {
+		return trueWidth;
+	}
+
+	boolean isYear() {
+		return year;
+	}
+
+	long getColumnCount() {
+		return columnCount;
+	}
+
+	double getContentWidth() {
+		return (double) columnCount * trueWidth;
+	}
+
+	double getContentHeight() {
+		return Math.max(minHeight, TimelineView.EVENTS_TOP + Math.max(MIN_ROWS, rows.size()) * TimelineView.ROW_HEIGHT);
+	}
+
+	/**
+	 * Returns the placements of the events ordered by x.
+	 */
+	List<EventPlacement> getPlacements() {
+		return placementsView;
+	}
+
+	/**
+	 * Returns the placements of each row ordered by x. The placements of a row do not overlap,
+	 * so they are ordered by their ends as well.
+	 */
+	List<List<EventPlacement>> getRows() {
+		return rowsView;
+	}
+
+
+	/**
+	 * Returns the days that get a month label, in order.
+	 */
+	long[] getMonthLabelDays() {
+		return monthLabelDays;
+	}
+
+	/**
+	 * Returns the index of the first placement whose x is at least the given x.
+	 */
+	int firstPlacementFrom(long x) {
+		return firstFrom(placements, x);
+	}
+
+	/**
+	 * Returns the index of the first placement of a row that ends after x. The placements of a
+	 * row do not overlap, so they are ordered by their ends as well.
+	 */
+	static int firstEndingAfter(List<EventPlacement> row, double x) {
+		int low = 0;
+		int high = row.size();
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			EventPlacement placement = row.get(mid);
+
+			if (placement.getX() + Math.max(placement.getWidth(), TimelineView.CIRCLE_WIDTH) <= x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Returns the index of the first month label on or after the given day.
+	 */
+	int firstMonthLabelFrom(long day) {
+		int index = Arrays.binarySearch(monthLabelDays, day);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	private static void siftUp(long[] heap, int index) {
+		long value = heap[index];
+
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+
+			if (heap[parent] <= value) {
+				break;
+			}
+
+			heap[index] = heap[parent];
+			index = parent;
+		}
+
+		heap[index] = value;
+	}
+
+	private static void siftDown(long[] heap, int size) {
+		long value = heap[0];
+		int index = 0;
+
+		while (2 * index + 1 < size) {
+			int child = 2 * index + 1;
+
+			if (child + 1 < size && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (value <= heap[child]) {
+				break;
+			}
+
+			heap[index] = heap[child];
+			index = child;
+		}
+
+		heap[index] = value;
+	}
+}
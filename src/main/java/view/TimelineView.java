@@ -2,25 +2,42 @@ package view;
 
 import java.awt.Dimension;
 import java.awt.Toolkit;
+import java.io.IOException;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.controlsfx.control.PopOver;
 import org.controlsfx.control.PopOver.ArrowLocation;
 
 import de.jensd.fx.fontawesome.AwesomeDude;
 import de.jensd.fx.fontawesome.AwesomeIcon;
 import interfaces.TimelineViewListener;
-import javafx.event.EventHandler;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.geometry.Dimension2D;
 import javafx.geometry.Pos;
+import javafx.geometry.VPos;
 import javafx.scene.Group;
+import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.ScrollPane;
-import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Background;
-import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
@@ -31,13 +48,29 @@ import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import model.Event;
+import model.ModelChange;
 import model.Timeline;
+import model.WindowedEventSource;
 import model.Event.EventType;
 
 /**
  * Class drawing the graphics for how a timeline will be displayed. This class
  * can be added as a component in a user interface.
- * 
+ *
+ * Only the part of the timeline that is scrolled into view, and one view width on each side
+ * of it, has nodes in the scene graph. The nodes of the columns are reused for other days as
+ * the view is scrolled, so the number of nodes depends on the width of the view and not on
+ * the length of the timeline.
+ *
+ * The layout of the events is computed on a background thread from a copy of the list of
+ * events, and the nodes are updated on the JavaFX thread once it is done. The old layout is
+ * shown until then, and a layout that was computed for an older version of the timeline is
+ * thrown away. When a few events are added, changed or removed, only those events are placed
+ * again in the shown layout and only their shapes are replaced.
+ *
+ * With canvas rendering turned on, the timeline is drawn on a TimelineCanvas that covers the
+ * visible part instead, and there are no nodes for the columns and events at all.
+ *
  * @author Jesper Bergstrom and Zacky Kharboutli
  * @version 0.00.00
  * @name TimelineView.java
@@ -45,25 +78,94 @@ import model.Event.EventType;
 public class TimelineView extends StackPane {
 
 	private static final Dimension2D DEFAULT_SIZE = new Dimension2D(800, 400);
+	// More changes than this are shown by computing the whole layout again
+	private static final int MAX_EVENT_CHANGES = 100;
+	// Layouts that fail one after the other are given up after this many tries
+	private static final int MAX_LAYOUT_TRIES = 3;
+	static final int MONTH_HEIGHT = 24;
+	static final int HEADER_HEIGHT = 64; // Month labels, week days and dates
+	static final int EVENTS_TOP = 70;
+	static final int ROW_HEIGHT = 33; // A row of events and the space below it
+	static final int EVENT_HEIGHT = 27;
+	static final int CIRCLE_WIDTH = 27;
 
-	private int rows = 8;
 	private int width = 29; // For time perspective
-	private Pane[] panes = new Pane[rows];
-	private StackPane stack = new StackPane();
+	private Pane content = new Pane();
+	private Group grid = new Group();
+	private Group months = new Group();
+	private Group eventLayer = new Group();
 	private ScrollPane scroll;
-	private VBox vbox;
 	private Timeline currentTimeline;
 	private Button addEventButton;
-	private EventShape shape;
 	private PopOver eventWindow = new PopOver();
-	private VBox container = new VBox();
 	private TimelineViewListener listener;
 	private String timePerspective = "Month";
-	private Button delete;
-	private Button edit;
 	private Color textColor = Color.BLACK;
 	PopOver test = new PopOver();
 
+	// The layout that is shown and the timeline it belongs to, null if there is none
+	private TimelineLayout layout;
+	private Timeline layoutTimeline;
+	// Increased for each layout that is started, only the result of the latest one is used
+	private int layoutRequest;
+	private int failedLayouts; // Layouts that have failed since the last one was shown
+	private int layoutHolds; // See holdLayout
+	private boolean layoutDeferred; // Changes were left out of the layout while it was held
+	private long[] requestedDays = new long[2]; // First and last day read of a windowed timeline
+	private Future<?> pendingLayout;
+	private ExecutorService layoutExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Timeline layout");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Nodes exist for the columns and events from renderedDays[0] to renderedDays[1]
+	private long[] renderedDays = { 0, -1 };
+	private Map<Long, DayColumn> columns = new HashMap<Long, DayColumn>();
+	private Deque<DayColumn> freeColumns = new ArrayDeque<DayColumn>();
+	private Map<Long, Text> monthLabels = new HashMap<Long, Text>();
+	private Deque<Text> freeMonthLabels = new ArrayDeque<Text>();
+	private Map<Event, EventShape> shapes = new IdentityHashMap<Event, EventShape>();
+	// Shapes of the layout shown before, by event id, that can be reused by the current one
+	private Map<Integer, EventShape> retainedShapes = new HashMap<Integer, EventShape>();
+
+	private boolean canvasRendering;
+	private TimelineCanvas canvas = new TimelineCanvas();
+	private EventPlacement hovered;
+	private boolean redrawNeeded;
+	private AnimationTimer redrawTimer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			if (redrawNeeded) {
+				redrawNeeded = false;
+				drawCanvas();
+			}
+		}
+	};
+
+	/**
+	 * The nodes of one column of the grid. In the year perspective a column is a whole month.
+	 */
+	private static class DayColumn {
+		private final Group group = new Group();
+		private final Rectangle rect = new Rectangle();
+		private final Text weekDay = new Text();
+		private final Text date = new Text();
+
+		private DayColumn() {
+			rect.setStroke(Color.BLACK);
+			rect.setOpacity(0.1);
+			rect.setFill(Color.WHITE);
+			rect.setY(HEADER_HEIGHT);
+			weekDay.setTextOrigin(VPos.TOP);
+			weekDay.setY(MONTH_HEIGHT);
+			date.setFont(Font.font("Arial", 18));
+			date.setTextOrigin(VPos.TOP);
+			date.setY(MONTH_HEIGHT + 16);
+			group.getChildren().addAll(rect, weekDay, date);
+		}
+	}
+
 	/**
 	 * Constructor that sets all the initial components in the TimelineView.
 	 */
@@ -72,23 +174,8 @@ public class TimelineView extends StackPane {
 		scroll = new ScrollPane();
 		scroll.setPrefSize(DEFAULT_SIZE.getWidth(), DEFAULT_SIZE.getHeight());
 
-		Group root = new Group();
-
-		vbox = new VBox();
-		vbox.setSpacing(3);
-
-		// Create the rows
-		for (int i = 0; i < panes.length; i++) {
-
-			panes[i] = new Pane();
-			panes[i].setPrefHeight(30);
-		}
-
-		vbox.getChildren().addAll(panes);
-		stack.getChildren().add(vbox);
-		vbox.setTranslateY(45);
-		root.getChildren().addAll(stack);
-		scroll.setContent(root);
+		content.getChildren().addAll(grid, months, eventLayer);
+		scroll.setContent(content);
 
 		addEventButton = AwesomeDude.createIconButton(AwesomeIcon.PLUS_SIGN, "", "30", "30",
 				ContentDisplay.GRAPHIC_ONLY);
@@ -98,15 +185,79 @@ public class TimelineView extends StackPane {
 			addEventButton.setVisible(false);
 		}
 
-		stack.getChildren().add(0, container);
-
 		super.getChildren().addAll(scroll, addEventButton);
 		super.setAlignment(addEventButton, Pos.BOTTOM_RIGHT);
+
+		scroll.hvalueProperty().addListener((observable, oldValue, newValue) -> updateVisibleRange());
+		scroll.vvalueProperty().addListener((observable, oldValue, newValue) -> updateVisibleRange());
+		scroll.viewportBoundsProperty().addListener((observable, oldValue, newValue) -> updateVisibleRange());
+
+		canvas.setOnMouseClicked(e -> {
+			EventPlacement placement = canvas.eventAt(e.getX(), e.getY());
+
+			if (placement != null) {
+				test.hide();
+				showEventWindow(placement.getEvent(), canvas, e.getScreenX(), e.getScreenY());
+			}
+		});
+
+		canvas.setOnMouseMoved(e -> {
+			EventPlacement placement = canvas.eventAt(e.getX(), e.getY());
+
+			if (placement != hovered) {
+				hovered = placement;
+				test.hide();
+
+				if (placement != null && !eventWindow.isShowing()) {
+					showHoverWindow(placement.getEvent(), canvas, e.getScreenX(), e.getScreenY());
+				}
+			}
+		});
+
+		canvas.setOnMouseExited(e -> {
+			hovered = null;
+			test.hide();
+		});
+	}
+
+	/**
+	 * Switches between drawing the timeline on a canvas and drawing it with a node for each
+	 * column and event.
+	 *
+	 * @param canvasRendering - true to draw on a canvas
+	 */
+	public void setCanvasRendering(boolean canvasRendering) {
+		if (this.canvasRendering == canvasRendering) {
+			return;
+		}
+
+		this.canvasRendering = canvasRendering;
+		clear();
+
+		if (canvasRendering) {
+			content.getChildren().add(canvas);
+			redrawTimer.start();
+		} else {
+			redrawTimer.stop();
+			content.getChildren().remove(canvas);
+			canvas.setLayout(null, textColor);
+		}
+
+		if (layout != null) {
+			showLayout();
+		}
+	}
+
+	/**
+	 * Returns true if the timeline is drawn on a canvas.
+	 */
+	public boolean isCanvasRendering() {
+		return canvasRendering;
 	}
 
 	/**
 	 * Method that gets the current timeline.
-	 * 
+	 *
 	 * @return Current Timeline
 	 */
 	public Timeline getTimeline() {
@@ -115,7 +266,7 @@ public class TimelineView extends StackPane {
 
 	/**
 	 * Method that sets a timeline to be displayed in the timeline view.
-	 * 
+	 *
 	 * @param Timeline
 	 */
 	public void setTimeline(Timeline timeline, String timePerspective) {
@@ -126,92 +277,280 @@ public class TimelineView extends StackPane {
 			this.timePerspective = timePerspective;
 		}
 
+		if (timePerspective.equals("Week")) {
+			width = 90;
+		} else if (timePerspective.equals("Month")) {
+			width = 29;
+		} else if (timePerspective.equals("Year")) {
+			width = 5;
+		}
+
 		currentTimeline = timeline;
-		addEventButton.setVisible(false);
+		layoutDeferred = false;
+
+		// The layout of another timeline is not shown while the new one is computed
+		if (timeline != layoutTimeline) {
+			Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+			layout = null;
+			layoutTimeline = null;
+			clear();
+			canvas.setLayout(null, textColor);
+			redrawNeeded = true;
+			content.setMinSize(screenSize.getWidth(), screenSize.getHeight());
+			content.setPrefSize(screenSize.getWidth(), screenSize.getHeight());
+		}
 
-		for (int i = 0; i < panes.length; i++) { // Clear the timeline view.
-			panes[i].getChildren().clear();
+		if (currentTimeline == null) {
+			layoutRequest++;
+			addEventButton.setVisible(false);
+			return;
 		}
 
-		drawColumns(timePerspective);
+		addEventButton.setVisible(true);
+		requestTimelineLayout();
+	}
+
+	/**
+	 * Starts computing the layout of the current timeline on the background thread. The worker
+	 * never reads the timeline itself: it gets copies of the events, or for a windowed timeline
+	 * the source to read them from, which fails once the timeline has stopped using it. A
+	 * timeline that is changed while the layout is computed has a new version, so the layout
+	 * is not used. A layout that fails is requested again.
+	 */
+	private void requestTimelineLayout() {
+		Timeline timeline = currentTimeline;
+		int request = ++layoutRequest;
+		long version = timeline.getVersion();
+		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+		int trueWidth = width + 1;
+		boolean year = timePerspective.equals("Year");
+		LocalDate start = timeline.getStartDate();
+		long columnCount = TimelineLayout.columnCount(start, timeline.getEndDate(), trueWidth, screenSize.getWidth());
+		long[] days;
+		List<Event> events;
+		WindowedEventSource source = timeline.getWindowedSource();
+		TimelineLayout previous = null;
+
+		// A windowed timeline is not read completely, only the events around the part of the
+		// timeline that is scrolled into view are read, on the background thread
+		if (source != null) {
+			long[] visible = visibleDays(trueWidth, columnCount);
+			long margin = visible[1] - visible[0] + 1;
+			days = new long[] { visible[0] - margin, visible[1] + margin };
+			events = null;
+
+			// Windowed layouts are not changed once computed, so the events that have been shown
+			// can keep their rows
+			if (timeline == layoutTimeline) {
+				previous = layout;
+			}
+		} else {
+			days = new long[] { 0, columnCount - 1 };
+			events = timeline.getList() != null ? timeline.snapshot().getList() : new ArrayList<Event>();
+		}
 
-		if (currentTimeline != null) {
-			addEventButton.setVisible(true);
+		requestedDays = days;
+		TimelineLayout previousLayout = previous;
 
-			// Fetch events from timeline
-			ArrayList<Event> events = new ArrayList<Event>();
-			if (currentTimeline.getList() != null) {
-				for (int i = 0; i < currentTimeline.getList().size(); i++) {
-					events.add(currentTimeline.getList().get(i));
-				}
+		if (pendingLayout != null) {
+			pendingLayout.cancel(false);
+		}
+
+		pendingLayout = layoutExecutor.submit(() -> {
+			try {
+				List<Event> list = events != null ? events : source.eventsOverlapping(
+						start.plusDays(days[0]).atStartOfDay(), start.plusDays(days[1]).atTime(LocalTime.MAX));
+				TimelineLayout result = TimelineLayout.compute(start, columnCount, trueWidth, year,
+						screenSize.getHeight(), list, previousLayout);
+				Platform.runLater(() -> applyLayout(request, timeline, version, result));
+			} catch (IOException | RuntimeException ex) {
+				System.err.println("Could not lay out timeline. Message: " + ex.getMessage());
+				Platform.runLater(() -> retryLayout(request, timeline));
 			}
+		});
+	}
+
+	/**
+	 * Requests a layout that has failed again, unless a newer one has been started or it has
+	 * failed too often. A windowed timeline usually fails because it has been read completely
+	 * and closed its source, and is then laid out from its events. Runs on the JavaFX thread.
+	 */
+	private void retryLayout(int request, Timeline timeline) {
+		if (request != layoutRequest || timeline != currentTimeline) {
+			return;
+		}
+
+		if (++failedLayouts < MAX_LAYOUT_TRIES) {
+			requestTimelineLayout();
+		} else {
+			failedLayouts = 0;
+		}
+	}
+
+	/**
+	 * Shows a layout computed on the background thread, unless a newer one has been started or
+	 * the timeline has changed since. Runs on the JavaFX thread.
+	 */
+	private void applyLayout(int request, Timeline timeline, long version, TimelineLayout result) {
+		if (request != layoutRequest || timeline != currentTimeline) {
+			return;
+		}
+
+		if (timeline.getVersion() != version) {
+			requestTimelineLayout();
+			return;
+		}
+
+		boolean sameDays = timeline == layoutTimeline && layout != null && layout.getStart().equals(result.getStart())
+				&& layout.getTrueWidth() == result.getTrueWidth() && layout.isYear() == result.isYear()
+				&& layout.getColumnCount() == result.getColumnCount();
+
+		failedLayouts = 0;
+		layout = result;
+		layoutTimeline = timeline;
+		showLayout(sameDays);
+	}
+
+	/**
+	 * Replaces the nodes, or the drawing on the canvas, with those of the current layout.
+	 */
+	private void showLayout() {
+		showLayout(false);
+	}
+
+	/**
+	 * Replaces the nodes, or the drawing on the canvas, with those of the current layout.
+	 *
+	 * @param sameDays - true if the layout shown before has the same days, so its columns and
+	 *        month labels are kept, and so are the shapes of events that are placed where they were
+	 */
+	private void showLayout(boolean sameDays) {
+		if (sameDays) {
+			retainShapes();
+		} else {
+			clear();
+		}
+
+		content.setMinSize(layout.getContentWidth(), layout.getContentHeight());
+		content.setPrefSize(layout.getContentWidth(), layout.getContentHeight());
+		canvas.setLayout(layout, textColor);
+
+		for (DayColumn column : columns.values()) {
+			column.rect.setHeight(layout.getContentHeight() - HEADER_HEIGHT);
+		}
+
+		updateVisibleRange();
+	}
+
+	/**
+	 * Shows changes to the events of a timeline. If it is the timeline that is shown, the changed
+	 * events are placed again in its layout and only their shapes are replaced. Otherwise, or if
+	 * the changes are not all event changes, the timeline is shown and laid out from the start.
+	 *
+	 * @param timeline - the timeline to show
+	 * @param changes - the changes made to the timeline
+	 */
+	public void updateEvents(Timeline timeline, List<ModelChange> changes) {
+		// While the layout is held, changes that would lay out the shown timeline again wait for
+		// releaseLayout, and so do all changes after them since the layout no longer matches
+		if (layoutHolds > 0 && timeline != null && timeline == currentTimeline
+				&& (layoutDeferred || !canUpdateEvents(timeline, changes))) {
+			layoutDeferred = true;
+			return;
+		}
+
+		if (!canUpdateEvents(timeline, changes)) {
+			setTimeline(timeline, "");
+			return;
+		}
+
+		double oldHeight = layout.getContentHeight();
+		hovered = null;
 
-			ArrayList<EventShape> shapeList = new ArrayList<EventShape>();
-
-			int trueWidth = width + 1;
-
-			// Convert list of events in timeline to a list of EventShapes.
-			for (int i = 0; i < events.size(); i++) {
-				int length;
-				int start = (int) (ChronoUnit.DAYS.between(timeline.getStartDate(), events.get(i).getStartDate()));
-				if (events.get(i).getType() == EventType.DURATION) {
-					length = (int) (ChronoUnit.DAYS.between(events.get(i).getStartDate(), events.get(i).getEndDate()))
-							+ 1;
-					shape = new EventShape(events.get(i), start * trueWidth, length * trueWidth,
-							events.get(i).getColor());
-				} else {
-					length = 1;
-					shape = new EventShape(events.get(i), start * trueWidth + trueWidth / 2, length * trueWidth,
-							events.get(i).getColor());
-					start++;
+		for (ModelChange change : changes) {
+			if (change.getType() != ModelChange.Type.EVENT_ADDED) {
+				EventPlacement removed = layout.remove(change.getOldEvent());
+
+				// Every event with a start date is in the layout, if one is missing the layout
+				// does not match the timeline
+				if (removed == null && change.getOldEvent().getStartDate() != null) {
+					layoutTimeline = null;
+					setTimeline(timeline, "");
+					return;
+				}
+				if (removed != null) {
+					removeShape(removed.getEvent());
 				}
+			}
+
+			if (change.getType() != ModelChange.Type.EVENT_REMOVED) {
+				addShape(layout.add(change.getNewEvent()));
+			}
+		}
 
-				shapeList.add(shape);
+		if (layout.getContentHeight() != oldHeight) {
+			content.setMinSize(layout.getContentWidth(), layout.getContentHeight());
+			content.setPrefSize(layout.getContentWidth(), layout.getContentHeight());
 
-				onMouseOver();
-				setOnEventShapeClicked(shape);
-				setOnEventShapeHover(shape);
+			for (DayColumn column : columns.values()) {
+				column.rect.setHeight(layout.getContentHeight() - HEADER_HEIGHT);
 			}
+		}
 
-			// List that holds all added events.
-			ArrayList<EventShape> added = new ArrayList<EventShape>();
+		redrawNeeded = true;
+	}
 
-			// Algorithm for placing the EventShapes in the timeline view.
-			for (int i = 0; i < shapeList.size(); i++) {
+	/**
+	 * Keeps the layout that is shown while many changes are made one batch after the other,
+	 * like during an import. Batches too large to be shown one event at a time do not lay out
+	 * the timeline again each time, it is laid out once when the layout is released. Holds
+	 * can be nested, each one must be released.
+	 */
+	public void holdLayout() {
+		layoutHolds++;
+	}
 
-				if (i == 0) { // First event.
-					panes[0].getChildren().add(shapeList.get(i).getShape());
-					added.add(shapeList.get(i));
-				} else {
-					boolean found = false;
-					added.add(shapeList.get(i));
+	/**
+	 * Releases a hold from holdLayout, and lays out the timeline if changes were left out.
+	 */
+	public void releaseLayout() {
+		if (layoutHolds > 0 && --layoutHolds == 0 && layoutDeferred) {
+			setTimeline(currentTimeline, "");
+		}
+	}
 
-					for (int j = 0; !found; j++) {
+	/**
+	 * Returns true if the changes can be made to the layout that is shown, which has to be of
+	 * the timeline and the current time perspective.
+	 */
+	private boolean canUpdateEvents(Timeline timeline, List<ModelChange> changes) {
+		if (timeline == null || timeline != currentTimeline || timeline != layoutTimeline || timeline.isWindowed()
+				|| changes.size() > MAX_EVENT_CHANGES) {
+			return false;
+		}
 
-						if (j == rows) {
-							resize();
-						}
+		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+		int trueWidth = width + 1;
 
-						panes[j].getChildren().add(shapeList.get(i).getShape());
+		if (layout.getTrueWidth() != trueWidth || layout.isYear() != timePerspective.equals("Year")
+				|| !layout.getStart().equals(timeline.getStartDate()) || layout.getColumnCount() != TimelineLayout
+						.columnCount(timeline.getStartDate(), timeline.getEndDate(), trueWidth, screenSize.getWidth())) {
+			return false;
+		}
 
-						for (int k = 0; k < added.size() - 1; k++) {
-							if (shapeList.get(i).isOverlapping(added.get(k))
-									&& panes[j].getChildren().contains(added.get(k).getShape())) {
-								panes[j].getChildren().remove(shapeList.get(i).getShape());
-								found = false;
-								break;
-							}
-							found = true;
-						}
-					}
-				}
+		for (ModelChange change : changes) {
+			if (change.getTimeline() != timeline || (change.getType() != ModelChange.Type.EVENT_ADDED
+					&& change.getType() != ModelChange.Type.EVENT_UPDATED && change.getType() != ModelChange.Type.EVENT_REMOVED)) {
+				return false;
 			}
 		}
+
+		return true;
 	}
 
 	/**
 	 * Method that registers the listeners for the timeline view.
-	 * 
+	 *
 	 * @param listener
 	 */
 	public void registerListener(TimelineViewListener listener) {
@@ -221,7 +560,7 @@ public class TimelineView extends StackPane {
 
 	/**
 	 * Returns time perspective;
-	 * 
+	 *
 	 * @return time perspective
 	 */
 	public String getTimePerspective() {
@@ -230,7 +569,7 @@ public class TimelineView extends StackPane {
 
 	/**
 	 * Sets text color.
-	 * 
+	 *
 	 * @param textColor
 	 */
 	public void setTextColor(Color textColor) {
@@ -239,7 +578,7 @@ public class TimelineView extends StackPane {
 
 	/**
 	 * Returns text color.
-	 * 
+	 *
 	 * @return text color
 	 */
 	public Color getTextColor() {
@@ -247,219 +586,373 @@ public class TimelineView extends StackPane {
 	}
 
 	/**
-	 * Method that draws the columns in the TimelineView.
+	 * Creates the nodes for the part of the timeline that has been scrolled into view, if they
+	 * do not exist yet. The part that is rendered reaches one view width past the visible part
+	 * on each side, so the nodes only change once the view has been scrolled that far.
 	 */
-	private void drawColumns(String timePerspective) {
+	private void updateVisibleRange() {
+		if (currentTimeline == null || layout == null) {
+			return;
+		}
 
-		if (timePerspective.equals("Week")) {
-			width = 90;
-		} else if (timePerspective.equals("Month")) {
-			width = 29;
-		} else if (timePerspective.equals("Year")) {
-			width = 5;
+		long[] visible = visibleDays(layout.getTrueWidth(), layout.getColumnCount());
+
+		// Read the events of the next part of a windowed timeline once it is scrolled into view
+		if (currentTimeline.isWindowed() && (visible[0] < requestedDays[0] || visible[1] > requestedDays[1])) {
+			requestTimelineLayout();
 		}
 
-		container.getChildren().clear();
-		VBox column;
-		Text date;
-		Rectangle rect;
-		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-		stack.setPrefSize(screenSize.getWidth(), screenSize.getHeight());
-		int days = 0;
-		Pane months = new Pane();
-
-		// Get the duration of the timeline.
-		if (currentTimeline != null) {
-			LocalDate temp = currentTimeline.getStartDate();
-			for (int i = 0; !temp.equals(currentTimeline.getEndDate()); i++) {
-				temp = temp.plusDays(1);
-				days = i;
+		if (canvasRendering) {
+			redrawNeeded = true;
+		} else if (visible[0] < renderedDays[0] || visible[1] > renderedDays[1]) {
+			long margin = visible[1] - visible[0] + 1;
+			render(Math.max(0, visible[0] - margin), Math.min(layout.getColumnCount() - 1, visible[1] + margin));
+		}
+	}
+
+	/**
+	 * Makes the nodes match the days from the first to the last day. Nodes of days outside the
+	 * range are removed and reused for the days that have come into it.
+	 */
+	private void render(long first, long last) {
+		renderedDays[0] = first;
+		renderedDays[1] = last;
+
+		LocalDate start = layout.getStart();
+		int trueWidth = layout.getTrueWidth();
+		boolean year = layout.isYear();
+
+		// In the year perspective the columns start on the first day of each month
+		long firstColumn = year ? Math.max(0, first - start.plusDays(first).getDayOfMonth() + 1) : first;
+		List<Long> columnDays = new ArrayList<Long>();
+		List<Long> labelDays = new ArrayList<Long>();
+
+		for (long day = firstColumn; day <= last; day++) {
+			if (!year || day == 0 || start.plusDays(day).getDayOfMonth() == 1) {
+				columnDays.add(day);
 			}
-			days++;
+		}
 
-			HBox columns = new HBox();
-			boolean isFirst = true;
-			int monthCount = 0;
+		long[] monthLabelDays = layout.getMonthLabelDays();
 
-			// Draw the columns
-			for (int i = 0; i <= days || i <= (stack.getPrefWidth() / (width + 1)); i++) {
+		for (int i = layout.firstMonthLabelFrom(first); i < monthLabelDays.length && monthLabelDays[i] <= last; i++) {
+			labelDays.add(monthLabelDays[i]);
+		}
 
-				String day = String.valueOf(currentTimeline.getStartDate().plusDays(i).getDayOfMonth());
-				column = new VBox();
+		releaseColumns(columnDays);
+		releaseMonthLabels(labelDays);
 
-				if (!timePerspective.equals("Year")) {
+		for (long day : columnDays) {
+			if (!columns.containsKey(day)) {
+				DayColumn column = freeColumns.isEmpty() ? new DayColumn() : freeColumns.pop();
+				showColumn(column, day);
+				columns.put(day, column);
+				grid.getChildren().add(column.group);
+			}
+		}
 
-					column.setPrefWidth(width);
-					rect = new Rectangle();
-					rect.setWidth(width);
-					rect.setHeight(screenSize.getHeight());
-					rect.setStroke(Color.BLACK);
-					rect.setOpacity(0.1);
-					rect.setFill(Color.WHITE);
+		for (long day : labelDays) {
+			if (!monthLabels.containsKey(day)) {
+				Text month = freeMonthLabels.isEmpty() ? new Text() : freeMonthLabels.pop();
+				LocalDate date = start.plusDays(day);
+				month.setText(String.valueOf(date.getMonth()) + " " + date.getYear());
+				month.setFont(new Font(20));
+				month.setFill(textColor);
+				month.setTextOrigin(VPos.TOP);
+				month.setLayoutX(day * trueWidth);
+				monthLabels.put(day, month);
+				months.getChildren().add(month);
+			}
+		}
 
-					date = new Text();
-					date.setFont(Font.font("Arial", 18));
-					date.setFill(textColor);
-					date.setText(day);
+		renderEvents(first * trueWidth, (last + 1) * trueWidth);
+	}
 
-					BorderPane txtContainer = new BorderPane();
-					txtContainer.setCenter(date);
-					txtContainer.setPrefHeight(20);
+	private void showColumn(DayColumn column, long day) {
+		int trueWidth = layout.getTrueWidth();
+		LocalDate date = layout.getStart().plusDays(day);
+		int columnWidth = trueWidth - 1;
 
-					String weekDayStr = String.valueOf(currentTimeline.getStartDate().plusDays(i).getDayOfWeek());
+		if (layout.isYear()) {
+			long next = Math.min(layout.getColumnCount(), day + date.lengthOfMonth() - date.getDayOfMonth() + 1);
+			columnWidth = (int) (next - day) * trueWidth;
+			column.weekDay.setText("");
+			column.date.setText("");
+		} else {
+			String weekDayStr = String.valueOf(date.getDayOfWeek());
+			column.weekDay.setText(day % 2 == 0 ? weekDayStr.substring(0, 3) : "");
+			column.date.setText(String.valueOf(date.getDayOfMonth()));
+			column.weekDay.setFill(textColor);
+			column.date.setFill(textColor);
+			column.weekDay.setX((columnWidth - column.weekDay.getLayoutBounds().getWidth()) / 2);
+			column.date.setX((columnWidth - column.date.getLayoutBounds().getWidth()) / 2);
+		}
 
-					if (i % 2 == 0) {
-						weekDayStr = weekDayStr.substring(0, 3);
-					} else {
-						weekDayStr = "";
-					}
+		column.rect.setWidth(columnWidth);
+		column.rect.setHeight(layout.getContentHeight() - HEADER_HEIGHT);
+		column.group.setLayoutX(day * trueWidth);
+	}
 
-					Text weekDay = new Text(weekDayStr);
-					weekDay.setFill(textColor);
-					txtContainer.setTop(weekDay);
-					BorderPane.setAlignment(weekDay, Pos.TOP_CENTER);
+	private void releaseColumns(List<Long> keep) {
+		Set<Long> kept = new HashSet<Long>(keep);
+		Iterator<Map.Entry<Long, DayColumn>> it = columns.entrySet().iterator();
 
-					column.getChildren().addAll(txtContainer, rect);
-				}
+		while (it.hasNext()) {
+			Map.Entry<Long, DayColumn> entry = it.next();
 
-				if (day.equals("1") || Integer.parseInt(day) < 25 && isFirst == true) {
-					Text month = new Text(String.valueOf(currentTimeline.getStartDate().plusDays(i).getMonth()) + " "
-							+ currentTimeline.getStartDate().plusDays(i).getYear());
-					month.setFont(new Font(20));
-					month.setFill(textColor);
-					months.getChildren().add(month);
-					month.setLayoutX(i * (width + 1));
-					isFirst = false;
-
-					if (timePerspective.equals("Year")) {
-						int yearWidth;
-						if (monthCount % 4 == 0)
-							yearWidth = (width + 1) * 31;
-						else
-							yearWidth = (width + 1) * 30;
-
-						if (!day.equals("1")) {
-							yearWidth = (31 - Integer.parseInt(day)) * (width + 1);
-						}
+			if (!kept.contains(entry.getKey())) {
+				grid.getChildren().remove(entry.getValue().group);
+				freeColumns.push(entry.getValue());
+				it.remove();
+			}
+		}
+	}
+
+	private void releaseMonthLabels(List<Long> keep) {
+		Set<Long> kept = new HashSet<Long>(keep);
+		Iterator<Map.Entry<Long, Text>> it = monthLabels.entrySet().iterator();
+
+		while (it.hasNext()) {
+			Map.Entry<Long, Text> entry = it.next();
+
+			if (!kept.contains(entry.getKey())) {
+				months.getChildren().remove(entry.getValue());
+				freeMonthLabels.push(entry.getValue());
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Makes the event shapes match the events between the two x positions. Shapes of events
+	 * that are still in range are kept.
+	 */
+	private void renderEvents(long fromX, long toX) {
+		Map<Event, EventShape> inRange = new IdentityHashMap<Event, EventShape>();
+
+		for (List<EventPlacement> row : layout.getRows()) {
+			for (int i = TimelineLayout.firstEndingAfter(row, fromX); i < row.size() && row.get(i).getX() < toX; i++) {
+				EventPlacement placement = row.get(i);
+
+				if (placement.getX() + placement.getWidth() > fromX) {
+					EventShape shape = shapes.remove(placement.getEvent());
+
+					if (shape == null) {
+						shape = retainedShapes.remove(placement.getEvent().getId());
+
+						if (shape != null && isPlacedAs(shape, placement)) {
+							shape.setEvent(placement.getEvent());
+						} else {
+							if (shape != null) {
+								eventLayer.getChildren().remove(shape.getShape());
+							}
 
-						Rectangle yearRect = new Rectangle();
-						yearRect.setWidth(yearWidth);
-						yearRect.setHeight(screenSize.getHeight());
-						yearRect.setStroke(Color.BLACK);
-						yearRect.setOpacity(0.1);
-						yearRect.setFill(Color.WHITE);
-						Pane filler = new Pane();
-						filler.setMinHeight(38);
-						column.getChildren().addAll(filler, yearRect);
+							shape = createShape(placement);
+							eventLayer.getChildren().add(shape.getShape());
+						}
 					}
-					monthCount++;
+
+					inRange.put(placement.getEvent(), shape);
 				}
-				columns.getChildren().add(column);
 			}
-			container.getChildren().addAll(months, columns);
 		}
+
+		for (EventShape shape : shapes.values()) {
+			eventLayer.getChildren().remove(shape.getShape());
+		}
+		for (EventShape shape : retainedShapes.values()) {
+			eventLayer.getChildren().remove(shape.getShape());
+		}
+
+		shapes = inRange;
+		retainedShapes.clear();
+	}
+
+	/**
+	 * Returns true if a shape can show a placement without being changed.
+	 */
+	private static boolean isPlacedAs(EventShape shape, EventPlacement placement) {
+		Event old = shape.getEvent();
+		Event event = placement.getEvent();
+
+		return shape.getLayoutX() == placement.getX() && shape.getWidth() == placement.getWidth()
+				&& shape.getShape().getLayoutY() == EVENTS_TOP + placement.getRow() * ROW_HEIGHT
+				&& old.getType() == event.getType() && Objects.equals(old.getColor(), event.getColor());
 	}
 
-	private void resize() {
-		rows += 8;
-		Pane[] temp = new Pane[rows];
-		for (int i = 0; i < rows; i++) {
-			if (i < panes.length)
-				temp[i] = panes[i];
-			else
-				temp[i] = new Pane();
+	/**
+	 * Adds the shape of a placement if it is in the part of the timeline that has nodes.
+	 */
+	private void addShape(EventPlacement placement) {
+		if (placement == null || canvasRendering) {
+			return;
+		}
+
+		int trueWidth = layout.getTrueWidth();
+
+		if (placement.getX() < (renderedDays[1] + 1) * trueWidth
+				&& placement.getX() + placement.getWidth() > renderedDays[0] * trueWidth) {
+			EventShape shape = createShape(placement);
+			eventLayer.getChildren().add(shape.getShape());
+			shapes.put(placement.getEvent(), shape);
 		}
+	}
 
-		panes = temp;
+	private void removeShape(Event event) {
+		EventShape shape = shapes.remove(event);
 
-		for (int i = 0; i < rows; i++) {
-			panes[i] = temp[i];
+		if (shape != null) {
+			eventLayer.getChildren().remove(shape.getShape());
 		}
+	}
+
+	private EventShape createShape(EventPlacement placement) {
+		Event event = placement.getEvent();
+		EventShape shape = new EventShape(event, placement.getX(), placement.getWidth(), event.getColor());
+		shape.getShape().setLayoutY(EVENTS_TOP + placement.getRow() * ROW_HEIGHT);
+
+		setOnEventShapeClicked(shape);
+		setOnEventShapeHover(shape);
 
-		vbox.getChildren().clear();
-		vbox.getChildren().addAll(panes);
+		return shape;
 	}
 
-	private void onMouseOver() {
-		EventShape eventshape = shape;
+	/**
+	 * Keeps the nodes for a layout with the same days. The event shapes are kept by the id of
+	 * their events, for renderEvents to reuse, and the events are rendered again.
+	 */
+	private void retainShapes() {
+		for (EventShape shape : shapes.values()) {
+			retainedShapes.put(shape.getEvent().getId(), shape);
+		}
 
-		HBox buttonTile = new HBox();
+		shapes.clear();
+		hovered = null;
+		renderedDays[0] = 0;
+		renderedDays[1] = -1;
+	}
 
-		Pane filler = new Pane();
-		filler.setMinWidth(150);
+	/**
+	 * Removes all nodes and keeps the ones that can be reused.
+	 */
+	private void clear() {
+		releaseColumns(Collections.emptyList());
+		releaseMonthLabels(Collections.emptyList());
+		eventLayer.getChildren().clear();
+		shapes.clear();
+		retainedShapes.clear();
+		hovered = null;
+		renderedDays[0] = 0;
+		renderedDays[1] = -1;
+	}
 
-		edit = AwesomeDude.createIconButton(AwesomeIcon.EDIT_SIGN, "", "15", "15", ContentDisplay.CENTER);
-		edit.setBackground(Background.EMPTY);
-		delete = AwesomeDude.createIconButton(AwesomeIcon.TRASH, "", "15", "15", ContentDisplay.GRAPHIC_ONLY);
-		delete.setBackground(Background.EMPTY);
-		buttonTile.setSpacing(0);
-		buttonTile.getChildren().addAll(filler, delete, edit);
-		eventshape.getShape().setOnMouseClicked(new EventHandler<MouseEvent>() {
-			@Override
-			public void handle(MouseEvent event) {
-
-				VBox popupVBox = new VBox();
-				Text eventName = new Text("Event name: " + eventshape.getEvent().getEventName());
-				Text eventDescription = new Text("Event description: " + eventshape.getEvent().getDescription());
-				Text eventStart = new Text("Event start date: " + eventshape.getEvent().getStartDate());
-				Text eventEnd = new Text("Event end date: " + eventshape.getEvent().getEndDate());
-
-				if (eventshape.getEvent().getType() == EventType.DURATION) {
-					popupVBox.getChildren().addAll(buttonTile, eventName, eventDescription, eventStart, eventEnd);
-				} else {
-					popupVBox.getChildren().addAll(buttonTile, eventName, eventDescription, eventStart);
-				}
+	/**
+	 * Returns the first and the last day, counted from the start of the timeline, that are
+	 * scrolled into view.
+	 */
+	private long[] visibleDays(int trueWidth, long columnCount) {
+		double viewportWidth = scroll.getViewportBounds() != null && scroll.getViewportBounds().getWidth() > 0
+				? scroll.getViewportBounds().getWidth() : DEFAULT_SIZE.getWidth();
+		double contentWidth = (double) columnCount * trueWidth;
+		double x = scroll.getHvalue() * Math.max(0, contentWidth - viewportWidth);
 
-				eventWindow.setDetached(false);
-				eventWindow.setArrowLocation(ArrowLocation.TOP_CENTER);
-				eventWindow.setContentNode(popupVBox);
-				eventWindow.show(eventshape.getShape());
+		return new long[] { (long) (x / trueWidth), (long) ((x + viewportWidth) / trueWidth) };
+	}
 
-			}
-		});
+	/**
+	 * Moves the canvas to the part of the timeline that is scrolled into view and draws it.
+	 */
+	private void drawCanvas() {
+		double viewportWidth = scroll.getViewportBounds() != null && scroll.getViewportBounds().getWidth() > 0
+				? scroll.getViewportBounds().getWidth() : DEFAULT_SIZE.getWidth();
+		double viewportHeight = scroll.getViewportBounds() != null && scroll.getViewportBounds().getHeight() > 0
+				? scroll.getViewportBounds().getHeight() : DEFAULT_SIZE.getHeight();
+		double x = scroll.getHvalue() * Math.max(0, content.getPrefWidth() - viewportWidth);
+		double y = scroll.getVvalue() * Math.max(0, content.getPrefHeight() - viewportHeight);
+
+		canvas.setWidth(viewportWidth);
+		canvas.setHeight(viewportHeight);
+		canvas.setLayoutX(x);
+		canvas.setLayoutY(y);
+		canvas.draw(x, y);
 	}
 
 	private void setOnEventShapeClicked(EventShape shape) {
-		EventShape clicked = shape;
-
-		delete.setOnAction(e -> {
-			listener.onDeleteEventClicked(clicked.getEvent().getId());
-			eventWindow.hide();
+		shape.getShape().setOnMouseClicked(e -> {
+			setEventWindowContent(shape.getEvent());
+			eventWindow.show(shape.getShape());
 		});
+	}
 
-		edit.setOnAction(e -> {
-			listener.onEditEventClicked((Stage) getScene().getWindow(), clicked.getEvent());
-			eventWindow.hide();
+	private void setOnEventShapeHover(EventShape shape) {
+		shape.getShape().setOnMouseEntered(e -> {
+			if (shape.getShape().getLayoutBounds().contains(e.getX(), e.getY())) {
+				if (!eventWindow.isShowing()) {
+					setHoverWindowContent(shape.getEvent());
+					test.show(shape.getShape());
+				}
+			}
 		});
+
+		shape.getShape().setOnMouseExited(e -> test.hide());
 	}
 
-	private void setOnEventShapeHover(EventShape shape) {
+	/**
+	 * Shows the details of an event drawn on the canvas, at a point on the screen.
+	 */
+	private void showEventWindow(Event event, Node owner, double screenX, double screenY) {
+		setEventWindowContent(event);
+		eventWindow.show(owner, screenX, screenY);
+	}
 
-		EventShape hovered = shape;
-		VBox vBox = new VBox();
-		Text title = new Text("Event name: " + hovered.getEvent().getEventName());
-		vBox.getChildren().add(title);
-		test.setContentNode(vBox);
+	private void showHoverWindow(Event event, Node owner, double screenX, double screenY) {
+		setHoverWindowContent(event);
+		test.show(owner, screenX, screenY);
+	}
 
-		hovered.getShape().setOnMouseEntered(new EventHandler<MouseEvent>() {
+	private void setEventWindowContent(Event event) {
+		HBox buttonTile = new HBox();
+		Pane filler = new Pane();
+		filler.setMinWidth(150);
 
-			@Override
-			public void handle(MouseEvent event) {
+		Button edit = AwesomeDude.createIconButton(AwesomeIcon.EDIT_SIGN, "", "15", "15", ContentDisplay.CENTER);
+		edit.setBackground(Background.EMPTY);
+		Button delete = AwesomeDude.createIconButton(AwesomeIcon.TRASH, "", "15", "15", ContentDisplay.GRAPHIC_ONLY);
+		delete.setBackground(Background.EMPTY);
+		buttonTile.setSpacing(0);
+		buttonTile.getChildren().addAll(filler, delete, edit);
 
-				if (hovered.getShape().getLayoutBounds().contains(event.getX(), event.getY())) {
-					if (!eventWindow.isShowing()) {
-						test.show(hovered.getShape());
-					}
-				}
-			}
+		delete.setOnAction(action -> {
+			listener.onDeleteEventClicked(event.getId());
+			eventWindow.hide();
 		});
 
-		hovered.getShape().setOnMouseExited(new EventHandler<MouseEvent>() {
-			@Override
-			public void handle(MouseEvent event) {
-				test.hide();
-			}
+		edit.setOnAction(action -> {
+			listener.onEditEventClicked((Stage) getScene().getWindow(), event);
+			eventWindow.hide();
 		});
+
+		VBox popupVBox = new VBox();
+		Text eventName = new Text("Event name: " + event.getEventName());
+		Text eventDescription = new Text("Event description: " + event.getDescription());
+		Text eventStart = new Text("Event start date: " + event.getStartDate());
+		Text eventEnd = new Text("Event end date: " + event.getEndDate());
+
+		if (event.getType() == EventType.DURATION) {
+			popupVBox.getChildren().addAll(buttonTile, eventName, eventDescription, eventStart, eventEnd);
+		} else {
+			popupVBox.getChildren().addAll(buttonTile, eventName, eventDescription, eventStart);
+		}
+
+		eventWindow.setDetached(false);
+		eventWindow.setArrowLocation(ArrowLocation.TOP_CENTER);
+		eventWindow.setContentNode(popupVBox);
+	}
+
+	private void setHoverWindowContent(Event event) {
+		VBox vBox = new VBox();
+		vBox.getChildren().add(new Text("Event name: " + event.getEventName()));
+		test.setContentNode(vBox);
 	}
 
-}
\ No newline at end of file
+}
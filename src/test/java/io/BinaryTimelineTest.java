@@ -0,0 +1,223 @@
+package io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javafx.scene.paint.Color;
+import model.Event;
+import model.Event.EventType;
+import model.Timeline;
+
+public class BinaryTimelineTest {
+
+	private static final String RESOURCES = "src/test/resources/";
+
+	private FileHandler fileHandler;
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		fileHandler = new FileHandler();
+		file = File.createTempFile("timeline", BinaryTimelineFormat.EXTENSION);
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void testSameTimelineAsXmlForA() throws Exception {
+		assertRoundTrip(fileHandler.readXMLStreaming(new File(RESOURCES + "a.xml")));
+	}
+
+	@Test
+	public void testSameTimelineAsXmlForB() throws Exception {
+		assertRoundTrip(fileHandler.readXMLStreaming(new File(RESOURCES + "b.xml")));
+	}
+
+	@Test
+	public void testMissingValues() throws Exception {
+		Timeline timeline = new Timeline(null);
+		Event event = new Event();
+		event.setId(3);
+		timeline.getList().add(event);
+		timeline.setNextId(7);
+
+		assertRoundTrip(timeline);
+	}
+
+	@Test
+	public void testRandomAccess() throws Exception {
+		Timeline timeline = new Timeline("random");
+		timeline.setStartDate(LocalDate.of(2018, 1, 1));
+
+		for (int i = 0; i < 100; i++) {
+			LocalDateTime start = LocalDateTime.of(2018, 1, 1, 0, 0).plusHours(i * 7);
+			timeline.add("Event " + i, "", start, start.plusMinutes(i), EventType.DURATION,
+					Color.rgb(i % 3 * 100, 0, 0));
+		}
+
+		fileHandler.writeTimeline(timeline, file);
+		BinaryTimelineReader reader = new BinaryTimelineReader(file);
+
+		assertEquals(100, reader.size());
+		assertEquals(timeline.getList().get(73).toString(), reader.readEvent(73).toString());
+		assertEquals(timeline.getList().get(73).getEndDate(), reader.readEvent(73).getEndDate());
+		assertEquals(timeline.getList().get(0).getColor(), reader.readEvent(0).getColor());
+		assertEquals(timeline.getList().get(99).getColor(), reader.readEvent(99).getColor());
+	}
+
+	@Test
+	public void testCorruptEventTypeIsAnIOException() throws Exception {
+		Timeline timeline = new Timeline("corrupt");
+		timeline.add("a", "", LocalDateTime.of(2018, 1, 1, 0, 0), null, EventType.NON_DURATION, Color.BLUE);
+		fileHandler.writeTimeline(timeline, file);
+
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		int footerOffset = (int) buffer.getLong(bytes.length - BinaryTimelineFormat.TRAILER_SIZE);
+		bytes[buffer.getInt(footerOffset)] |= BinaryTimelineFormat.EVENT_TYPE_MASK;
+		Files.write(file.toPath(), bytes);
+
+		try {
+			new BinaryTimelineReader(file).read();
+			fail("A corrupt event type was read");
+		} catch (IOException expected) {
+			assertEquals("corrupt event type", expected.getMessage());
+		}
+	}
+
+	@Test
+	public void testPagedSourceMatchesIntervalIndex() throws Exception {
+		Timeline timeline = new Timeline("paged");
+		timeline.setStartDate(LocalDate.of(2018, 1, 1));
+		Random random = new Random(4);
+
+		// Enough events for several pages, some of them long enough to reach into other pages
+		for (int i = 0; i < 5000; i++) {
+			LocalDateTime start = LocalDateTime.of(2018, 1, 1, 0, 0).plusMinutes(random.nextInt(500000));
+
+			if (i % 3 == 0) {
+				timeline.add("Point " + i, "", start, null, EventType.NON_DURATION, Color.BLUE);
+			} else {
+				int minutes = i % 100 == 0 ? 200000 : random.nextInt(3000);
+				timeline.add("Event " + i, "", start, start.plusMinutes(minutes), EventType.DURATION, Color.RED);
+			}
+		}
+
+		fileHandler.writeTimeline(timeline, file);
+		BinaryTimelineReader reader = new BinaryTimelineReader(file);
+		PagedEventSource source = new PagedEventSource(file, reader);
+
+		assertTrue(reader.hasIndex());
+		assertEquals(5, reader.getPageCount());
+
+		for (int i = 0; i < 50; i++) {
+			LocalDateTime from = LocalDateTime.of(2018, 1, 1, 0, 0).plusMinutes(random.nextInt(520000) - 10000);
+			LocalDateTime to = from.plusMinutes(random.nextInt(20000));
+
+			assertEquals(ids(timeline.eventsOverlapping(from, to)), ids(source.eventsOverlapping(from, to)));
+		}
+	}
+
+	@Test
+	public void testPagedSourceReadsAllEventsInFileOrder() throws Exception {
+		Timeline timeline = new Timeline("all");
+
+		for (int i = 0; i < 2500; i++) {
+			// Some events without a start date, which are not in the index of the file
+			LocalDateTime start = i % 10 == 0 ? null : LocalDateTime.of(2018, 1, 1, 0, 0).plusHours(2500 - i);
+			timeline.add("Event " + i, "", start, null, EventType.NON_DURATION, Color.BLUE);
+		}
+
+		fileHandler.writeTimeline(timeline, file);
+		BinaryTimelineReader reader = new BinaryTimelineReader(file);
+		PagedEventSource source = new PagedEventSource(file, reader);
+		List<Event> events = new ArrayList<Event>();
+
+		for (int first = 0; first < source.size(); first += 1000) {
+			events.addAll(source.readEvents(first, 1000));
+		}
+
+		assertEquals(ids(reader.read().getList()), ids(events));
+		assertEquals(0, source.readEvents(2500, 1000).size());
+	}
+
+	@Test
+	public void testWindowedSnapshotOutlivesTheSourceOfTheTimeline() throws Exception {
+		Timeline timeline = new Timeline("copy");
+
+		for (int i = 0; i < 2500; i++) {
+			timeline.add("Event " + i, "", LocalDateTime.of(2018, 1, 1, 0, 0).plusHours(i), null, EventType.NON_DURATION, Color.BLUE);
+		}
+
+		fileHandler.writeTimeline(timeline, file);
+		BinaryTimelineReader reader = BinaryTimelineReader.mapped(file);
+		Timeline windowed = reader.readHeader();
+		windowed.detach(new PagedEventSource(file, reader));
+		Timeline copy = windowed.windowedSnapshot();
+
+		// Reading the timeline completely closes its source
+		windowed.load();
+		assertTrue(windowed.isResident());
+		assertEquals(ids(timeline.getList()), ids(copy.getEvents(0, 2500)));
+
+		copy.releaseSource();
+
+		try {
+			copy.getEvents(0, 1);
+			fail("A released copy was read");
+		} catch (UncheckedIOException expected) {
+		}
+	}
+
+	private List<Integer> ids(List<Event> events) {
+		List<Integer> ids = new ArrayList<Integer>();
+
+		for (Event e : events) {
+			ids.add(e.getId());
+		}
+
+		return ids;
+	}
+
+	private void assertRoundTrip(Timeline expected) throws Exception {
+		fileHandler.writeTimeline(expected, file);
+		Timeline actual = fileHandler.readTimeline(file);
+
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getPath(), actual.getPath());
+		assertEquals(expected.getStartDate(), actual.getStartDate());
+		assertEquals(expected.getEndDate(), actual.getEndDate());
+		assertEquals(expected.getMaxId(), actual.getMaxId());
+		assertEquals(expected.getList().size(), actual.getList().size());
+
+		for (int i = 0; i < expected.getList().size(); i++) {
+			Event e = expected.getList().get(i);
+			Event a = actual.getList().get(i);
+
+			assertEquals(e.getId(), a.getId());
+			assertEquals(e.getEventName(), a.getEventName());
+			assertEquals(e.getDescription(), a.getDescription());
+			assertEquals(e.getType(), a.getType());
+			assertEquals(e.getColor(), a.getColor());
+			assertEquals(e.getStartDate(), a.getStartDate());
+			assertEquals(e.getEndDate(), a.getEndDate());
+		}
+	}
+}
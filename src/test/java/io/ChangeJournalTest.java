@@ -0,0 +1,183 @@
+package io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javafx.scene.paint.Color;
+import model.Event;
+import model.Event.EventType;
+import model.ModelChange;
+import model.Timeline;
+import model.TimelineContainer;
+
+public class ChangeJournalTest {
+
+	private static final LocalDateTime BASE = LocalDateTime.of(2018, 3, 1, 12, 0);
+
+	private File dir;
+	private File file;
+	private FileHandler fileHandler;
+	private TimelineContainer container;
+	private ChangeJournal journal;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("journal").toFile();
+		file = new File(dir, "timeline.xml");
+		fileHandler = new FileHandler();
+
+		Timeline timeline = new Timeline("journal");
+		timeline.setStartDate(LocalDate.of(2018, 1, 1));
+
+		for (int i = 0; i < 10; i++) {
+			timeline.add("Event " + i, "", BASE.plusDays(i), BASE.plusDays(i + 2), EventType.DURATION, Color.BLUE);
+		}
+
+		fileHandler.writeTimeline(timeline, file);
+
+		journal = new ChangeJournal(file);
+		container = new TimelineContainer();
+		container.addTimeline(timeline);
+		container.registerListener(new interfaces.ModelChangedListener() {
+			@Override
+			public void onModelChanged(List<Timeline> timelines, Timeline active) {
+			}
+
+			@Override
+			public void onModelChanged(List<ModelChange> changes, List<Timeline> timelines, Timeline active) {
+				changes.forEach(journal::record);
+			}
+		});
+	}
+
+	@After
+	public void tearDown() {
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+
+		dir.delete();
+	}
+
+	@Test
+	public void testReplayGivesSavedState() throws Exception {
+		makeChanges();
+		journal.flush(container.getActiveTimeline());
+
+		assertSameTimeline(container.getActiveTimeline(), fileHandler.readTimeline(file));
+	}
+
+	@Test
+	public void testUnflushedChangesAreNotSaved() throws Exception {
+		long saved = file.length();
+		makeChanges();
+
+		assertEquals(saved, file.length());
+		assertEquals(10, fileHandler.readTimeline(file).getList().size());
+	}
+
+	@Test
+	public void testReplayOnCompactedFile() throws Exception {
+		makeChanges();
+		Timeline timeline = container.getActiveTimeline();
+		journal.flush(timeline);
+
+		// A crash after writing the timeline file but before trimming the journal
+		new XmlTimelineCodec().write(timeline, file);
+
+		assertSameTimeline(timeline, fileHandler.readTimeline(file));
+	}
+
+	@Test
+	public void testIncompleteRecordIsIgnored() throws Exception {
+		makeChanges();
+		journal.flush(container.getActiveTimeline());
+		long length = journal.getFile().length();
+
+		container.editEvent(1, "Lost", "", BASE, BASE, EventType.NON_DURATION, Color.RED);
+		journal.flush(container.getActiveTimeline());
+
+		try (FileOutputStream out = new FileOutputStream(journal.getFile(), true)) {
+			out.getChannel().truncate(journal.getFile().length() - 3);
+		}
+
+		Timeline read = fileHandler.readTimeline(file);
+
+		assertEquals("Event 1 edited", read.getEventById(1).getEventName());
+		assertEquals(length, journal.getFile().length());
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+		makeChanges();
+		Timeline timeline = container.getActiveTimeline();
+		journal.flush(timeline);
+		long length = journal.getFile().length();
+
+		container.deleteEvent(2);
+		journal.flush(timeline);
+
+		Timeline snapshot = fileHandler.readTimeline(file);
+		snapshot.getList().add(new Event(snapshot.getEventById(3)));
+		journal.compact(fileHandler.readTimeline(file), length);
+
+		assertTrue(journal.getFile().length() < length);
+		assertSameTimeline(timeline, fileHandler.readTimeline(file));
+	}
+
+	@Test
+	public void testChangesAreKeptWhenWriteFails() throws Exception {
+		makeChanges();
+		ChangeJournal.Flush flush = journal.prepareFlush(container.getActiveTimeline());
+
+		// A directory in place of the journal makes the write fail
+		journal.getFile().mkdir();
+
+		try {
+			journal.write(flush);
+			fail("Expected an IOException");
+		} catch (IOException ex) {
+			// expected
+		}
+
+		assertTrue(journal.hasPendingChanges());
+		journal.getFile().delete();
+		journal.flush(container.getActiveTimeline());
+
+		assertSameTimeline(container.getActiveTimeline(), fileHandler.readTimeline(file));
+	}
+
+	private void makeChanges() {
+		container.addEvent("New", "added", BASE, BASE.plusHours(1), EventType.DURATION, Color.RED);
+		container.editEvent(1, "Event 1 edited", "changed", BASE.minusDays(1), BASE, EventType.DURATION, Color.rgb(0, 128, 128));
+		container.deleteEvent(5);
+		container.getActiveTimeline().setName("renamed");
+	}
+
+	private void assertSameTimeline(Timeline expected, Timeline actual) {
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getStartDate(), actual.getStartDate());
+		assertEquals(expected.getMaxId(), actual.getMaxId());
+		assertEquals(expected.getList().size(), actual.getList().size());
+
+		for (Event e : expected.getList()) {
+			Event a = actual.getEventById(e.getId());
+
+			assertNotNull(a);
+			assertEquals(e.toString(), a.toString());
+			assertEquals(e.getColor(), a.getColor());
+			assertEquals(e.getEndDate(), a.getEndDate());
+		}
+	}
+}
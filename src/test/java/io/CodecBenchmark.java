@@ -0,0 +1,76 @@
+package io;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import javafx.scene.paint.Color;
+import model.Event.EventType;
+import model.Timeline;
+
+/**
+ * Manual benchmark comparing all timeline codecs. Prints the file size and the average
+ * time to write and read a timeline of increasing size for every codec found by
+ * TimelineCodecs.
+ *
+ * Run the main method, it is not part of the unit tests.
+ */
+public class CodecBenchmark {
+
+	private static final int[] SIZES = { 1_000, 10_000, 100_000 };
+	private static final int ROUNDS = 5;
+	private static final Color[] COLORS = { Color.BLUE, Color.RED, Color.TEAL, Color.GRAY };
+
+	public static void main(String[] args) throws Exception {
+		File dir = Files.createTempDirectory("codec-benchmark").toFile();
+		Random random = new Random(1);
+
+		System.out.printf("%-18s %10s %12s %12s %12s%n", "codec", "events", "size (kB)", "write (ms)", "read (ms)");
+
+		for (int size : SIZES) {
+			Timeline timeline = createTimeline(size, random);
+
+			for (TimelineCodec codec : TimelineCodecs.getCodecs()) {
+				File file = new File(dir, "benchmark" + codec.getExtensions().get(0));
+
+				// Warm up
+				codec.write(timeline, file);
+				codec.read(file);
+
+				long start = System.nanoTime();
+				for (int i = 0; i < ROUNDS; i++) {
+					codec.write(timeline, file);
+				}
+				long writeTime = (System.nanoTime() - start) / ROUNDS;
+
+				start = System.nanoTime();
+				for (int i = 0; i < ROUNDS; i++) {
+					codec.read(file);
+				}
+				long readTime = (System.nanoTime() - start) / ROUNDS;
+
+				System.out.printf("%-18s %10d %12d %12.1f %12.1f%n", codec.getName(), size, file.length() / 1024,
+						writeTime / 1e6, readTime / 1e6);
+				file.delete();
+			}
+		}
+
+		dir.delete();
+	}
+
+	private static Timeline createTimeline(int size, Random random) {
+		Timeline timeline = new Timeline("Benchmark");
+		timeline.setStartDate(LocalDate.of(2000, 1, 1));
+		timeline.setEndDate(LocalDate.of(2010, 1, 1));
+
+		for (int i = 0; i < size; i++) {
+			LocalDateTime start = LocalDateTime.of(2000, 1, 1, 0, 0).plusMinutes(random.nextInt(60 * 24 * 365 * 10));
+			timeline.add("Event " + i, "Description of event " + i, start, start.plusDays(random.nextInt(30)),
+					EventType.DURATION, COLORS[random.nextInt(COLORS.length)]);
+		}
+
+		return timeline;
+	}
+}
@@ -0,0 +1,109 @@
+package io;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javafx.scene.paint.Color;
+import model.Event;
+import model.Event.EventType;
+import model.Timeline;
+
+public class EventExporterTest {
+
+	private Timeline timeline;
+
+	@Before
+	public void setUp() {
+		timeline = new Timeline("Export");
+		timeline.setStartDate(LocalDate.of(2018, 1, 1));
+		timeline.setEndDate(LocalDate.of(2018, 12, 31));
+
+		timeline.add("Trip, \"long\"", "Rome;\nFlorence\\Pisa", LocalDateTime.of(2018, 3, 1, 8, 0),
+				LocalDateTime.of(2018, 3, 5, 20, 0), EventType.DURATION, Color.rgb(0, 128, 128));
+		timeline.add("Meeting", repeat("A very long description ", 20), LocalDateTime.of(2018, 6, 2, 10, 30), null,
+				EventType.NON_DURATION, Color.RED);
+		timeline.add("Autumn", "", LocalDateTime.of(2018, 10, 1, 0, 0), null, EventType.NON_DURATION, Color.BLUE);
+	}
+
+	@Test
+	public void testCsvCanBeImported() throws Exception {
+		assertImportedAgain(new CsvEventExporter(), new CsvEventImporter(null));
+	}
+
+	@Test
+	public void testIcsCanBeImported() throws Exception {
+		StringWriter out = new StringWriter();
+		new IcsEventExporter().write(timeline, null, null, out);
+
+		for (String line : out.toString().split("\r\n")) {
+			assertTrue(line, line.length() <= 75);
+		}
+
+		assertImportedAgain(new IcsEventExporter(), new IcsEventImporter());
+	}
+
+	@Test
+	public void testJsonLines() throws Exception {
+		StringWriter out = new StringWriter();
+		int count = new JsonLinesEventExporter().write(timeline, null, null, out);
+		String[] lines = out.toString().split("\n");
+
+		assertEquals(3, count);
+		assertEquals(3, lines.length);
+		assertEquals("{\"id\":1,\"title\":\"Trip, \\\"long\\\"\",\"description\":\"Rome;\\nFlorence\\\\Pisa\","
+				+ "\"start\":\"2018-03-01T08:00\",\"end\":\"2018-03-05T20:00\",\"type\":\"DURATION\",\"color\":\"#008080\"}",
+				lines[0]);
+		assertTrue(lines[1], lines[1].contains("\"end\":null"));
+	}
+
+	@Test
+	public void testRange() throws Exception {
+		StringWriter out = new StringWriter();
+		int count = new CsvEventExporter().write(timeline, LocalDateTime.of(2018, 3, 4, 0, 0),
+				LocalDateTime.of(2018, 6, 30, 0, 0), out);
+
+		assertEquals(2, count);
+		assertFalse(out.toString().contains("Autumn"));
+	}
+
+	private void assertImportedAgain(EventExporter exporter, EventImporter importer) throws Exception {
+		StringWriter out = new StringWriter();
+		exporter.write(timeline, null, null, out);
+
+		List<Event> imported = new ArrayList<Event>();
+		importer.read(new StringReader(out.toString()), imported::add, (line, message) -> fail(line + ": " + message));
+
+		assertEquals(timeline.getList().size(), imported.size());
+
+		for (int i = 0; i < imported.size(); i++) {
+			Event expected = timeline.getList().get(i);
+			Event actual = imported.get(i);
+
+			assertEquals(expected.getEventName(), actual.getEventName());
+			assertEquals(expected.getDescription(), actual.getDescription());
+			assertEquals(expected.getStartDate(), actual.getStartDate());
+			assertEquals(expected.getEndDate(), actual.getEndDate());
+			assertEquals(expected.getType(), actual.getType());
+			assertEquals(expected.getColor(), actual.getColor());
+		}
+	}
+
+	private static String repeat(String text, int times) {
+		StringBuilder result = new StringBuilder();
+
+		for (int i = 0; i < times; i++) {
+			result.append(text);
+		}
+
+		return result.toString();
+	}
+}
@@ -0,0 +1,122 @@
+package io;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.ColumnMapping.Field;
+import javafx.scene.paint.Color;
+import model.Event;
+import model.Event.EventType;
+
+public class EventImporterTest {
+
+	private List<Event> events = new ArrayList<Event>();
+	private List<String> errors = new ArrayList<String>();
+
+	@Test
+	public void testCsvWithHeader() throws Exception {
+		read(new CsvEventImporter(null), "Name,Start,End,Notes,Color\r\n"
+				+ "Trip,2018-03-01,2018-03-05,\"Rome, Florence\",#ff0000\r\n"
+				+ "\"Meeting \"\"A\"\"\",2018-03-02 10:30,,\"two\nlines\",\r\n"
+				+ "Broken,March,,,\r\n"
+				+ "Last,2018-03-06T08:00,,,\r\n");
+
+		assertEquals(3, events.size());
+		assertEquals("Trip", events.get(0).getEventName());
+		assertEquals(EventType.DURATION, events.get(0).getType());
+		assertEquals(LocalDateTime.of(2018, 3, 5, 0, 0), events.get(0).getEndDate());
+		assertEquals("Rome, Florence", events.get(0).getDescription());
+		assertEquals(Color.web("#ff0000"), events.get(0).getColor());
+
+		assertEquals("Meeting \"A\"", events.get(1).getEventName());
+		assertEquals(EventType.NON_DURATION, events.get(1).getType());
+		assertEquals(LocalDateTime.of(2018, 3, 2, 10, 30), events.get(1).getStartDate());
+		assertEquals("two\nlines", events.get(1).getDescription());
+		assertEquals(EventImporter.DEFAULT_COLOR, events.get(1).getColor());
+
+		assertEquals(LocalDateTime.of(2018, 3, 6, 8, 0), events.get(2).getStartDate());
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0), errors.get(0).startsWith("5:"));
+	}
+
+	@Test
+	public void testCsvWithMapping() throws Exception {
+		ColumnMapping mapping = ColumnMapping.parse("start,,title").setHasHeader(false).setDelimiter(';')
+				.setDateFormat("dd.MM.yyyy");
+
+		read(new CsvEventImporter(mapping), "01.02.2018;x;First\n03.02.2018;y;Second");
+
+		assertEquals(2, events.size());
+		assertEquals(2, mapping.getColumn(Field.TITLE));
+		assertEquals("Second", events.get(1).getEventName());
+		assertEquals(LocalDateTime.of(2018, 2, 3, 0, 0), events.get(1).getStartDate());
+	}
+
+	@Test
+	public void testCsvWithByteOrderMark() throws Exception {
+		read(new CsvEventImporter(null), "\uFEFFName,Start\r\nTrip,2018-03-01\r\n");
+
+		assertEquals(1, events.size());
+		assertEquals("Trip", events.get(0).getEventName());
+	}
+
+	@Test
+	public void testCsvWithoutKnownHeader() throws Exception {
+		try {
+			read(new CsvEventImporter(null), "a,b\n1,2\n");
+			fail("A header without title and start was accepted");
+		} catch (IOException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testIcs() throws Exception {
+		read(new IcsEventImporter(), "BEGIN:VCALENDAR\r\n"
+				+ "BEGIN:VEVENT\r\n"
+				+ "SUMMARY:Holiday\\, long one\r\n"
+				+ "DESCRIPTION:First line\\nsecond \r\n"
+				+ " line\r\n"
+				+ "DTSTART;VALUE=DATE:20180701\r\n"
+				+ "DTEND;VALUE=DATE:20180711\r\n"
+				+ "BEGIN:VALARM\r\n"
+				+ "DESCRIPTION:Not this one\r\n"
+				+ "END:VALARM\r\n"
+				+ "END:VEVENT\r\n"
+				+ "BEGIN:VEVENT\r\n"
+				+ "SUMMARY:Call\r\n"
+				+ "DTSTART:20180702T120000Z\r\n"
+				+ "END:VEVENT\r\n"
+				+ "BEGIN:VEVENT\r\n"
+				+ "SUMMARY:No start\r\n"
+				+ "END:VEVENT\r\n"
+				+ "END:VCALENDAR\r\n");
+
+		assertEquals(2, events.size());
+		assertEquals("Holiday, long one", events.get(0).getEventName());
+		assertEquals("First line\nsecond line", events.get(0).getDescription());
+		assertEquals(EventType.DURATION, events.get(0).getType());
+		assertEquals(LocalDateTime.of(2018, 7, 1, 0, 0), events.get(0).getStartDate());
+		assertEquals(LocalDateTime.of(2018, 7, 10, 0, 0), events.get(0).getEndDate());
+
+		assertEquals(EventType.NON_DURATION, events.get(1).getType());
+		assertEquals(LocalDateTime.of(2018, 7, 2, 12, 0).atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault())
+				.toLocalDateTime(), events.get(1).getStartDate());
+
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0), errors.get(0).startsWith("16:"));
+	}
+
+	private void read(EventImporter importer, String content) throws IOException {
+		importer.read(new StringReader(content), events::add, (line, message) -> errors.add(line + ": " + message));
+	}
+}
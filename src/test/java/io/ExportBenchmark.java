@@ -0,0 +1,78 @@
+package io;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import javafx.scene.paint.Color;
+import model.Event.EventType;
+import model.Timeline;
+
+/**
+ * Manual benchmark of the exporters. Prints the file size, time and throughput of exporting
+ * a timeline of one million events with every exporter, and of writing the same timeline as
+ * XML for comparison.
+ *
+ * Run the main method, it is not part of the unit tests.
+ */
+public class ExportBenchmark {
+
+	private static final int SIZE = 1_000_000;
+	private static final int ROUNDS = 3;
+	private static final Color[] COLORS = { Color.BLUE, Color.RED, Color.TEAL, Color.GRAY };
+
+	public static void main(String[] args) throws Exception {
+		File dir = Files.createTempDirectory("export-benchmark").toFile();
+		Timeline timeline = createTimeline(SIZE, new Random(1));
+
+		System.out.printf("%-12s %10s %12s %12s %14s%n", "format", "events", "size (MB)", "time (ms)", "events/s");
+
+		for (EventExporter exporter : EventExporter.getExporters()) {
+			File file = new File(dir, "benchmark" + exporter.getExtension());
+			exporter.write(timeline, null, null, file); // warm up
+
+			long start = System.nanoTime();
+			for (int i = 0; i < ROUNDS; i++) {
+				exporter.write(timeline, null, null, file);
+			}
+			long time = (System.nanoTime() - start) / ROUNDS;
+
+			print(exporter.getName(), file, time);
+			file.delete();
+		}
+
+		File xml = new File(dir, "benchmark.xml");
+		FileHandler fileHandler = new FileHandler();
+		fileHandler.writeXML(timeline, xml, true);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			fileHandler.writeXML(timeline, xml, true);
+		}
+
+		print("XML", xml, (System.nanoTime() - start) / ROUNDS);
+		xml.delete();
+		dir.delete();
+	}
+
+	private static void print(String format, File file, long nanos) {
+		System.out.printf("%-12s %10d %12.1f %12.1f %14.0f%n", format, SIZE, file.length() / 1e6, nanos / 1e6,
+				SIZE / (nanos / 1e9));
+	}
+
+	private static Timeline createTimeline(int size, Random random) {
+		Timeline timeline = new Timeline("Benchmark");
+		timeline.setStartDate(LocalDate.of(2000, 1, 1));
+		timeline.setEndDate(LocalDate.of(2010, 1, 1));
+
+		for (int i = 0; i < size; i++) {
+			LocalDateTime start = LocalDateTime.of(2000, 1, 1, 0, 0).plusMinutes(random.nextInt(60 * 24 * 365 * 10));
+			timeline.add("Event " + i, "Description of event " + i, start, start.plusDays(random.nextInt(30)),
+					EventType.DURATION, COLORS[random.nextInt(COLORS.length)]);
+		}
+
+		return timeline;
+	}
+}
@@ -0,0 +1,111 @@
+package io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SettingsTest {
+
+	private File dir;
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("settings").toFile();
+		file = new File(dir, "config.properties");
+	}
+
+	@After
+	public void tearDown() {
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+
+		dir.delete();
+	}
+
+	@Test
+	public void testReadsAreAnsweredFromMemory() throws Exception {
+		write("theme=dark\n");
+		Settings settings = new Settings(file, 60000);
+		file.delete();
+
+		assertEquals("dark", settings.get("theme", "light"));
+		assertEquals("30", settings.get("autosaveInterval", "30"));
+	}
+
+	@Test
+	public void testChangesAreWrittenTogether() throws Exception {
+		Settings settings = new Settings(file, 100);
+		settings.set("theme", "dark");
+		settings.set("theme", "light");
+		settings.set("memoryBudget", "512");
+
+		assertFalse(file.exists());
+
+		long waited = 0;
+
+		while (!file.exists() && waited < 5000) {
+			Thread.sleep(20);
+			waited += 20;
+		}
+
+		Properties written = read();
+		assertEquals("light", written.getProperty("theme"));
+		assertEquals("512", written.getProperty("memoryBudget"));
+		settings.close();
+	}
+
+	@Test
+	public void testExternalChangesAreReadAgain() throws Exception {
+		write("theme=light\nmemoryBudget=256\n");
+		Settings settings = new Settings(file, 60000);
+		BlockingQueue<Set<String>> changes = new ArrayBlockingQueue<Set<String>>(10);
+		settings.addListener(changes::add);
+		settings.watch();
+
+		// Not written yet, keeps its value
+		settings.set("memoryBudget", "1024");
+		write("theme=dark\nmemoryBudget=128\n");
+
+		Set<String> keys = changes.poll(10, TimeUnit.SECONDS);
+		assertNotNull(keys);
+		assertEquals(1, keys.size());
+		assertTrue(keys.contains("theme"));
+		assertEquals("dark", settings.get("theme", "light"));
+		assertEquals("1024", settings.get("memoryBudget", ""));
+
+		// The program's own write is not reported
+		settings.flush();
+		assertEquals("1024", read().getProperty("memoryBudget"));
+		assertNull(changes.poll(500, TimeUnit.MILLISECONDS));
+		settings.close();
+	}
+
+	private void write(String content) throws Exception {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	private Properties read() throws Exception {
+		Properties properties = new Properties();
+
+		try (InputStream in = new FileInputStream(file)) {
+			properties.load(in);
+		}
+
+		return properties;
+	}
+}
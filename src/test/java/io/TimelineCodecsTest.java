@@ -0,0 +1,94 @@
+package io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import model.Event;
+import model.Timeline;
+
+public class TimelineCodecsTest {
+
+	private static final String RESOURCES = "src/test/resources/";
+
+	private Timeline timeline;
+	private File dir;
+
+	@Before
+	public void setUp() throws Exception {
+		timeline = new XmlTimelineCodec().read(new File(RESOURCES + "b.xml"));
+		dir = Files.createTempDirectory("codecs").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+
+		dir.delete();
+	}
+
+	@Test
+	public void testCodecForFileName() {
+		assertTrue(TimelineCodecs.forFileName("a.xml") instanceof XmlTimelineCodec);
+		assertTrue(TimelineCodecs.forFileName("A.TLB") instanceof BinaryTimelineCodec);
+		assertTrue(TimelineCodecs.forFileName("a.xml.gz") instanceof GzipXmlTimelineCodec);
+		assertNull(TimelineCodecs.forFileName("a.txt"));
+		assertTrue(TimelineCodecs.forWriting(new File("a.txt")) instanceof XmlTimelineCodec);
+	}
+
+	@Test
+	public void testRoundTripThroughEveryCodec() throws Exception {
+		for (TimelineCodec codec : TimelineCodecs.getCodecs()) {
+			File file = new File(dir, "b" + codec.getExtensions().get(0));
+			codec.write(timeline, file);
+
+			assertSame(codec, TimelineCodecs.forReading(file));
+			assertSameTimeline(codec.read(file));
+		}
+	}
+
+	@Test
+	public void testContentIsSniffedWhenExtensionIsWrong() throws Exception {
+		File file = new File(dir, "b.xml");
+		new BinaryTimelineCodec().write(timeline, file);
+
+		assertTrue(TimelineCodecs.forReading(file) instanceof BinaryTimelineCodec);
+		assertSameTimeline(new FileHandler().readTimeline(file));
+	}
+
+	@Test
+	public void testUnknownFormat() throws Exception {
+		File file = new File(dir, "b.txt");
+		Files.write(file.toPath(), "not a timeline".getBytes());
+
+		try {
+			TimelineCodecs.forReading(file);
+			fail("Expected an IOException");
+		} catch (IOException ex) {
+			// expected
+		}
+	}
+
+	private void assertSameTimeline(Timeline actual) {
+		assertEquals(timeline.getName(), actual.getName());
+		assertEquals(timeline.getMaxId(), actual.getMaxId());
+		assertEquals(timeline.getList().size(), actual.getList().size());
+
+		for (int i = 0; i < timeline.getList().size(); i++) {
+			Event e = timeline.getList().get(i);
+			Event a = actual.getList().get(i);
+
+			assertEquals(e.toString(), a.toString());
+			assertEquals(e.getColor(), a.getColor());
+			assertEquals(e.getEndDate(), a.getEndDate());
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import model.Event;
+import model.Timeline;
+
+public class TimelineStaxReaderTest {
+
+	private static final String RESOURCES = "src/test/resources/";
+
+	private FileHandler fileHandler;
+
+	@Before
+	public void setUp() {
+		fileHandler = new FileHandler();
+	}
+
+	@Test
+	public void testSameResultAsJaxbForA() throws Exception {
+		assertSameTimeline(new File(RESOURCES + "a.xml"));
+	}
+
+	@Test
+	public void testSameResultAsJaxbForB() throws Exception {
+		assertSameTimeline(new File(RESOURCES + "b.xml"));
+	}
+
+	@Test
+	public void testEventsArePassedToSink() throws Exception {
+		List<Event> events = new ArrayList<Event>();
+		Timeline timeline = fileHandler.readXMLStreaming(new File(RESOURCES + "a.xml"), events::add);
+
+		assertEquals("a", timeline.getName());
+		assertTrue(timeline.getList().isEmpty());
+		assertEquals(2, events.size());
+		assertEquals("meeting", events.get(1).getEventName());
+	}
+
+	private void assertSameTimeline(File file) throws Exception {
+		Timeline expected = fileHandler.readXML(file);
+		Timeline actual = fileHandler.readXMLStreaming(file);
+
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(expected.getPath(), actual.getPath());
+		assertEquals(expected.getMaxId(), actual.getMaxId());
+		assertEquals(expected.getList().size(), actual.getList().size());
+
+		for (int i = 0; i < expected.getList().size(); i++) {
+			Event e = expected.getList().get(i);
+			Event a = actual.getList().get(i);
+
+			assertEquals(e.toString(), a.toString());
+			assertEquals(e.getColor(), a.getColor());
+			assertEquals(e.getEndDate(), a.getEndDate());
+		}
+	}
+}
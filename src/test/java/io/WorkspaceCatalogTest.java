@@ -0,0 +1,95 @@
+package io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javafx.scene.paint.Color;
+import model.Event.EventType;
+import model.Timeline;
+
+public class WorkspaceCatalogTest {
+
+	private File dir;
+	private File file;
+	private Timeline timeline;
+	private WorkspaceCatalog catalog;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("catalog").toFile();
+		file = new File(dir, "tab\there.xml");
+		catalog = new WorkspaceCatalog(new File(dir, "workspace.catalog"));
+
+		timeline = new Timeline("Name with \\ and\nline break");
+		timeline.setStartDate(LocalDate.of(2018, 1, 1));
+
+		for (int i = 0; i < 5; i++) {
+			timeline.add("e" + i, "", LocalDateTime.of(2018, 1, 1 + i, 0, 0), null, EventType.NON_DURATION, Color.BLUE);
+		}
+
+		new FileHandler().writeTimeline(timeline, file);
+	}
+
+	@After
+	public void tearDown() {
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+
+		dir.delete();
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		catalog.write(Arrays.asList(WorkspaceCatalog.Entry.of(timeline, file)));
+		List<WorkspaceCatalog.Entry> entries = catalog.read();
+
+		assertEquals(1, entries.size());
+		WorkspaceCatalog.Entry entry = entries.get(0);
+
+		assertEquals(timeline.getName(), entry.getName());
+		assertEquals(timeline.getStartDate(), entry.getStartDate());
+		assertNull(entry.getEndDate());
+		assertEquals(5, entry.getEventCount());
+		assertEquals(file.getAbsoluteFile(), entry.getFile());
+		assertTrue(entry.isCurrent());
+	}
+
+	@Test
+	public void testChangedFileIsNotCurrent() throws Exception {
+		catalog.write(Arrays.asList(WorkspaceCatalog.Entry.of(timeline, file)));
+		Files.write(ChangeJournal.journalFileFor(file).toPath(), new byte[] { 1, 2, 3 });
+
+		assertFalse(catalog.read().get(0).isCurrent());
+	}
+
+	@Test
+	public void testUnsavedTimelineIsNotCurrent() throws Exception {
+		timeline.setHasUnsavedChanges(true);
+		catalog.write(Arrays.asList(WorkspaceCatalog.Entry.of(timeline, file)));
+
+		assertFalse(catalog.read().get(0).isCurrent());
+	}
+
+	@Test
+	public void testDetachedTimelineIsReadWhenUsed() throws Exception {
+		Timeline stub = new Timeline(timeline.getName());
+		stub.detach(new FileEventSource(file, 5, new FileHandler()));
+
+		assertFalse(stub.isResident());
+		assertEquals(5, stub.getEventCount());
+		assertEquals(5, stub.getList().size());
+		assertTrue(stub.isResident());
+		assertEquals(timeline.getMaxId(), stub.getMaxId());
+	}
+}
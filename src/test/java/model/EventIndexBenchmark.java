@@ -0,0 +1,73 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Random;
+
+import javafx.scene.paint.Color;
+import model.Event.EventType;
+
+/**
+ * Manual benchmark for editing and deleting events through TimelineContainer.
+ * Prints the average latency of editEvent and deleteEvent for timelines of
+ * increasing size, which should stay flat since both look the event up by id.
+ *
+ * Run the main method, it is not part of the unit tests.
+ */
+public class EventIndexBenchmark {
+
+	private static final int[] SIZES = { 1_000, 10_000, 100_000, 1_000_000 };
+	private static final int OPERATIONS = 20_000;
+	private static final LocalDateTime BASE = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+	public static void main(String[] args) {
+		Random random = new Random(1);
+
+		System.out.printf("%10s %15s %15s%n", "events", "edit (ns/op)", "delete (ns/op)");
+
+		for (int size : SIZES) {
+			TimelineContainer container = createContainer(size, random);
+
+			// Warm up
+			edit(container, size, random, OPERATIONS);
+
+			long start = System.nanoTime();
+			edit(container, size, random, OPERATIONS);
+			long editTime = (System.nanoTime() - start) / OPERATIONS;
+
+			start = System.nanoTime();
+			for (int i = 1; i <= OPERATIONS; i++) {
+				container.deleteEvent(i);
+			}
+			long deleteTime = (System.nanoTime() - start) / OPERATIONS;
+
+			System.out.printf("%10d %15d %15d%n", size, editTime, deleteTime);
+		}
+	}
+
+	private static TimelineContainer createContainer(int size, Random random) {
+		ArrayList<Event> events = new ArrayList<Event>(size);
+
+		for (int i = 1; i <= size; i++) {
+			LocalDateTime start = BASE.plusMinutes(random.nextInt(60 * 24 * 365 * 10));
+			events.add(new Event(i, "Event " + i, "", start, start.plusDays(1), EventType.DURATION, Color.BLUE));
+		}
+
+		Timeline timeline = new Timeline("Benchmark");
+		timeline.setList(events);
+
+		TimelineContainer container = new TimelineContainer();
+		container.registerListener((timelines, active) -> {
+		});
+		container.addTimeline(timeline);
+		return container;
+	}
+
+	private static void edit(TimelineContainer container, int size, Random random, int operations) {
+		for (int i = 0; i < operations; i++) {
+			int id = 1 + random.nextInt(size);
+			LocalDateTime start = BASE.plusMinutes(random.nextInt(60 * 24 * 365 * 10));
+			container.editEvent(id, "Edited", "", start, start.plusHours(1), EventType.DURATION, Color.RED);
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package model;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import interfaces.ModelChangedListener;
+import javafx.scene.paint.Color;
+import model.Event.EventType;
+
+public class TimelineContainerTest {
+
+	private static final LocalDateTime BASE = LocalDateTime.of(2017, 1, 1, 0, 0);
+
+	private TimelineContainer container;
+	private int notifications;
+
+	@Before
+	public void setUp() {
+		container = new TimelineContainer();
+		container.registerListener((timelines, active) -> notifications++);
+		container.addTimeline(new Timeline("test"));
+		notifications = 0;
+	}
+
+	@Test
+	public void testAddEventsNotifiesOnce() {
+		List<Event> events = new ArrayList<Event>();
+
+		for (int i = 0; i < 1000; i++) {
+			events.add(new Event(0, "e" + i, "", BASE.plusDays(i), null, EventType.NON_DURATION, Color.BLUE));
+		}
+
+		container.addEvents(events);
+
+		assertEquals(1, notifications);
+		assertEquals(1000, container.getActiveTimeline().getList().size());
+		assertTrue(container.getActiveTimeline().getHasUnsavedChanges());
+	}
+
+	@Test
+	public void testDeleteEventsNotifiesOnce() {
+		for (int i = 0; i < 10; i++) {
+			container.addEvent("e" + i, "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		}
+		notifications = 0;
+
+		container.deleteEvents(Arrays.asList(1, 2, 3, 42));
+
+		assertEquals(1, notifications);
+		assertEquals(7, container.getActiveTimeline().getList().size());
+	}
+
+	@Test
+	public void testNestedBatch() {
+		container.beginBatch();
+		container.addEvent("a", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		container.beginBatch();
+		container.addEvent("b", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		container.commitBatch();
+		assertEquals(0, notifications);
+
+		container.commitBatch();
+		assertEquals(1, notifications);
+	}
+
+	@Test
+	public void testEmptyBatchDoesNotNotify() {
+		container.beginBatch();
+		container.commitBatch();
+
+		assertEquals(0, notifications);
+	}
+
+	@Test
+	public void testChangesAreReported() {
+		List<ModelChange> reported = new ArrayList<ModelChange>();
+		container.registerListener(new ModelChangedListener() {
+			@Override
+			public void onModelChanged(List<Timeline> timelines, Timeline active) {
+			}
+
+			@Override
+			public void onModelChanged(List<ModelChange> changes, List<Timeline> timelines, Timeline active) {
+				reported.addAll(changes);
+			}
+		});
+
+		container.addEvent("a", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		container.editEvent(1, "b", "", BASE.plusDays(1), null, EventType.NON_DURATION, Color.BLUE);
+		container.deleteEvent(1);
+
+		assertEquals(3, reported.size());
+		assertEquals(ModelChange.Type.EVENT_ADDED, reported.get(0).getType());
+		assertEquals(ModelChange.Type.EVENT_UPDATED, reported.get(1).getType());
+		assertEquals("a", reported.get(1).getOldEvent().getEventName());
+		assertEquals("b", reported.get(1).getNewEvent().getEventName());
+		assertEquals(ModelChange.Type.EVENT_REMOVED, reported.get(2).getType());
+		assertEquals(1, reported.get(2).getEventId());
+	}
+
+	@Test
+	public void testChangesToOneEventInABatchAreMerged() {
+		List<ModelChange> reported = new ArrayList<ModelChange>();
+		container.registerListener(new ModelChangedListener() {
+			@Override
+			public void onModelChanged(List<Timeline> timelines, Timeline active) {
+			}
+
+			@Override
+			public void onModelChanged(List<ModelChange> changes, List<Timeline> timelines, Timeline active) {
+				reported.addAll(changes);
+			}
+		});
+		container.addEvent("a", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		container.addEvent("b", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		reported.clear();
+
+		container.beginBatch();
+		container.editEvent(1, "a2", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		container.editEvent(1, "a3", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		container.addEvent("c", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		container.editEvent(3, "c2", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		container.addEvent("d", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		container.deleteEvent(4);
+		container.editEvent(2, "b2", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		container.deleteEvent(2);
+		container.commitBatch();
+
+		assertEquals(3, reported.size());
+		assertEquals(ModelChange.Type.EVENT_UPDATED, reported.get(0).getType());
+		assertEquals("a", reported.get(0).getOldEvent().getEventName());
+		assertEquals("a3", reported.get(0).getNewEvent().getEventName());
+		assertEquals(ModelChange.Type.EVENT_ADDED, reported.get(1).getType());
+		assertEquals(3, reported.get(1).getEventId());
+		assertEquals(ModelChange.Type.EVENT_REMOVED, reported.get(2).getType());
+		assertEquals("b", reported.get(2).getOldEvent().getEventName());
+	}
+
+	@Test
+	public void testLeastRecentlyActiveSavedTimelinesAreDropped() throws Exception {
+		Timeline first = timelineWithEvents("first", 100);
+		Timeline second = timelineWithEvents("second", 100);
+		Timeline unsaved = timelineWithEvents("unsaved", 100);
+		unsaved.setHasUnsavedChanges(true);
+
+		container.addTimeline(first);
+		container.addTimeline(second);
+		container.addTimeline(unsaved);
+
+		// Room for about two of the timelines
+		container.setMemoryBudget(first.getResidentSize() * 2 + 1, t -> new EventSource() {
+			@Override
+			public int size() {
+				return 100;
+			}
+
+			@Override
+			public Timeline load() {
+				return timelineWithEvents(t.getName(), 100);
+			}
+		});
+
+		container.setActiveTimeline(second);
+
+		assertFalse(first.isResident());
+		assertEquals(100, first.getEventCount());
+		assertTrue(second.isResident());
+		assertTrue(unsaved.isResident());
+		assertTrue(container.getResidentSize() <= second.getResidentSize() * 2 + 1);
+
+		container.setActiveTimeline(first);
+		first.load();
+
+		assertTrue(first.isResident());
+		assertEquals(100, first.getList().size());
+	}
+
+	private Timeline timelineWithEvents(String name, int count) {
+		Timeline timeline = new Timeline(name);
+
+		for (int i = 0; i < count; i++) {
+			timeline.add("e" + i, "", BASE.plusDays(i), null, EventType.NON_DURATION, Color.BLUE);
+		}
+
+		return timeline;
+	}
+}
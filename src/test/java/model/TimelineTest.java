@@ -0,0 +1,254 @@
+package model;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javafx.scene.paint.Color;
+import model.Event.EventType;
+
+public class TimelineTest {
+
+	private static final LocalDateTime BASE = LocalDateTime.of(2017, 1, 1, 0, 0);
+
+	private Timeline timeline;
+
+	@Before
+	public void setUp() {
+		timeline = new Timeline("test");
+	}
+
+	@Test
+	public void testEventsOverlapping() {
+		timeline.add("a", "", BASE, BASE.plusDays(5), EventType.DURATION, Color.BLUE);
+		timeline.add("b", "", BASE.plusDays(3), null, EventType.NON_DURATION, Color.BLUE);
+		timeline.add("c", "", BASE.plusDays(10), BASE.plusDays(12), EventType.DURATION, Color.BLUE);
+
+		assertEquals(2, timeline.eventsOverlapping(BASE.plusDays(2), BASE.plusDays(4)).size());
+		assertEquals(1, timeline.eventsAt(BASE.plusDays(11)).size());
+		assertEquals(0, timeline.eventsOverlapping(BASE.plusDays(6), BASE.plusDays(9)).size());
+		assertEquals(3, timeline.eventsOverlapping(BASE, BASE.plusDays(10)).size());
+	}
+
+	@Test
+	public void testIndexFollowsUpdateAndDelete() {
+		timeline.add("a", "", BASE, BASE.plusDays(5), EventType.DURATION, Color.BLUE);
+		Event event = timeline.getList().get(0);
+
+		timeline.update(event, "a", "", BASE.plusDays(20), BASE.plusDays(21), EventType.DURATION, Color.BLUE);
+		assertTrue(timeline.eventsAt(BASE.plusDays(2)).isEmpty());
+		assertSame(event, timeline.eventsAt(BASE.plusDays(20)).get(0));
+
+		timeline.delete(event);
+		assertTrue(timeline.eventsAt(BASE.plusDays(20)).isEmpty());
+	}
+
+	@Test
+	public void testIndexRebuiltBySetList() {
+		ArrayList<Event> events = new ArrayList<Event>();
+		events.add(new Event(1, "a", "", BASE, BASE.plusDays(1), EventType.DURATION, Color.BLUE));
+		timeline.setList(events);
+
+		assertEquals(1, timeline.eventsAt(BASE.plusHours(12)).size());
+	}
+
+	@Test
+	public void testGetEventById() {
+		for (int i = 0; i < 100; i++) {
+			timeline.add("e" + i, "", BASE.plusDays(i), null, EventType.NON_DURATION, Color.BLUE);
+		}
+
+		Event event = timeline.getEventById(50);
+		assertEquals(50, event.getId());
+
+		timeline.delete(event);
+		assertNull(timeline.getEventById(50));
+		assertEquals(99, timeline.getList().size());
+
+		for (int id = 1; id <= 100; id++) {
+			if (id != 50) {
+				assertEquals(id, timeline.getEventById(id).getId());
+			}
+		}
+	}
+
+	@Test
+	public void testGetEventByIdAfterExternalRemove() {
+		timeline.add("a", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		timeline.add("b", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		timeline.getList().remove(0);
+
+		assertNull(timeline.getEventById(1));
+		assertEquals(2, timeline.getEventById(2).getId());
+	}
+
+	@Test
+	public void testDeleteKeepsOrder() {
+		for (int i = 0; i < 5; i++) {
+			timeline.add("e" + i, "", BASE.plusDays(i), null, EventType.NON_DURATION, Color.BLUE);
+		}
+
+		timeline.delete(timeline.getEventById(2));
+
+		assertEquals(1, timeline.getList().get(0).getId());
+		assertEquals(3, timeline.getList().get(1).getId());
+		assertEquals(5, timeline.getList().get(3).getId());
+		assertEquals(5, timeline.getEventById(5).getId());
+		assertNull(timeline.getEventById(2));
+	}
+
+	@Test
+	public void testDeletedSlotsAreCompactedInOrder() {
+		for (int i = 0; i < 10; i++) {
+			timeline.add("e" + i, "", BASE.plusDays(i), null, EventType.NON_DURATION, Color.BLUE);
+		}
+
+		timeline.delete(timeline.getEventById(2));
+		timeline.delete(timeline.getEventById(3));
+		timeline.add("e10", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+
+		assertEquals(9, timeline.getEventCount());
+		assertNull(timeline.getEventById(3));
+		assertEquals(4, timeline.getEventById(4).getId());
+		assertEquals(11, timeline.getEventById(11).getId());
+
+		List<Integer> ids = new ArrayList<Integer>();
+
+		for (Event e : timeline.getList()) {
+			ids.add(e.getId());
+		}
+
+		assertEquals(Arrays.asList(1, 4, 5, 6, 7, 8, 9, 10, 11), ids);
+
+		// Deleting more than half of the events compacts the list right away
+		for (int id = 4; id <= 10; id++) {
+			timeline.delete(timeline.getEventById(id));
+		}
+
+		assertEquals(2, timeline.getEventCount());
+		assertEquals(11, timeline.getEventById(11).getId());
+		assertEquals(2, timeline.getList().size());
+	}
+
+	@Test
+	public void testDeleteSeveralKeepsOrderAndIndexes() {
+		for (int i = 0; i < 6; i++) {
+			timeline.add("e" + i, "", BASE.plusDays(i), null, EventType.NON_DURATION, Color.BLUE);
+		}
+
+		timeline.delete(Arrays.asList(timeline.getEventById(2), timeline.getEventById(5)));
+
+		assertEquals(4, timeline.getList().size());
+		assertEquals(3, timeline.getList().get(1).getId());
+		assertEquals(6, timeline.getList().get(3).getId());
+		assertNull(timeline.getEventById(5));
+		assertEquals(6, timeline.getEventById(6).getId());
+		assertTrue(timeline.eventsAt(BASE.plusDays(1)).isEmpty());
+	}
+
+	@Test
+	public void testIdsAreNotReused() {
+		timeline.add("a", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		timeline.add("b", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+		timeline.delete(timeline.getEventById(2));
+		timeline.add("c", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+
+		assertEquals(3, timeline.getList().get(1).getId());
+	}
+
+	@Test
+	public void testNextIdContinuesAfterLoadedEvents() {
+		ArrayList<Event> events = new ArrayList<Event>();
+		events.add(new Event(7, "a", "", BASE, null, EventType.NON_DURATION, Color.BLUE));
+		events.add(new Event(3, "b", "", BASE, null, EventType.NON_DURATION, Color.BLUE));
+		timeline.setList(events);
+		timeline.add("c", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+
+		assertEquals(8, timeline.getList().get(2).getId());
+		assertEquals(7, timeline.getList().get(0).getId()); // order is kept
+	}
+
+	@Test
+	public void testMatchesLinearScan() {
+		Random random = new Random(42);
+
+		for (int i = 0; i < 2000; i++) {
+			LocalDateTime start = BASE.plusHours(random.nextInt(24 * 365));
+
+			if (random.nextBoolean()) {
+				timeline.add("e" + i, "", start, start.plusHours(random.nextInt(24 * 30)), EventType.DURATION, Color.BLUE);
+			} else {
+				timeline.add("e" + i, "", start, null, EventType.NON_DURATION, Color.BLUE);
+			}
+		}
+
+		for (int i = 0; i < 100; i++) {
+			LocalDateTime from = BASE.plusHours(random.nextInt(24 * 365));
+			LocalDateTime to = from.plusHours(random.nextInt(24 * 10));
+			List<Event> expected = new ArrayList<Event>();
+
+			for (Event e : timeline.getList()) {
+				LocalDateTime end = e.getType() == EventType.DURATION ? e.getEndDate() : e.getStartDate();
+
+				if (!e.getStartDate().isAfter(to) && !end.isBefore(from)) {
+					expected.add(e);
+				}
+			}
+
+			List<Event> actual = timeline.eventsOverlapping(from, to);
+			assertEquals(expected.size(), actual.size());
+			assertTrue(actual.containsAll(expected));
+		}
+	}
+
+	@Test
+	public void testSnapshotIsNotAffectedByChanges() {
+		timeline.add("a", "", BASE, BASE.plusDays(5), EventType.DURATION, Color.BLUE);
+		long version = timeline.getVersion();
+		Timeline snapshot = timeline.snapshot();
+
+		assertEquals(version, snapshot.getVersion());
+
+		Event event = timeline.getList().get(0);
+		timeline.update(event, "b", "", BASE, BASE.plusDays(1), EventType.DURATION, Color.RED);
+		timeline.add("c", "", BASE, null, EventType.NON_DURATION, Color.BLUE);
+
+		assertTrue(timeline.getVersion() != version);
+		assertEquals(1, snapshot.getList().size());
+		assertEquals("a", snapshot.getList().get(0).getEventName());
+		assertEquals(timeline.getMaxId() - 1, snapshot.getMaxId());
+	}
+
+	@Test
+	public void testSnapshotBuildsIndexesWhenUsed() {
+		timeline.add("a", "", BASE, BASE.plusDays(5), EventType.DURATION, Color.BLUE);
+		timeline.add("b", "", BASE.plusDays(10), null, EventType.NON_DURATION, Color.BLUE);
+		Timeline snapshot = timeline.snapshot();
+
+		assertEquals("b", snapshot.getEventById(2).getEventName());
+		assertEquals(1, snapshot.eventsAt(BASE.plusDays(2)).size());
+		assertNotSame(timeline.getEventById(1), snapshot.eventsAt(BASE.plusDays(2)).get(0));
+	}
+
+	@Test
+	public void testOnlyChangesOfUnsavedFlagAreReported() {
+		List<Boolean> reported = new ArrayList<Boolean>();
+		timeline.setUnsavedChangesListener((t, unsaved) -> reported.add(unsaved));
+
+		timeline.setHasUnsavedChanges(true);
+		timeline.setHasUnsavedChanges(true);
+		timeline.setHasUnsavedChanges(false);
+		timeline.setHasUnsavedChanges(false);
+
+		assertEquals(2, reported.size());
+		assertTrue(reported.get(0));
+		assertFalse(reported.get(1));
+	}
+}
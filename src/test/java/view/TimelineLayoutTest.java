@@ -0,0 +1,173 @@
+package view;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import javafx.scene.paint.Color;
+import model.Event;
+import model.Event.EventType;
+
+public class TimelineLayoutTest {
+
+	@Test
+	public void testTouchingEventsShareARow() {
+		int[] rows = TimelineLayout.assignRows(new int[] { 0, 10, 20 }, new int[] { 10, 20, 30 });
+
+		assertArrayEquals(new int[] { 0, 0, 0 }, rows);
+	}
+
+	@Test
+	public void testOverlappingEventsGetTheFreeRow() {
+		// 0-30 and 5-15 overlap, 20-25 fits after 5-15 in the second row
+		int[] rows = TimelineLayout.assignRows(new int[] { 20, 0, 5 }, new int[] { 25, 30, 15 });
+
+		assertArrayEquals(new int[] { 1, 0, 1 }, rows);
+	}
+
+	@Test
+	public void testRowsDoNotOverlapAndAreAsFewAsPossible() {
+		Random random = new Random(7);
+		int count = 5000;
+		int[] starts = new int[count];
+		int[] ends = new int[count];
+
+		for (int i = 0; i < count; i++) {
+			starts[i] = random.nextInt(100000) - 50000;
+			ends[i] = starts[i] + 1 + random.nextInt(2000);
+		}
+
+		int[] rows = TimelineLayout.assignRows(starts, ends);
+		int rowCount = 0;
+
+		for (int i = 0; i < count; i++) {
+			rowCount = Math.max(rowCount, rows[i] + 1);
+
+			for (int j = i + 1; j < count; j++) {
+				if (rows[i] == rows[j]) {
+					assertFalse(starts[i] < ends[j] && starts[j] < ends[i]);
+				}
+			}
+		}
+
+		// The most events that overlap at one point is the fewest rows possible
+		int deepest = 0;
+
+		for (int i = 0; i < count; i++) {
+			int depth = 0;
+
+			for (int j = 0; j < count; j++) {
+				if (starts[j] <= starts[i] && starts[i] < ends[j]) {
+					depth++;
+				}
+			}
+
+			deepest = Math.max(deepest, depth);
+		}
+
+		assertEquals(deepest, rowCount);
+	}
+
+	@Test
+	public void testComputePlacesEventsAndMonthLabels() {
+		LocalDate start = LocalDate.of(2018, 1, 30);
+		Event duration = new Event(1, "a", "", LocalDateTime.of(2018, 2, 1, 10, 0), LocalDateTime.of(2018, 2, 3, 9, 0),
+				EventType.DURATION, Color.RED);
+		Event moment = new Event(2, "b", "", LocalDateTime.of(2018, 2, 2, 0, 0), null, EventType.NON_DURATION, null);
+
+		TimelineLayout layout = TimelineLayout.compute(start, 60, 30, false, 0, Arrays.asList(duration, moment));
+
+		// 2 full days from the start, so 2 columns wide, starting on the third column
+		EventPlacement first = layout.getPlacements().get(0);
+		assertSame(duration, first.getEvent());
+		assertEquals(60, first.getX());
+		assertEquals(60, first.getWidth());
+		assertEquals(0, first.getRow());
+
+		// Centered on its day and overlapping the duration event
+		EventPlacement second = layout.getPlacements().get(1);
+		assertEquals(90 + 15, second.getX());
+		assertEquals(1, second.getRow());
+		assertEquals(2, layout.getRows().size());
+
+		// The timeline starts near the end of January, so only February and March are labeled
+		assertArrayEquals(new long[] { 2, 30 }, layout.getMonthLabelDays());
+		assertEquals(1, layout.firstMonthLabelFrom(3));
+	}
+
+	@Test
+	public void testAddAndRemoveKeepOtherRows() {
+		LocalDate start = LocalDate.of(2018, 1, 1);
+		Event first = duration(1, 1, 5);
+		Event second = duration(2, 3, 8);
+		Event third = duration(3, 6, 9);
+		TimelineLayout layout = TimelineLayout.compute(start, 60, 30, false, 0, Arrays.asList(first, second, third));
+
+		assertEquals(0, layout.getPlacements().get(2).getRow());
+		assertEquals(1, layout.getPlacements().get(1).getRow());
+
+		// Fits in the gap left in the first row once the third event is removed
+		Event copy = new Event(third);
+		assertSame(third, layout.remove(copy).getEvent());
+		EventPlacement added = layout.add(duration(4, 7, 10));
+		assertEquals(0, added.getRow());
+		assertEquals(3, layout.getPlacements().size());
+		assertEquals(Arrays.asList(first, added.getEvent()), events(layout.getRows().get(0)));
+
+		// Overlaps both rows, so a new row is added
+		assertEquals(2, layout.add(duration(5, 4, 4)).getRow());
+		assertEquals(3, layout.getRows().size());
+
+		// Removing an event that is not placed does nothing
+		assertNull(layout.remove(copy));
+		assertEquals(4, layout.getPlacements().size());
+	}
+
+	@Test
+	public void testComputeKeepsRowsOfPreviousLayout() {
+		LocalDate start = LocalDate.of(2018, 1, 1);
+		TimelineLayout previous = TimelineLayout.compute(start, 60, 30, false, 0,
+				Arrays.asList(duration(1, 1, 5), duration(2, 3, 8)));
+
+		// The first event is no longer read, the second one keeps its row and the new ones fit around it
+		TimelineLayout layout = TimelineLayout.compute(start, 60, 30, false, 0,
+				Arrays.asList(duration(2, 3, 8), duration(3, 6, 7), duration(4, 9, 12)), previous);
+
+		assertEquals(1, layout.getPlacements().get(0).getRow());
+		assertEquals(0, layout.getPlacements().get(1).getRow());
+		assertEquals(0, layout.getPlacements().get(2).getRow());
+
+		// Without the previous layout the second event moves to the first row
+		assertEquals(0, TimelineLayout.compute(start, 60, 30, false, 0, Arrays.asList(duration(2, 3, 8)))
+				.getPlacements().get(0).getRow());
+	}
+
+	@Test
+	public void testPreferredRowsThatOverlapAreMoved() {
+		int[] rows = TimelineLayout.assignRows(new int[] { 0, 5, 20 }, new int[] { 10, 15, 25 }, new int[] { 1, 1, -1 });
+
+		assertArrayEquals(new int[] { 1, 0, 0 }, rows);
+	}
+
+	private static Event duration(int id, int startDay, int endDay) {
+		return new Event(id, "e" + id, "", LocalDateTime.of(2018, 1, startDay, 12, 0),
+				LocalDateTime.of(2018, 1, endDay, 12, 0), EventType.DURATION, Color.RED);
+	}
+
+	private static List<Event> events(List<EventPlacement> placements) {
+		List<Event> events = new ArrayList<Event>();
+
+		for (EventPlacement placement : placements) {
+			events.add(placement.getEvent());
+		}
+
+		return events;
+	}
+}